@@ -29,12 +29,24 @@ async function loadBookings() {
         list.appendChild(col);
     });
 
+    // One key per booking until a payment fails, so repeated clicks and network retries replay the first payment
+    const payKeys = {};
     list.querySelectorAll('button[data-booking]').forEach(btn => {
         btn.addEventListener('click', async () => {
             const bookingId = btn.getAttribute('data-booking');
             const payload = { bookingId, method: 'UPI', details: '{}' };
-            const res = await fetch('/api/transactions/pay', { method: 'POST', headers: { 'Content-Type': 'application/json' }, body: JSON.stringify(payload) });
-            if (res.ok) { alert('Payment successful'); location.reload(); } else { alert('Payment failed'); }
+            payKeys[bookingId] = payKeys[bookingId] || crypto.randomUUID();
+            btn.disabled = true;
+            try {
+                const res = await fetch('/api/transactions/pay', { method: 'POST', headers: { 'Content-Type': 'application/json', 'Idempotency-Key': payKeys[bookingId] }, body: JSON.stringify(payload) });
+                if (res.ok) { alert('Payment successful'); location.reload(); return; }
+                if (res.status === 409) { alert('Payment is still being processed'); return; }
+                // The server keeps only successful payments; a fresh key makes the next attempt explicit
+                delete payKeys[bookingId];
+                alert('Payment failed');
+            } finally {
+                btn.disabled = false;
+            }
         });
     });
 }
@@ -27,7 +27,9 @@ async function loadTournaments() {
                         </div>
                         <div class="tournament-actions">
                             <a class="btn ghost" href="turf-details.html?id=${t.id}">View Details</a>
-                            <button class="btn" onclick="registerForTournament(${t.id})">Register</button>
+                            ${t.registeredTeams >= t.maxTeams
+                                ? `<button class="btn" onclick="joinWaitlist(${t.id})">Join Waitlist</button>`
+                                : `<button class="btn" onclick="registerForTournament(${t.id})">Register</button>`}
                         </div>
                     </div>
                 </article>`;
@@ -78,7 +80,8 @@ async function registerForTournament(tournamentId) {
         });
         
         if (response.ok) {
-            alert('Successfully registered for tournament!');
+            const registration = await response.json();
+            alert('Successfully registered for tournament!' + sharedPlayersWarning(registration.sharedPlayers));
             loadTournaments(); // Refresh the list
         } else {
             const errorData = await response.json();
@@ -90,6 +93,69 @@ async function registerForTournament(tournamentId) {
     }
 }
 
+// Players with the same name may be different people, so another team listing them is only a warning
+function sharedPlayersWarning(sharedPlayers) {
+    if (!sharedPlayers || sharedPlayers.length === 0) {
+        return '';
+    }
+    return '\n\nNote: another team in this tournament also lists ' + sharedPlayers.join(', ')
+        + '. Please check that these are different players.';
+}
+
+// Join the waitlist of a full tournament; the team is registered automatically when a seat frees up
+async function joinWaitlist(tournamentId) {
+    try {
+        const authResponse = await fetch('/api/auth/me');
+        const authData = await authResponse.json();
+        
+        if (!authData.authenticated) {
+            alert('Please login to join the waitlist');
+            window.location.href = 'login.html';
+            return;
+        }
+        
+        const position = await fetch(`/api/tournaments/${tournamentId}/waitlist/position?userId=${authData.id}`);
+        if (position.ok) {
+            const data = await position.json();
+            alert(`You are already on the waitlist at position ${data.position}`);
+            return;
+        }
+        
+        const teamName = prompt('Enter your team name:');
+        if (!teamName) return;
+        
+        const teamMembers = prompt('Enter team members (comma separated):');
+        if (!teamMembers) return;
+        
+        const contactPhone = prompt('Enter contact phone number:');
+        if (!contactPhone) return;
+        
+        const response = await fetch(`/api/tournaments/${tournamentId}/waitlist`, {
+            method: 'POST',
+            headers: {
+                'Content-Type': 'application/json'
+            },
+            body: JSON.stringify({
+                userId: authData.id,
+                teamName: teamName,
+                teamMembers: teamMembers,
+                contactPhone: contactPhone
+            })
+        });
+        
+        if (response.ok) {
+            const data = await response.json();
+            alert(`Joined the waitlist at position ${data.position}. You will be registered automatically when a seat frees up.`
+                + sharedPlayersWarning(data.sharedPlayers));
+        } else {
+            alert('Could not join the waitlist');
+        }
+    } catch (error) {
+        console.error('Error joining waitlist:', error);
+        alert('Failed to join the waitlist. Please try again.');
+    }
+}
+
 document.addEventListener('DOMContentLoaded', loadTournaments);
 
 
@@ -1,3 +1,6 @@
+let currentUserId = null;
+let nextPage = 0;
+
 async function loadTransactions() {
     const authRes = await fetch('/api/auth/me');
     const me = await authRes.json();
@@ -5,11 +8,38 @@ async function loadTransactions() {
         window.location.href = '/login.html';
         return;
     }
-    const res = await fetch(`/api/transactions/user/${me.id}`);
-    const list = await res.json();
+    currentUserId = me.id;
+    document.getElementById('transactionsList').innerHTML = '';
+    document.getElementById('loadMoreTransactions').addEventListener('click', loadNextPage);
+    await Promise.all([loadSummary(), loadNextPage()]);
+}
+
+async function loadSummary() {
+    const res = await fetch(`/api/transactions/user/${currentUserId}/summary`);
+    if (!res.ok) return;
+    const summary = await res.json();
+    const months = summary.monthly.slice(-6).map(m => `<div class="mt-2">${m.month}: ₹${m.net}</div>`).join('');
+    const turfs = summary.byTurf.slice(0, 5).map(t => `<div class="mt-2">${t.turfName}: ₹${t.net}</div>`).join('');
+    document.getElementById('financeSummary').innerHTML = `
+        <div style="grid-column: span 4"><div class="card"><div class="card-body">
+            <strong>Total spent</strong>
+            <div class="mt-2">Paid: ₹${summary.totalSpent} (${summary.payments} payments)</div>
+            <div class="mt-2">Refunded: ₹${summary.totalRefunded} (${summary.refunds} refunds)</div>
+            <div class="mt-2">Net: ₹${summary.netSpent}</div>
+        </div></div></div>
+        <div style="grid-column: span 4"><div class="card"><div class="card-body">
+            <strong>By month</strong>${months}
+        </div></div></div>
+        <div style="grid-column: span 4"><div class="card"><div class="card-body">
+            <strong>By turf</strong>${turfs}
+        </div></div></div>`;
+}
+
+async function loadNextPage() {
+    const res = await fetch(`/api/transactions/user/${currentUserId}?page=${nextPage}&size=20`);
+    const page = await res.json();
     const container = document.getElementById('transactionsList');
-    container.innerHTML = '';
-    list.forEach(tx => {
+    page.content.forEach(tx => {
         const col = document.createElement('div');
         col.style.gridColumn = 'span 6';
         col.innerHTML = `
@@ -26,8 +56,8 @@ async function loadTransactions() {
             </div>`;
         container.appendChild(col);
     });
+    nextPage++;
+    document.getElementById('loadMoreTransactions').style.display = page.last ? 'none' : '';
 }
 
 document.addEventListener('DOMContentLoaded', loadTransactions);
-
-
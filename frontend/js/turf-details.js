@@ -93,7 +93,11 @@ async function renderTurf() {
     // Review form
     const authRes = await fetch('/api/auth/me');
     const me = await authRes.json();
-    if (me.authenticated) {
+    const reviewedRes = me.authenticated
+        ? await fetch(`/api/reviews/exists?turfId=${turf.id}`)
+        : null;
+    const alreadyReviewed = reviewedRes && reviewedRes.ok && (await reviewedRes.json()).reviewed;
+    if (me.authenticated && !alreadyReviewed) {
         const formWrap = document.createElement('div');
         formWrap.className = 'card mt-4';
         formWrap.innerHTML = `
@@ -0,0 +1,248 @@
+package com.turfbooking.config;
+
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.session.MapSession;
+import org.springframework.session.Session;
+import org.springframework.session.SessionRepository;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Session repository keeping sessions in process memory
+ * Like MapSessionRepository, each request works on its own copy of a stored session and saves
+ * it back when the request ends. Expired sessions are swept on a schedule instead of piling
+ * up, and every session records which attributes a request changed so that a backing store
+ * can persist only those.
+ */
+public class InMemorySessionRepository implements SessionRepository<InMemorySessionRepository.LocalSession> {
+
+    protected final Map<String, StoredSession> sessions = new ConcurrentHashMap<>();
+
+    private final Duration defaultMaxInactiveInterval;
+
+    public InMemorySessionRepository(Duration defaultMaxInactiveInterval) {
+        this.defaultMaxInactiveInterval = defaultMaxInactiveInterval;
+    }
+
+    @Override
+    public LocalSession createSession() {
+        MapSession session = new MapSession();
+        session.setMaxInactiveInterval(defaultMaxInactiveInterval);
+        return new LocalSession(session, true);
+    }
+
+    @Override
+    public void save(LocalSession session) {
+        String id = session.getId();
+        // A changed id moves the stored session to its new key
+        StoredSession previous = id.equals(session.loadedId) ? null : sessions.get(session.loadedId);
+        if (previous != null) {
+            renaming(session.loadedId, previous);
+        }
+        StoredSession renamed = previous != null && sessions.remove(session.loadedId, previous) ? previous : null;
+        boolean isNew = session.isNew;
+        sessions.compute(id, (key, current) -> {
+            StoredSession target = current != null ? current : renamed;
+            if (target == null) {
+                if (!isNew) {
+                    // Deleted or expired while the request was running; don't bring it back
+                    return null;
+                }
+                target = newStoredSession(session);
+            }
+            synchronized (target) {
+                target.session.setId(id);
+                target.session.setLastAccessedTime(session.getLastAccessedTime());
+                target.session.setMaxInactiveInterval(session.getMaxInactiveInterval());
+                for (String name : session.changedAttributes) {
+                    target.session.setAttribute(name, session.getAttribute(name));
+                }
+                saved(target, session);
+            }
+            return target;
+        });
+        session.loadedId = id;
+        session.isNew = false;
+        session.changedAttributes.clear();
+    }
+
+    @Override
+    public LocalSession findById(String id) {
+        StoredSession stored = sessions.get(id);
+        if (stored == null) {
+            stored = load(id);
+            if (stored == null) {
+                return null;
+            }
+            StoredSession raced = sessions.putIfAbsent(id, stored);
+            stored = raced != null ? raced : stored;
+        }
+        MapSession copy;
+        synchronized (stored) {
+            copy = new MapSession(stored.session);
+        }
+        if (copy.isExpired()) {
+            deleteById(id);
+            return null;
+        }
+        return new LocalSession(copy, false);
+    }
+
+    @Override
+    public void deleteById(String id) {
+        deleted(id, sessions.remove(id));
+    }
+
+    /**
+     * Drop expired sessions
+     */
+    @Scheduled(fixedDelayString = "${app.session.sweep-interval-ms:60000}")
+    public void removeExpired() {
+        Instant now = Instant.now();
+        for (Iterator<StoredSession> it = sessions.values().iterator(); it.hasNext(); ) {
+            StoredSession stored = it.next();
+            boolean expired;
+            synchronized (stored) {
+                expired = stored.session.getLastAccessedTime().plus(stored.session.getMaxInactiveInterval()).isBefore(now);
+            }
+            if (expired) {
+                it.remove();
+            }
+        }
+    }
+
+    /**
+     * Number of sessions held in memory
+     */
+    public int size() {
+        return sessions.size();
+    }
+
+    // A session not in memory; a backing store overrides this to read it
+    protected StoredSession load(String id) {
+        return null;
+    }
+
+    // Called before a stored session leaves memory under an id it is being renamed from
+    protected void renaming(String oldId, StoredSession stored) {
+    }
+
+    // Called with the stored session locked, after a request's changes were copied into it
+    protected void saved(StoredSession stored, LocalSession session) {
+    }
+
+    // Called after a session was removed; stored is null if it was not in memory
+    protected void deleted(String id, StoredSession stored) {
+    }
+
+    protected StoredSession newStoredSession(LocalSession session) {
+        MapSession copy = new MapSession(session.getId());
+        copy.setCreationTime(session.getCreationTime());
+        return new StoredSession(copy);
+    }
+
+    /**
+     * Held copy of a session; guarded by its own monitor
+     */
+    protected static class StoredSession {
+
+        protected final MapSession session;
+
+        protected StoredSession(MapSession session) {
+            this.session = session;
+        }
+    }
+
+    /**
+     * A request's copy of a session, tracking the attributes it changed
+     */
+    public static final class LocalSession implements Session {
+
+        private final MapSession delegate;
+        private final Set<String> changedAttributes = new HashSet<>();
+        private String loadedId;
+        private boolean isNew;
+
+        LocalSession(MapSession delegate, boolean isNew) {
+            this.delegate = delegate;
+            this.loadedId = delegate.getId();
+            this.isNew = isNew;
+        }
+
+        public Set<String> getChangedAttributes() {
+            return changedAttributes;
+        }
+
+        public boolean isNew() {
+            return isNew;
+        }
+
+        @Override
+        public String getId() {
+            return delegate.getId();
+        }
+
+        @Override
+        public String changeSessionId() {
+            return delegate.changeSessionId();
+        }
+
+        @Override
+        public <T> T getAttribute(String attributeName) {
+            return delegate.getAttribute(attributeName);
+        }
+
+        @Override
+        public Set<String> getAttributeNames() {
+            return delegate.getAttributeNames();
+        }
+
+        @Override
+        public void setAttribute(String attributeName, Object attributeValue) {
+            delegate.setAttribute(attributeName, attributeValue);
+            changedAttributes.add(attributeName);
+        }
+
+        @Override
+        public void removeAttribute(String attributeName) {
+            delegate.removeAttribute(attributeName);
+            changedAttributes.add(attributeName);
+        }
+
+        @Override
+        public Instant getCreationTime() {
+            return delegate.getCreationTime();
+        }
+
+        @Override
+        public void setLastAccessedTime(Instant lastAccessedTime) {
+            delegate.setLastAccessedTime(lastAccessedTime);
+        }
+
+        @Override
+        public Instant getLastAccessedTime() {
+            return delegate.getLastAccessedTime();
+        }
+
+        @Override
+        public void setMaxInactiveInterval(Duration interval) {
+            delegate.setMaxInactiveInterval(interval);
+        }
+
+        @Override
+        public Duration getMaxInactiveInterval() {
+            return delegate.getMaxInactiveInterval();
+        }
+
+        @Override
+        public boolean isExpired() {
+            return delegate.isExpired();
+        }
+    }
+}
@@ -48,10 +48,12 @@ public class SecurityConfig {
                 .requestMatchers("/static/**", "/css/**", "/js/**", "/images/**", "/favicon.ico").permitAll()
                 .requestMatchers("/api/turfs/search", "/api/turfs/*/details", "/api/turfs/featured").permitAll()
                 .requestMatchers("/api/tournaments/upcoming", "/api/reviews/*/public").permitAll()
+                .requestMatchers("/api/transactions/callback").permitAll() // Authenticated by callback token
                 .requestMatchers("/search", "/turf-details/**", "/tournaments", "/about").permitAll()
                 
                 // Admin endpoints
                 .requestMatchers("/admin", "/admin/**", "/api/admin/**").hasRole("ADMIN")
+                .requestMatchers("/api/transactions/export", "/api/bookings/export").hasRole("ADMIN")
                 
                 // Authenticated user endpoints
                 .requestMatchers("/dashboard", "/profile", "/bookings/**", "/api/bookings/**").authenticated()
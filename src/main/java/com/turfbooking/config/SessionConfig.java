@@ -0,0 +1,66 @@
+package com.turfbooking.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.session.JdbcSessionDataSourceScriptDatabaseInitializer;
+import org.springframework.boot.autoconfigure.session.JdbcSessionProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.session.config.annotation.web.http.EnableSpringHttpSession;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * HTTP session store selection
+ * app.session.store picks where sessions live: "jdbc", the default, leaves Spring Boot's
+ * JDBC session store in place, which reads and writes the tables on every request.
+ * "jdbc-write-behind" serves them from memory and writes changes to the Spring Session
+ * tables in the background. "memory" keeps them in this process only, so it is for a
+ * single node: sessions are lost on restart and not shared without sticky routing.
+ */
+@Configuration
+public class SessionConfig {
+    
+    /**
+     * In-process sessions for a single node; they do not survive a restart
+     */
+    @Configuration
+    @EnableSpringHttpSession
+    @ConditionalOnProperty(name = "app.session.store", havingValue = "memory")
+    static class MemorySessionConfig {
+        
+        @Bean
+        public InMemorySessionRepository sessionRepository(
+                @Value("${server.servlet.session.timeout:30m}") Duration timeout) {
+            return new InMemorySessionRepository(timeout);
+        }
+    }
+    
+    /**
+     * In-process sessions backed by the Spring Session JDBC tables
+     */
+    @Configuration
+    @EnableSpringHttpSession
+    @EnableConfigurationProperties(JdbcSessionProperties.class)
+    @ConditionalOnProperty(name = "app.session.store", havingValue = "jdbc-write-behind")
+    static class WriteBehindSessionConfig {
+        
+        @Bean
+        public WriteBehindJdbcSessionRepository sessionRepository(
+                @Value("${server.servlet.session.timeout:30m}") Duration timeout,
+                JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate) {
+            return new WriteBehindJdbcSessionRepository(timeout, jdbcTemplate, transactionTemplate);
+        }
+        
+        // Spring Boot creates the session tables only for its own JDBC store
+        @Bean
+        public JdbcSessionDataSourceScriptDatabaseInitializer sessionSchemaInitializer(
+                DataSource dataSource, JdbcSessionProperties properties) {
+            return new JdbcSessionDataSourceScriptDatabaseInitializer(dataSource, properties);
+        }
+    }
+}
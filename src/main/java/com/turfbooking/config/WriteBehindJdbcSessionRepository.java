@@ -0,0 +1,284 @@
+package com.turfbooking.config;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.serializer.support.DeserializingConverter;
+import org.springframework.core.serializer.support.SerializingConverter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.session.MapSession;
+import org.springframework.session.PrincipalNameIndexResolver;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Session repository serving sessions from memory and writing them behind to the Spring Session JDBC tables
+ * Requests never touch the database once a session is cached. A scheduled flush writes, per
+ * session, only what changed since the last flush: its access time and the attributes that
+ * were set or removed, all in one batched transaction. Sessions missing from memory, e.g.
+ * after a restart, are read from the tables. Changes are durable within one flush interval,
+ * and a node only sees its own writes, so several nodes need sticky sessions.
+ * A renamed session keeps its old id in the tables until the next flush; that id is
+ * tombstoned meanwhile so that a request still carrying it cannot load a second copy.
+ */
+public class WriteBehindJdbcSessionRepository extends InMemorySessionRepository {
+
+    private static final Logger log = LoggerFactory.getLogger(WriteBehindJdbcSessionRepository.class);
+
+    private static final String SELECT_SESSION =
+        "SELECT S.PRIMARY_ID, S.CREATION_TIME, S.LAST_ACCESS_TIME, S.MAX_INACTIVE_INTERVAL, " +
+        "SA.ATTRIBUTE_NAME, SA.ATTRIBUTE_BYTES FROM SPRING_SESSION S " +
+        "LEFT JOIN SPRING_SESSION_ATTRIBUTES SA ON S.PRIMARY_ID = SA.SESSION_PRIMARY_ID WHERE S.SESSION_ID = ?";
+    private static final String INSERT_SESSION =
+        "INSERT INTO SPRING_SESSION (PRIMARY_ID, SESSION_ID, CREATION_TIME, LAST_ACCESS_TIME, " +
+        "MAX_INACTIVE_INTERVAL, EXPIRY_TIME, PRINCIPAL_NAME) VALUES (?, ?, ?, ?, ?, ?, ?)";
+    private static final String UPDATE_SESSION =
+        "UPDATE SPRING_SESSION SET SESSION_ID = ?, LAST_ACCESS_TIME = ?, MAX_INACTIVE_INTERVAL = ?, " +
+        "EXPIRY_TIME = ?, PRINCIPAL_NAME = ? WHERE PRIMARY_ID = ?";
+    private static final String UPDATE_ATTRIBUTE =
+        "UPDATE SPRING_SESSION_ATTRIBUTES SET ATTRIBUTE_BYTES = ? WHERE SESSION_PRIMARY_ID = ? AND ATTRIBUTE_NAME = ?";
+    private static final String INSERT_ATTRIBUTE =
+        "INSERT INTO SPRING_SESSION_ATTRIBUTES (SESSION_PRIMARY_ID, ATTRIBUTE_NAME, ATTRIBUTE_BYTES) VALUES (?, ?, ?)";
+    private static final String DELETE_ATTRIBUTE =
+        "DELETE FROM SPRING_SESSION_ATTRIBUTES WHERE SESSION_PRIMARY_ID = ? AND ATTRIBUTE_NAME = ?";
+    private static final String DELETE_SESSION = "DELETE FROM SPRING_SESSION WHERE SESSION_ID = ?";
+    private static final String DELETE_EXPIRED = "DELETE FROM SPRING_SESSION WHERE EXPIRY_TIME < ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final SerializingConverter serializer = new SerializingConverter();
+    private final DeserializingConverter deserializer;
+    private final PrincipalNameIndexResolver<MapSession> principalNameResolver = new PrincipalNameIndexResolver<>();
+    // Stored ids of sessions renamed since their last flush, mapped to the session now holding them
+    private final Map<String, JdbcStoredSession> renamedIds = new ConcurrentHashMap<>();
+
+    public WriteBehindJdbcSessionRepository(Duration defaultMaxInactiveInterval, JdbcTemplate jdbcTemplate,
+                                            TransactionTemplate transactionTemplate) {
+        super(defaultMaxInactiveInterval);
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.deserializer = new DeserializingConverter(getClass().getClassLoader());
+    }
+
+    /**
+     * Write the changes of every dirty session
+     * Deletes wait for a running flush, so a logout is never overtaken by a pending write
+     */
+    @Scheduled(fixedDelayString = "${app.session.flush-interval-ms:5000}")
+    public synchronized void flush() {
+        List<Pending> pending = new ArrayList<>();
+        for (StoredSession stored : sessions.values()) {
+            JdbcStoredSession session = (JdbcStoredSession) stored;
+            synchronized (session) {
+                if (session.dirty) {
+                    pending.add(session.drain(serializer, principalNameResolver));
+                }
+            }
+        }
+        if (pending.isEmpty()) {
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> write(pending));
+            for (Pending change : pending) {
+                if (change.previousId != null && !change.previousId.equals(change.sessionId)) {
+                    renamedIds.remove(change.previousId, change.session);
+                }
+            }
+        } catch (RuntimeException e) {
+            // Keep the changes for the next flush, which writes their values as of then
+            log.warn("Flushing {} sessions failed, retrying on the next flush", pending.size(), e);
+            for (Pending change : pending) {
+                synchronized (change.session) {
+                    change.session.restore(change);
+                }
+            }
+        }
+    }
+
+    /**
+     * Flush, then delete expired sessions from memory and from the tables
+     */
+    @Override
+    @Scheduled(fixedDelayString = "${app.session.sweep-interval-ms:60000}")
+    public void removeExpired() {
+        super.removeExpired();
+        // Renamed sessions that expired before being flushed; their rows expire below
+        renamedIds.values().removeIf(session -> !sessions.containsValue(session));
+        flush();
+        jdbcTemplate.update(DELETE_EXPIRED, System.currentTimeMillis());
+    }
+
+    @PreDestroy
+    public void stop() {
+        flush();
+    }
+
+    @Override
+    protected StoredSession load(String id) {
+        if (renamedIds.containsKey(id)) {
+            return null;
+        }
+        Map<String, Object> attributes = new HashMap<>();
+        JdbcStoredSession[] loaded = new JdbcStoredSession[1];
+        jdbcTemplate.query(SELECT_SESSION, rs -> {
+            if (loaded[0] == null) {
+                MapSession session = new MapSession(id);
+                session.setCreationTime(Instant.ofEpochMilli(rs.getLong(2)));
+                session.setLastAccessedTime(Instant.ofEpochMilli(rs.getLong(3)));
+                session.setMaxInactiveInterval(Duration.ofSeconds(rs.getInt(4)));
+                loaded[0] = new JdbcStoredSession(session, rs.getString(1), true);
+            }
+            String name = rs.getString(5);
+            if (name != null) {
+                attributes.put(name, deserializer.convert(rs.getBytes(6)));
+            }
+        }, id);
+        // Checked again in case the session was renamed while it was being read
+        if (loaded[0] == null || renamedIds.containsKey(id)) {
+            return null;
+        }
+        attributes.forEach(loaded[0].session::setAttribute);
+        return loaded[0];
+    }
+
+    @Override
+    protected void renaming(String oldId, StoredSession stored) {
+        JdbcStoredSession jdbcSession = (JdbcStoredSession) stored;
+        String persistedId;
+        synchronized (jdbcSession) {
+            persistedId = jdbcSession.persistedId;
+        }
+        if (persistedId != null) {
+            renamedIds.put(persistedId, jdbcSession);
+        }
+    }
+
+    @Override
+    protected void saved(StoredSession stored, LocalSession session) {
+        JdbcStoredSession jdbcSession = (JdbcStoredSession) stored;
+        jdbcSession.dirty = true;
+        jdbcSession.changedAttributes.addAll(session.getChangedAttributes());
+    }
+
+    @Override
+    protected synchronized void deleted(String id, StoredSession stored) {
+        // Logouts are written through; attribute rows go with the session by cascade
+        String persistedId = null;
+        if (stored != null) {
+            synchronized (stored) {
+                persistedId = ((JdbcStoredSession) stored).persistedId;
+            }
+        }
+        jdbcTemplate.update(DELETE_SESSION, persistedId != null ? persistedId : id);
+        if (persistedId != null) {
+            renamedIds.remove(persistedId, stored);
+        }
+    }
+
+    @Override
+    protected StoredSession newStoredSession(LocalSession session) {
+        MapSession copy = new MapSession(session.getId());
+        copy.setCreationTime(session.getCreationTime());
+        return new JdbcStoredSession(copy, UUID.randomUUID().toString(), false);
+    }
+
+    private void write(List<Pending> pending) {
+        List<Object[]> inserts = new ArrayList<>();
+        List<Object[]> updates = new ArrayList<>();
+        List<Object[]> attributeUpdates = new ArrayList<>();
+        List<Object[]> attributeInserts = new ArrayList<>();
+        List<Object[]> attributeDeletes = new ArrayList<>();
+        for (Pending change : pending) {
+            long expiry = change.lastAccessed + change.maxInactiveSeconds * 1000L;
+            if (change.insert) {
+                inserts.add(new Object[]{change.primaryId, change.sessionId, change.created, change.lastAccessed,
+                                         change.maxInactiveSeconds, expiry, change.principalName});
+            } else {
+                updates.add(new Object[]{change.sessionId, change.lastAccessed, change.maxInactiveSeconds, expiry,
+                                         change.principalName, change.primaryId});
+            }
+            change.attributes.forEach((name, bytes) -> {
+                if (bytes == null) {
+                    attributeDeletes.add(new Object[]{change.primaryId, name});
+                } else if (change.insert) {
+                    attributeInserts.add(new Object[]{change.primaryId, name, bytes});
+                } else {
+                    attributeUpdates.add(new Object[]{bytes, change.primaryId, name});
+                }
+            });
+        }
+        jdbcTemplate.batchUpdate(INSERT_SESSION, inserts);
+        jdbcTemplate.batchUpdate(UPDATE_SESSION, updates);
+        jdbcTemplate.batchUpdate(DELETE_ATTRIBUTE, attributeDeletes);
+        // Attributes that were not stored yet take an insert instead
+        int[] updated = jdbcTemplate.batchUpdate(UPDATE_ATTRIBUTE, attributeUpdates);
+        for (int i = 0; i < updated.length; i++) {
+            if (updated[i] == 0) {
+                Object[] row = attributeUpdates.get(i);
+                attributeInserts.add(new Object[]{row[1], row[2], row[0]});
+            }
+        }
+        jdbcTemplate.batchUpdate(INSERT_ATTRIBUTE, attributeInserts);
+    }
+
+    // A cached session with what has changed since it was last written
+    private static final class JdbcStoredSession extends StoredSession {
+
+        private final String primaryId;
+        private final Set<String> changedAttributes = new HashSet<>();
+        private String persistedId;
+        private boolean persisted;
+        private boolean dirty;
+
+        JdbcStoredSession(MapSession session, String primaryId, boolean persisted) {
+            super(session);
+            this.primaryId = primaryId;
+            this.persisted = persisted;
+            this.persistedId = persisted ? session.getId() : null;
+        }
+
+        // Snapshot the changes and mark the session clean; caller holds the monitor
+        Pending drain(SerializingConverter serializer, PrincipalNameIndexResolver<MapSession> principalNameResolver) {
+            Map<String, byte[]> attributes = new HashMap<>();
+            for (String name : changedAttributes) {
+                Object value = session.getAttribute(name);
+                attributes.put(name, value == null ? null : serializer.convert(value));
+            }
+            Pending change = new Pending(this, !persisted, primaryId, persistedId, session.getId(),
+                                         session.getCreationTime().toEpochMilli(),
+                                         session.getLastAccessedTime().toEpochMilli(),
+                                         (int) session.getMaxInactiveInterval().getSeconds(),
+                                         principalNameResolver.resolveIndexValueFor(session), attributes);
+            changedAttributes.clear();
+            dirty = false;
+            persisted = true;
+            persistedId = session.getId();
+            return change;
+        }
+
+        // Put back the changes of a failed write; the tables still hold the previous id
+        void restore(Pending change) {
+            dirty = true;
+            changedAttributes.addAll(change.attributes.keySet());
+            persisted = !change.insert;
+            persistedId = change.previousId;
+        }
+    }
+
+    private record Pending(JdbcStoredSession session, boolean insert, String primaryId, String previousId, String sessionId,
+                           long created, long lastAccessed, int maxInactiveSeconds, String principalName,
+                           Map<String, byte[]> attributes) {
+    }
+}
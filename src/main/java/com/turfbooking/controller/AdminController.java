@@ -2,15 +2,28 @@ package com.turfbooking.controller;
 
 import com.turfbooking.model.Turf;
 import com.turfbooking.model.Tournament;
+import com.turfbooking.model.TournamentMatch;
 import com.turfbooking.model.Offer;
+import com.turfbooking.model.RefundJob;
+import com.turfbooking.model.ReconciliationDiscrepancy;
+import com.turfbooking.model.ReconciliationRun;
+import com.turfbooking.service.AnalyticsRollupService;
+import com.turfbooking.service.BulkRefundEngine;
+import com.turfbooking.service.FixtureEngine;
 import com.turfbooking.service.TurfService;
 import com.turfbooking.service.TournamentService;
 import com.turfbooking.service.OfferService;
+import com.turfbooking.service.PaymentReconciler;
+import com.turfbooking.service.TurfRatingUpdater;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/admin")
@@ -20,6 +33,10 @@ public class AdminController {
 	@Autowired private TurfService turfService;
 	@Autowired private TournamentService tournamentService;
 	@Autowired private OfferService offerService;
+	@Autowired private TurfRatingUpdater turfRatingUpdater;
+	@Autowired private BulkRefundEngine bulkRefundEngine;
+	@Autowired private AnalyticsRollupService analyticsRollupService;
+	@Autowired private PaymentReconciler paymentReconciler;
 
 	@GetMapping("/turfs")
 	public ResponseEntity<List<Turf>> allTurfs() { return ResponseEntity.ok(turfService.getAllActiveTurfs()); }
@@ -43,8 +60,112 @@ public class AdminController {
 		return ResponseEntity.ok(tournamentService.updateTournament(id, tournament));
 	}
 
+	@PostMapping("/tournaments/{id}/fixtures")
+	public ResponseEntity<List<TournamentMatch>> generateFixtures(@PathVariable Long id, @RequestBody Map<String, Object> payload) {
+		try {
+			Long organizerId = Long.valueOf(payload.get("organizerId").toString());
+			FixtureEngine.Format format = FixtureEngine.Format.valueOf(payload.getOrDefault("format", "KNOCKOUT").toString());
+			List<Long> turfIds = ((List<?>) payload.get("turfIds")).stream().map(turfId -> Long.valueOf(turfId.toString())).toList();
+			int matchMinutes = Integer.parseInt(payload.getOrDefault("matchMinutes", 60).toString());
+			int days = Integer.parseInt(payload.getOrDefault("days", 1).toString());
+			int groupSize = Integer.parseInt(payload.getOrDefault("groupSize", 4).toString());
+			int advancePerGroup = Integer.parseInt(payload.getOrDefault("advancePerGroup", 2).toString());
+			return ResponseEntity.status(HttpStatus.CREATED).body(tournamentService.generateFixtures(
+					id, organizerId, format, turfIds, matchMinutes, days, groupSize, advancePerGroup));
+		} catch (RuntimeException e) {
+			return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+		}
+	}
+
 	@PostMapping("/offers")
 	public ResponseEntity<Offer> createOffer(@RequestBody Offer offer) { return ResponseEntity.ok(offerService.createOffer(offer)); }
+
+	@PostMapping("/tournaments/{id}/cancel")
+	public ResponseEntity<Tournament> cancelTournament(@PathVariable Long id) {
+		try {
+			return ResponseEntity.ok(tournamentService.cancelTournament(id));
+		} catch (RuntimeException e) {
+			return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+		}
+	}
+
+	@GetMapping("/refunds")
+	public ResponseEntity<List<RefundJob>> refundJobs() { return ResponseEntity.ok(bulkRefundEngine.getRecentJobs()); }
+
+	@GetMapping("/refunds/{id}")
+	public ResponseEntity<RefundJob> refundJob(@PathVariable Long id) {
+		try {
+			return ResponseEntity.ok(bulkRefundEngine.getJob(id));
+		} catch (RuntimeException e) {
+			return ResponseEntity.notFound().build();
+		}
+	}
+
+	@PostMapping("/refunds/{id}/resume")
+	public ResponseEntity<RefundJob> resumeRefundJob(@PathVariable Long id) {
+		try {
+			return ResponseEntity.ok(bulkRefundEngine.resume(id));
+		} catch (RuntimeException e) {
+			return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+		}
+	}
+
+	@PostMapping("/reconciliation")
+	public ResponseEntity<ReconciliationRun> startReconciliation(@RequestParam(defaultValue = "false") boolean autoFix) {
+		return ResponseEntity.status(HttpStatus.ACCEPTED).body(paymentReconciler.startRun(autoFix));
+	}
+
+	@GetMapping("/reconciliation")
+	public ResponseEntity<List<ReconciliationRun>> reconciliationRuns() { return ResponseEntity.ok(paymentReconciler.getRecentRuns()); }
+
+	@GetMapping("/reconciliation/{id}")
+	public ResponseEntity<ReconciliationRun> reconciliationRun(@PathVariable Long id) {
+		try {
+			return ResponseEntity.ok(paymentReconciler.getRun(id));
+		} catch (RuntimeException e) {
+			return ResponseEntity.notFound().build();
+		}
+	}
+
+	@GetMapping("/reconciliation/{id}/discrepancies")
+	public ResponseEntity<Page<ReconciliationDiscrepancy>> reconciliationDiscrepancies(@PathVariable Long id,
+			@RequestParam(defaultValue = "0") int page, @RequestParam(defaultValue = "50") int size) {
+		try {
+			return ResponseEntity.ok(paymentReconciler.getDiscrepancies(id, page, Math.min(Math.max(size, 1), 500)));
+		} catch (RuntimeException e) {
+			return ResponseEntity.notFound().build();
+		}
+	}
+
+	@GetMapping("/analytics/bookings")
+	public ResponseEntity<Map<String, List<Object[]>>> bookingAnalytics(@RequestParam String from, @RequestParam String to) {
+		try {
+			return ResponseEntity.ok(analyticsRollupService.getBookingAnalytics(LocalDate.parse(from), LocalDate.parse(to)));
+		} catch (RuntimeException e) {
+			return ResponseEntity.badRequest().build();
+		}
+	}
+
+	@GetMapping("/analytics/payments")
+	public ResponseEntity<Map<String, List<Object[]>>> paymentAnalytics(@RequestParam String from, @RequestParam String to) {
+		try {
+			return ResponseEntity.ok(analyticsRollupService.getPaymentAnalytics(LocalDate.parse(from), LocalDate.parse(to)));
+		} catch (RuntimeException e) {
+			return ResponseEntity.badRequest().build();
+		}
+	}
+
+	@GetMapping("/analytics/revenue")
+	public ResponseEntity<Map<String, List<Object[]>>> revenueAnalytics(@RequestParam String from, @RequestParam String to) {
+		try {
+			return ResponseEntity.ok(analyticsRollupService.getRevenueAnalytics(LocalDate.parse(from), LocalDate.parse(to)));
+		} catch (RuntimeException e) {
+			return ResponseEntity.badRequest().build();
+		}
+	}
+
+	@GetMapping("/metrics/rating-queue")
+	public ResponseEntity<Map<String, Object>> ratingQueueMetrics() { return ResponseEntity.ok(turfRatingUpdater.getMetrics()); }
 }
 
 
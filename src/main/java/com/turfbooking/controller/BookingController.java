@@ -2,11 +2,14 @@ package com.turfbooking.controller;
 
 import com.turfbooking.model.Booking;
 import com.turfbooking.service.BookingService;
+import com.turfbooking.service.ExportService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.time.LocalDate;
 import java.time.LocalTime;
@@ -25,11 +28,30 @@ public class BookingController {
 	@Autowired
 	private BookingService bookingService;
 
+	@Autowired
+	private ExportService exportService;
+
 	@GetMapping
 	public ResponseEntity<List<Booking>> getAllBookings() {
 		return ResponseEntity.ok(bookingService.getAllBookings());
 	}
 
+	@GetMapping("/export")
+	public ResponseEntity<StreamingResponseBody> exportBookings(@RequestParam(required = false) String from,
+			@RequestParam(required = false) String to, @RequestParam(defaultValue = "csv") String format) {
+		try {
+			ExportService.Format exportFormat = ExportService.Format.valueOf(format.toUpperCase());
+			StreamingResponseBody body = exportService.exportBookings(
+					from == null ? null : LocalDate.parse(from), to == null ? null : LocalDate.parse(to), exportFormat);
+			return ResponseEntity.ok()
+					.contentType(exportFormat.getMediaType())
+					.header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"bookings." + exportFormat.getExtension() + "\"")
+					.body(body);
+		} catch (RuntimeException e) {
+			return ResponseEntity.badRequest().build();
+		}
+	}
+
 	@GetMapping("/{id}")
 	public ResponseEntity<Booking> getBookingById(@PathVariable Long id) {
 		Optional<Booking> booking = bookingService.getBookingById(id);
@@ -1,13 +1,20 @@
 package com.turfbooking.controller;
 
+import com.turfbooking.model.Booking;
 import com.turfbooking.model.Offer;
+import com.turfbooking.model.User;
+import com.turfbooking.service.OfferRuleEngine;
 import com.turfbooking.service.OfferService;
+import com.turfbooking.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -20,6 +27,9 @@ public class OfferController {
 	@Autowired
 	private OfferService offerService;
 
+	@Autowired
+	private UserService userService;
+
 	@GetMapping
 	public ResponseEntity<List<Offer>> getAll() {
 		return ResponseEntity.ok(offerService.getAllOffers());
@@ -57,6 +67,51 @@ public class OfferController {
 			return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
 		}
 	}
-}
 
+	@PostMapping("/redeem")
+	public ResponseEntity<Map<String, Object>> redeem(@RequestBody Map<String, Object> payload,
+			Authentication authentication) {
+		// The booking owner is checked against the signed-in user, never against the request body
+		Optional<User> user = currentUser(authentication);
+		if (user.isEmpty()) {
+			return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+		}
+		try {
+			String code = payload.get("code").toString();
+			Long bookingId = Long.valueOf(payload.get("bookingId").toString());
+			Booking booking = offerService.redeemOffer(code, user.get().getId(), bookingId);
+			return ResponseEntity.ok(Map.of("bookingId", booking.getId(), "finalAmount", booking.getTotalAmount()));
+		} catch (RuntimeException e) {
+			return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+		}
+	}
+
+	@GetMapping("/best")
+	public ResponseEntity<Map<String, Object>> best(@RequestParam String turfType, @RequestParam BigDecimal amount,
+			@RequestParam(required = false) String date, Authentication authentication) {
+		try {
+			// Per-user limits apply to the signed-in user only
+			Long userId = currentUser(authentication).map(User::getId).orElse(null);
+			LocalDate bookingDate = date == null ? null : LocalDate.parse(date);
+			Optional<OfferRuleEngine.OfferRule> best = offerService.findBestOffer(turfType, amount, userId, bookingDate);
+			if (best.isEmpty()) {
+				return ResponseEntity.notFound().build();
+			}
+			OfferRuleEngine.OfferRule rule = best.get();
+			BigDecimal discount = rule.discountFor(amount).min(amount);
+			Map<String, Object> body = new LinkedHashMap<>();
+			body.put("offerId", rule.getOfferId());
+			body.put("code", rule.getCode());
+			body.put("title", rule.getTitle());
+			body.put("discount", discount);
+			body.put("finalAmount", amount.subtract(discount));
+			return ResponseEntity.ok(body);
+		} catch (RuntimeException e) {
+			return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+		}
+	}
 
+	private Optional<User> currentUser(Authentication authentication) {
+		return authentication == null ? Optional.empty() : userService.findByEmail(authentication.getName());
+	}
+}
\ No newline at end of file
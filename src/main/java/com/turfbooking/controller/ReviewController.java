@@ -1,11 +1,14 @@
 package com.turfbooking.controller;
 
 import com.turfbooking.model.Review;
+import com.turfbooking.model.User;
 import com.turfbooking.service.ReviewService;
+import com.turfbooking.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
@@ -20,6 +23,9 @@ public class ReviewController {
 	@Autowired
 	private ReviewService reviewService;
 
+	@Autowired
+	private UserService userService;
+
 	@GetMapping("/{id}")
 	public ResponseEntity<Review> getReviewById(@PathVariable Long id) {
 		Optional<Review> review = reviewService.getReviewById(id);
@@ -43,6 +49,16 @@ public class ReviewController {
 		return ResponseEntity.ok(reviewService.getRecentReviews(limit));
 	}
 
+	@GetMapping("/exists")
+	public ResponseEntity<Map<String, Boolean>> hasReviewed(@RequestParam Long turfId, Authentication authentication) {
+		// Only the signed-in user's own reviews can be checked
+		Optional<User> user = authentication == null ? Optional.empty() : userService.findByEmail(authentication.getName());
+		if (user.isEmpty()) {
+			return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+		}
+		return ResponseEntity.ok(Map.of("reviewed", reviewService.hasUserReviewedTurf(user.get().getId(), turfId)));
+	}
+
 	@PostMapping
 	public ResponseEntity<Review> createReview(@RequestBody Map<String, Object> payload) {
 		try {
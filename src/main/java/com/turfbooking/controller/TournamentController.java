@@ -1,17 +1,23 @@
 package com.turfbooking.controller;
 
 import com.turfbooking.model.Tournament;
+import com.turfbooking.model.TournamentMatch;
 import com.turfbooking.model.TournamentRegistration;
 import com.turfbooking.service.TournamentService;
+import com.turfbooking.service.UpcomingTournamentFeed;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/api/tournaments")
@@ -21,14 +27,22 @@ public class TournamentController {
 	@Autowired
 	private TournamentService tournamentService;
 
+	@Autowired
+	private UpcomingTournamentFeed upcomingFeed;
+
 	@GetMapping
 	public ResponseEntity<List<Tournament>> getAll() {
 		return ResponseEntity.ok(tournamentService.getAllTournaments());
 	}
 
 	@GetMapping("/upcoming")
-	public ResponseEntity<List<Tournament>> upcoming() {
-		return ResponseEntity.ok(tournamentService.getUpcomingTournaments());
+	public ResponseEntity<byte[]> upcoming(@RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+		UpcomingTournamentFeed.Snapshot feed = upcomingFeed.current();
+		if (ifNoneMatch != null && ifNoneMatch.contains(feed.etag())) {
+			return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(feed.etag()).cacheControl(CacheControl.noCache()).build();
+		}
+		return ResponseEntity.ok().eTag(feed.etag()).cacheControl(CacheControl.noCache())
+				.contentType(MediaType.APPLICATION_JSON).body(feed.body());
 	}
 
 	@GetMapping("/{id}")
@@ -56,14 +70,72 @@ public class TournamentController {
 	}
 
 	@PostMapping("/{id}/register")
-	public ResponseEntity<TournamentRegistration> register(@PathVariable Long id, @RequestBody Map<String, Object> payload) {
+	public CompletableFuture<ResponseEntity<TournamentRegistration>> register(@PathVariable Long id, @RequestBody Map<String, Object> payload) {
+		try {
+			Long userId = Long.valueOf(payload.get("userId").toString());
+			String teamName = payload.get("teamName").toString();
+			String teamMembers = payload.get("teamMembers").toString();
+			String contactPhone = payload.get("contactPhone").toString();
+			return tournamentService.registerTeam(id, userId, teamName, teamMembers, contactPhone)
+					.thenApply(registration -> ResponseEntity.status(HttpStatus.CREATED).body(registration))
+					.exceptionally(e -> ResponseEntity.status(HttpStatus.BAD_REQUEST).build());
+		} catch (RuntimeException e) {
+			return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.BAD_REQUEST).build());
+		}
+	}
+
+	@GetMapping("/players/registrations")
+	public ResponseEntity<List<Map<String, Object>>> playerRegistrations(@RequestParam String name) {
+		try {
+			// Only the tournament and team, never the registering user's contact details
+			List<Map<String, Object>> registrations = tournamentService.getPlayerRegistrations(name).stream()
+					.map(registration -> Map.<String, Object>of(
+							"tournamentId", registration.getTournament().getId(),
+							"tournamentName", registration.getTournament().getName(),
+							"tournamentDate", registration.getTournament().getTournamentDate(),
+							"teamName", registration.getTeamName()))
+					.toList();
+			return ResponseEntity.ok(registrations);
+		} catch (RuntimeException e) {
+			return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+		}
+	}
+
+	@GetMapping("/{id}/fixtures")
+	public ResponseEntity<List<TournamentMatch>> fixtures(@PathVariable Long id) {
+		return ResponseEntity.ok(tournamentService.getFixtures(id));
+	}
+
+	@PostMapping("/{id}/waitlist")
+	public ResponseEntity<Map<String, Object>> joinWaitlist(@PathVariable Long id, @RequestBody Map<String, Object> payload) {
 		try {
 			Long userId = Long.valueOf(payload.get("userId").toString());
 			String teamName = payload.get("teamName").toString();
 			String teamMembers = payload.get("teamMembers").toString();
 			String contactPhone = payload.get("contactPhone").toString();
+			tournamentService.joinWaitlist(id, userId, teamName, teamMembers, contactPhone);
 			return ResponseEntity.status(HttpStatus.CREATED)
-					.body(tournamentService.registerTeam(id, userId, teamName, teamMembers, contactPhone));
+					.body(Map.of("position", tournamentService.getWaitlistPosition(id, userId),
+							"sharedPlayers", tournamentService.getSharedPlayers(id, teamMembers)));
+		} catch (RuntimeException e) {
+			return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+		}
+	}
+
+	@GetMapping("/{id}/waitlist/position")
+	public ResponseEntity<Map<String, Object>> waitlistPosition(@PathVariable Long id, @RequestParam Long userId) {
+		try {
+			return ResponseEntity.ok(Map.of("position", tournamentService.getWaitlistPosition(id, userId)));
+		} catch (RuntimeException e) {
+			return ResponseEntity.notFound().build();
+		}
+	}
+
+	@DeleteMapping("/{id}/waitlist")
+	public ResponseEntity<Void> leaveWaitlist(@PathVariable Long id, @RequestParam Long userId) {
+		try {
+			tournamentService.leaveWaitlist(id, userId);
+			return ResponseEntity.noContent().build();
 		} catch (RuntimeException e) {
 			return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
 		}
@@ -1,16 +1,33 @@
 package com.turfbooking.controller;
 
 import com.turfbooking.model.Transaction;
+import com.turfbooking.model.User;
+import com.turfbooking.service.ExportService;
+import com.turfbooking.service.IdempotencyService;
+import com.turfbooking.service.PaymentCallbackQueue;
 import com.turfbooking.service.TransactionService;
+import com.turfbooking.service.UserFinanceService;
+import com.turfbooking.service.UserService;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 @RestController
 @RequestMapping("/api/transactions")
@@ -20,6 +37,35 @@ public class TransactionController {
 	@Autowired
 	private TransactionService transactionService;
 
+	@Autowired
+	private IdempotencyService idempotencyService;
+
+	@Autowired
+	private PaymentCallbackQueue callbackQueue;
+
+	@Autowired
+	private ExportService exportService;
+
+	@Autowired
+	private UserFinanceService userFinanceService;
+
+	@Autowired
+	private UserService userService;
+
+	@Value("${app.payments.callback-token:}")
+	private String callbackToken;
+
+	@Value("${app.payments.gateway:stub}")
+	private String gateway;
+
+	@PostConstruct
+	public void checkCallbackToken() {
+		// Only the local stub gateway may run without one; it hands its callbacks to the queue directly
+		if (callbackToken.isBlank() && !"stub".equals(gateway)) {
+			throw new IllegalStateException("app.payments.callback-token (PAYMENT_CALLBACK_TOKEN) must be set for the " + gateway + " payment gateway");
+		}
+	}
+
 	@GetMapping("/{id}")
 	public ResponseEntity<Transaction> getById(@PathVariable Long id) {
 		Optional<Transaction> tx = transactionService.getTransactionById(id);
@@ -32,18 +78,92 @@ public class TransactionController {
 	}
 
 	@GetMapping("/user/{userId}")
-	public ResponseEntity<List<Transaction>> getByUser(@PathVariable Long userId) {
-		return ResponseEntity.ok(transactionService.getUserTransactions(userId));
+	public ResponseEntity<Page<Transaction>> getByUser(@PathVariable Long userId,
+			@RequestParam(defaultValue = "0") int page,
+			@RequestParam(defaultValue = "20") int size,
+			Authentication authentication) {
+		HttpStatus denied = checkAccess(userId, authentication);
+		if (denied != null) {
+			return ResponseEntity.status(denied).build();
+		}
+		return ResponseEntity.ok(transactionService.getUserTransactions(userId, page, Math.min(size, 100)));
+	}
+
+	@GetMapping("/user/{userId}/summary")
+	public ResponseEntity<UserFinanceService.FinanceSummary> getUserSummary(@PathVariable Long userId,
+			Authentication authentication) {
+		HttpStatus denied = checkAccess(userId, authentication);
+		if (denied != null) {
+			return ResponseEntity.status(denied).build();
+		}
+		return ResponseEntity.ok(userFinanceService.getSummary(userId));
 	}
 
 	@PostMapping("/pay")
-	public ResponseEntity<Transaction> pay(@RequestBody Map<String, Object> payload) {
+	public CompletableFuture<ResponseEntity<?>> pay(@RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
+													@RequestBody Map<String, Object> payload,
+													Authentication authentication) {
+		if (idempotencyKey == null || idempotencyKey.isBlank()) {
+			return processPayment(payload).thenApply(result -> result);
+		}
+		// Keys are scoped to the signed-in user
+		Optional<User> user = currentUser(authentication);
+		if (user.isEmpty()) {
+			return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.UNAUTHORIZED).build());
+		}
+		try {
+			return idempotencyService.execute(user.get().getId(), idempotencyKey, payload, () -> processPayment(payload)
+							.thenApply(result -> idempotencyService.response(result.getStatusCode().value(), result.getBody())))
+					.<ResponseEntity<?>>thenApply(response -> {
+						ResponseEntity.BodyBuilder builder = ResponseEntity.status(response.statusCode())
+								.header("Idempotent-Replayed", String.valueOf(response.replayed()));
+						if (response.body() == null) {
+							return builder.build();
+						}
+						return builder.contentType(MediaType.APPLICATION_JSON).body(response.body());
+					})
+					.exceptionally(e -> {
+						Throwable cause = e instanceof CompletionException ? e.getCause() : e;
+						return cause instanceof IdempotencyService.KeyReusedException
+								? keyReused(cause)
+								: ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+					});
+		} catch (IdempotencyService.KeyReusedException e) {
+			return CompletableFuture.completedFuture(keyReused(e));
+		} catch (RuntimeException e) {
+			return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.BAD_REQUEST).body(Map.of("error", e.getMessage())));
+		}
+	}
+
+	private CompletableFuture<ResponseEntity<Transaction>> processPayment(Map<String, Object> payload) {
 		try {
 			Long bookingId = Long.valueOf(payload.get("bookingId").toString());
 			Transaction.PaymentMethod method = Transaction.PaymentMethod.valueOf(payload.get("method").toString());
 			String details = payload.get("details") == null ? "{}" : payload.get("details").toString();
-			Transaction tx = transactionService.processPayment(bookingId, method, details);
-			return ResponseEntity.status(HttpStatus.CREATED).body(tx);
+			// A declined payment is not a success, so it is not replayed for the key
+			return transactionService.processPayment(bookingId, method, details)
+					.thenApply(tx -> ResponseEntity.status(tx.getPaymentStatus() == Transaction.PaymentStatus.FAILED
+							? HttpStatus.PAYMENT_REQUIRED : HttpStatus.CREATED).body(tx));
+		} catch (Exception e) {
+			return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.BAD_REQUEST).build());
+		}
+	}
+
+	@PostMapping("/callback")
+	public ResponseEntity<Void> callback(@RequestHeader(value = "X-Callback-Token", required = false) String token,
+										 @RequestBody Map<String, Object> payload) {
+		if (token == null || callbackToken.isBlank() || !MessageDigest.isEqual(token.getBytes(StandardCharsets.UTF_8),
+				callbackToken.getBytes(StandardCharsets.UTF_8))) {
+			return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+		}
+		try {
+			String transactionId = payload.get("transactionId").toString();
+			Transaction.PaymentStatus status = Transaction.PaymentStatus.valueOf(payload.get("status").toString());
+			String response = payload.get("response") == null ? null : payload.get("response").toString();
+			if (!callbackQueue.submit(new PaymentCallbackQueue.Callback(transactionId, status, response))) {
+				return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+			}
+			return ResponseEntity.accepted().build();
 		} catch (Exception e) {
 			return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
 		}
@@ -59,6 +179,22 @@ public class TransactionController {
 		}
 	}
 
+	@GetMapping("/export")
+	public ResponseEntity<StreamingResponseBody> export(@RequestParam String start, @RequestParam String end,
+														@RequestParam(defaultValue = "csv") String format) {
+		try {
+			ExportService.Format exportFormat = ExportService.Format.valueOf(format.toUpperCase());
+			StreamingResponseBody body = exportService.exportTransactions(
+					LocalDateTime.parse(start), LocalDateTime.parse(end), exportFormat);
+			return ResponseEntity.ok()
+					.contentType(exportFormat.getMediaType())
+					.header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"transactions." + exportFormat.getExtension() + "\"")
+					.body(body);
+		} catch (RuntimeException ex) {
+			return ResponseEntity.badRequest().build();
+		}
+	}
+
 	@GetMapping("/range")
 	public ResponseEntity<List<Transaction>> byRange(@RequestParam String start, @RequestParam String end) {
 		try {
@@ -69,6 +205,25 @@ public class TransactionController {
 			return ResponseEntity.badRequest().build();
 		}
 	}
-}
 
+	// Same answer whether the reuse was found before or after waiting on the first request
+	private static ResponseEntity<?> keyReused(Throwable e) {
+		return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY).body(Map.of("error", e.getMessage()));
+	}
 
+	private Optional<User> currentUser(Authentication authentication) {
+		return authentication == null ? Optional.empty() : userService.findByEmail(authentication.getName());
+	}
+
+	// Users may only read their own payments; admins may read anyone's
+	private HttpStatus checkAccess(Long userId, Authentication authentication) {
+		Optional<User> user = currentUser(authentication);
+		if (user.isEmpty()) {
+			return HttpStatus.UNAUTHORIZED;
+		}
+		if (!user.get().getId().equals(userId) && user.get().getRole() != User.Role.ADMIN) {
+			return HttpStatus.FORBIDDEN;
+		}
+		return null;
+	}
+}
@@ -0,0 +1,49 @@
+package com.turfbooking.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * BookingDailyRollup entity holding the bookings of one turf and status on one booking date
+ * Rows are recomputed per day from the bookings table and summed for admin analytics.
+ */
+@Entity
+@Table(name = "booking_daily_rollups", uniqueConstraints = {
+    @UniqueConstraint(columnNames = {"stat_date", "turf_id", "status"})
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookingDailyRollup {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(name = "stat_date", nullable = false)
+    private LocalDate statDate;
+    
+    @Column(name = "turf_id", nullable = false)
+    private Long turfId;
+    
+    @Column(nullable = false, length = 50)
+    private String city;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(name = "turf_type", nullable = false, length = 20)
+    private Turf.TurfType turfType;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private Booking.BookingStatus status;
+    
+    @Column(name = "booking_count", nullable = false)
+    private Long bookingCount;
+    
+    @Column(name = "booked_amount", nullable = false, precision = 14, scale = 2)
+    private BigDecimal bookedAmount;
+}
@@ -0,0 +1,48 @@
+package com.turfbooking.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import java.time.LocalDateTime;
+
+/**
+ * IdempotencyRecord entity storing the response of the first request made with an Idempotency-Key
+ * The key is prefixed with the id of the user sending it. Retries with the same key replay
+ * the stored response until the record expires
+ */
+@Entity
+@Table(name = "idempotency_keys", indexes = {
+    @Index(name = "idx_idempotency_keys_expires", columnList = "expires_at")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class IdempotencyRecord {
+    
+    @Id
+    @Column(name = "idempotency_key", length = 120)
+    private String idempotencyKey;
+    
+    // Hash of the request body, so a key reused for a different request is rejected
+    @Column(name = "request_hash", nullable = false, length = 32)
+    private String requestHash;
+    
+    // Null while the request that claimed the key is running
+    @Column(name = "status_code")
+    private Integer statusCode;
+    
+    @Column(name = "response_body", columnDefinition = "TEXT")
+    private String responseBody;
+    
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+    
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+    
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+}
@@ -0,0 +1,30 @@
+package com.turfbooking.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * LedgerDailyTotal entity holding the net revenue posted on one day and the running total up to it
+ * Maintained incrementally as postings are written, so revenue for a period is a difference of two prefix sums
+ */
+@Entity
+@Table(name = "ledger_daily_totals")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LedgerDailyTotal {
+    
+    @Id
+    @Column(name = "entry_date")
+    private LocalDate entryDate;
+    
+    @Column(nullable = false, precision = 14, scale = 2)
+    private BigDecimal revenue = BigDecimal.ZERO;
+    
+    @Column(name = "cumulative_revenue", nullable = false, precision = 14, scale = 2)
+    private BigDecimal cumulativeRevenue = BigDecimal.ZERO;
+}
@@ -0,0 +1,51 @@
+package com.turfbooking.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * LedgerEntry entity representing one posting of the append-only double-entry ledger
+ * Every settled transaction posts a debit to CASH and an equal credit to REVENUE
+ * (debits positive, credits negative); refunds post the reverse through their negative amount.
+ */
+@Entity
+@Table(name = "ledger_entries", uniqueConstraints = {
+    @UniqueConstraint(columnNames = {"transaction_id", "account"})
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LedgerEntry {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(name = "transaction_id", nullable = false, length = 100, updatable = false)
+    private String transactionId;
+    
+    @Column(name = "booking_id", nullable = false, updatable = false)
+    private Long bookingId;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20, updatable = false)
+    private Account account;
+    
+    @Column(nullable = false, precision = 12, scale = 2, updatable = false)
+    private BigDecimal amount;
+    
+    @Column(name = "entry_date", nullable = false, updatable = false)
+    private LocalDate entryDate;
+    
+    @Column(name = "created_at", updatable = false)
+    private LocalDateTime createdAt;
+    
+    public enum Account {
+        CASH, REVENUE
+    }
+}
@@ -4,17 +4,22 @@ import jakarta.persistence.*;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.Set;
 
 /**
  * Offer entity representing promotional offers and discounts
  * Contains discount details, validity period, and usage limits
  */
 @Entity
-@Table(name = "offers")
+@Table(name = "offers", indexes = {
+    @Index(name = "idx_offers_active", columnList = "is_active, valid_from")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -55,7 +60,8 @@ public class Offer {
     @Column(name = "total_usage_limit")
     private Integer totalUsageLimit;
     
-    @Column(name = "current_usage")
+    // Only changed through atomic increments in OfferRepository, never by saving the entity
+    @Column(name = "current_usage", updatable = false)
     private Integer currentUsage = 0;
     
     @Column(name = "is_active")
@@ -64,12 +70,36 @@ public class Offer {
     @Column(name = "applicable_turf_types", columnDefinition = "JSON")
     private String applicableTurfTypes;
     
+    // Normalized copy of applicableTurfTypes, used for indexed turf type lookups
+    @ElementCollection(fetch = FetchType.LAZY)
+    @CollectionTable(name = "offer_turf_types", joinColumns = @JoinColumn(name = "offer_id"),
+                     indexes = @Index(name = "idx_offer_turf_types_type", columnList = "turf_type, offer_id"))
+    @Column(name = "turf_type", length = 20)
+    @Enumerated(EnumType.STRING)
+    @JsonIgnore
+    private Set<Turf.TurfType> turfTypes = new HashSet<>();
+    
     @Column(name = "created_at")
     private LocalDateTime createdAt = LocalDateTime.now();
     
     @PrePersist
     protected void onCreate() {
         createdAt = LocalDateTime.now();
+        normalizeTurfTypes();
+    }
+    
+    @PreUpdate
+    protected void onUpdate() {
+        normalizeTurfTypes();
+    }
+    
+    /**
+     * Stores a blank turf type list as null, the form turf type queries treat as every type
+     */
+    private void normalizeTurfTypes() {
+        if (applicableTurfTypes != null && applicableTurfTypes.isBlank()) {
+            applicableTurfTypes = null;
+        }
     }
     
     /**
@@ -106,9 +136,12 @@ public class Offer {
     }
     
     /**
-     * Increments usage count
+     * Replaces the normalized turf types with the parsed applicable turf types
      */
-    public void incrementUsage() {
-        currentUsage++;
+    public void setNormalizedTurfTypes(Set<Turf.TurfType> types) {
+        turfTypes.clear();
+        if (types != null) {
+            turfTypes.addAll(types);
+        }
     }
 }
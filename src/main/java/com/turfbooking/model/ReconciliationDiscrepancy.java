@@ -0,0 +1,55 @@
+package com.turfbooking.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import java.math.BigDecimal;
+
+/**
+ * ReconciliationDiscrepancy entity representing one booking whose status disagrees with its payments
+ * Rows are written by the reconciliation scan in batches and are never updated.
+ */
+@Entity
+@Table(name = "reconciliation_discrepancies", indexes = {
+    @Index(name = "idx_reconciliation_discrepancies_run", columnList = "run_id, id")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReconciliationDiscrepancy {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(name = "run_id", nullable = false, updatable = false)
+    private Long runId;
+    
+    @Column(name = "booking_id", nullable = false, updatable = false)
+    private Long bookingId;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 30, updatable = false)
+    private Type type;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(name = "booking_status", nullable = false, length = 20, updatable = false)
+    private Booking.BookingStatus bookingStatus;
+    
+    // Sum of the booking's successful, unrefunded payments when it was scanned
+    @Column(name = "paid_amount", nullable = false, precision = 12, scale = 2, updatable = false)
+    private BigDecimal paidAmount;
+    
+    @Column(name = "transaction_count", nullable = false, updatable = false)
+    private Integer transactionCount;
+    
+    public enum Type {
+        // PENDING booking with a successful payment; auto-fix confirms it
+        PAID_NOT_CONFIRMED,
+        // CONFIRMED or COMPLETED booking without a successful payment; reported only
+        CONFIRMED_WITHOUT_PAYMENT,
+        // CANCELLED booking whose payment was never refunded; auto-fix refunds it
+        CANCELLED_NOT_REFUNDED
+    }
+}
@@ -0,0 +1,87 @@
+package com.turfbooking.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import java.time.LocalDateTime;
+
+/**
+ * ReconciliationRun entity recording one pass comparing booking statuses with their payments
+ * Counters are committed as the scan progresses, so a running pass reports how far it got.
+ */
+@Entity
+@Table(name = "reconciliation_runs", indexes = {
+    @Index(name = "idx_reconciliation_runs_status", columnList = "status")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReconciliationRun {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private Status status = Status.RUNNING;
+    
+    @Column(name = "auto_fix", nullable = false)
+    private Boolean autoFix = false;
+    
+    @Column(name = "scanned_bookings", nullable = false)
+    private Long scannedBookings = 0L;
+    
+    @Column(name = "scanned_transactions", nullable = false)
+    private Long scannedTransactions = 0L;
+    
+    @Column(name = "paid_not_confirmed", nullable = false)
+    private Long paidNotConfirmed = 0L;
+    
+    @Column(name = "confirmed_without_payment", nullable = false)
+    private Long confirmedWithoutPayment = 0L;
+    
+    @Column(name = "cancelled_not_refunded", nullable = false)
+    private Long cancelledNotRefunded = 0L;
+    
+    // Bookings moved from PENDING to CONFIRMED by auto-fix
+    @Column(name = "confirmed_bookings", nullable = false)
+    private Long confirmedBookings = 0L;
+    
+    // Refund rows written by auto-fix for cancelled bookings
+    @Column(name = "refunded_transactions", nullable = false)
+    private Long refundedTransactions = 0L;
+    
+    @Column(name = "error_message", length = 500)
+    private String errorMessage;
+    
+    @Column(name = "started_at")
+    private LocalDateTime startedAt;
+    
+    @Column(name = "finished_at")
+    private LocalDateTime finishedAt;
+    
+    public enum Status {
+        RUNNING, COMPLETED, FAILED
+    }
+    
+    @PrePersist
+    protected void onCreate() {
+        startedAt = LocalDateTime.now();
+    }
+    
+    /**
+     * Constructor for creating a new run
+     */
+    public ReconciliationRun(boolean autoFix) {
+        this.autoFix = autoFix;
+    }
+    
+    /**
+     * Total discrepancies found so far
+     */
+    public long getDiscrepancies() {
+        return paidNotConfirmed + confirmedWithoutPayment + cancelledNotRefunded;
+    }
+}
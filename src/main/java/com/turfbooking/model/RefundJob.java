@@ -0,0 +1,103 @@
+package com.turfbooking.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * RefundJob entity tracking a bulk refund for a cancelled tournament or a deactivated turf
+ * Bookings are processed in id order; the cursor is committed with each chunk so a job resumes where it stopped
+ */
+@Entity
+@Table(name = "refund_jobs", indexes = {
+    @Index(name = "idx_refund_jobs_status", columnList = "status")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RefundJob {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private Scope scope;
+    
+    @Column(name = "target_id", nullable = false)
+    private Long targetId;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private Status status = Status.RUNNING;
+    
+    // Highest booking id already processed
+    @Column(name = "last_booking_id", nullable = false)
+    private Long lastBookingId = 0L;
+    
+    @Column(name = "total_bookings", nullable = false)
+    private Long totalBookings = 0L;
+    
+    @Column(name = "processed_bookings", nullable = false)
+    private Long processedBookings = 0L;
+    
+    @Column(name = "refunded_transactions", nullable = false)
+    private Long refundedTransactions = 0L;
+    
+    @Column(name = "refunded_amount", nullable = false, precision = 12, scale = 2)
+    private BigDecimal refundedAmount = BigDecimal.ZERO;
+    
+    // Paid entry fees marked REFUND_DUE
+    @Column(name = "refund_due_registrations", nullable = false)
+    private Long refundDueRegistrations = 0L;
+    
+    @Column(name = "error_message", length = 500)
+    private String errorMessage;
+    
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+    
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+    
+    public enum Scope {
+        TOURNAMENT, TURF
+    }
+    
+    public enum Status {
+        RUNNING, COMPLETED, FAILED
+    }
+    
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+        updatedAt = LocalDateTime.now();
+    }
+    
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+    
+    /**
+     * Constructor for creating a new refund job
+     */
+    public RefundJob(Scope scope, Long targetId) {
+        this.scope = scope;
+        this.targetId = targetId;
+    }
+    
+    /**
+     * Share of bookings processed, from 0 to 100
+     */
+    public int getProgressPercent() {
+        if (totalBookings == null || totalBookings == 0) {
+            return status == Status.COMPLETED ? 100 : 0;
+        }
+        return (int) Math.min(100, processedBookings * 100 / totalBookings);
+    }
+}
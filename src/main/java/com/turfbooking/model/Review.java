@@ -5,6 +5,7 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 /**
@@ -49,6 +50,13 @@ public class Review {
     @Column(name = "updated_at")
     private LocalDateTime updatedAt = LocalDateTime.now();
     
+    // Turf rating and review count including this change, until TurfRatingUpdater persists them
+    @Transient
+    private BigDecimal projectedTurfRating;
+    
+    @Transient
+    private Integer projectedTurfReviews;
+    
     @PrePersist
     protected void onCreate() {
         createdAt = LocalDateTime.now();
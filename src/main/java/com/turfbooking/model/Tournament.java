@@ -4,6 +4,7 @@ import jakarta.persistence.*;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import java.math.BigDecimal;
 import java.time.LocalDate;
@@ -16,7 +17,9 @@ import java.util.List;
  * Contains tournament details, registration information, and status
  */
 @Entity
-@Table(name = "tournaments")
+@Table(name = "tournaments", indexes = {
+    @Index(name = "idx_tournaments_status_date", columnList = "status, tournament_date")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -58,7 +61,8 @@ public class Tournament {
     @Column(name = "max_teams", nullable = false)
     private Integer maxTeams;
     
-    @Column(name = "registered_teams")
+    // Only changed through atomic updates in TournamentRepository, never by saving the entity
+    @Column(name = "registered_teams", updatable = false)
     private Integer registeredTeams = 0;
     
     @Enumerated(EnumType.STRING)
@@ -84,6 +88,7 @@ public class Tournament {
     private LocalDateTime updatedAt = LocalDateTime.now();
     
     @OneToMany(mappedBy = "tournament", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
+    @JsonIgnore
     private List<TournamentRegistration> registrations;
     
     public enum TournamentStatus {
@@ -0,0 +1,111 @@
+package com.turfbooking.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+
+/**
+ * TournamentMatch entity representing a scheduled fixture of a tournament
+ * A side is either a registered team or a placeholder such as "Winner of match 3"
+ */
+@Entity
+@Table(name = "tournament_matches", uniqueConstraints = {
+    @UniqueConstraint(columnNames = {"tournament_id", "match_number"})
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
+public class TournamentMatch {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "tournament_id", nullable = false)
+    @JsonIgnore
+    private Tournament tournament;
+    
+    @Column(name = "round_number", nullable = false)
+    private Integer round;
+    
+    @Column(name = "match_number", nullable = false)
+    private Integer matchNumber;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private Stage stage;
+    
+    @Column(name = "group_name", length = 10)
+    private String groupName;
+    
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "home_registration_id")
+    @JsonIgnore
+    private TournamentRegistration homeRegistration;
+    
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "away_registration_id")
+    @JsonIgnore
+    private TournamentRegistration awayRegistration;
+    
+    @Column(name = "home_label", length = 100)
+    private String homeLabel;
+    
+    @Column(name = "away_label", length = 100)
+    private String awayLabel;
+    
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "booking_id", nullable = false)
+    @JsonIgnore
+    private Booking booking;
+    
+    @Column(name = "turf_id", nullable = false)
+    private Long turfId;
+    
+    @Column(name = "match_date", nullable = false)
+    private LocalDate matchDate;
+    
+    @Column(name = "start_time", nullable = false)
+    private LocalTime startTime;
+    
+    @Column(name = "end_time", nullable = false)
+    private LocalTime endTime;
+    
+    @Column(name = "created_at")
+    private LocalDateTime createdAt = LocalDateTime.now();
+    
+    public enum Stage {
+        GROUP, ROUND_ROBIN, KNOCKOUT
+    }
+    
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+    
+    /**
+     * Name of the home side, or its placeholder until it is known
+     */
+    public String getHomeTeam() {
+        return homeRegistration != null ? homeRegistration.getTeamName() : homeLabel;
+    }
+    
+    /**
+     * Name of the away side, or its placeholder until it is known
+     */
+    public String getAwayTeam() {
+        return awayRegistration != null ? awayRegistration.getTeamName() : awayLabel;
+    }
+    
+    public Long getBookingId() {
+        return booking != null ? booking.getId() : null;
+    }
+}
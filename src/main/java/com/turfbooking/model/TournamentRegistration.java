@@ -4,8 +4,14 @@ import jakarta.persistence.*;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.turfbooking.util.TeamRoster;
 import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.Set;
 
 /**
  * TournamentRegistration entity representing team registrations for tournaments
@@ -39,6 +45,21 @@ public class TournamentRegistration {
     @Column(name = "team_members", nullable = false, columnDefinition = "JSON")
     private String teamMembers;
     
+    // Normalized player keys parsed from teamMembers, used for indexed player lookups
+    @ElementCollection(fetch = FetchType.LAZY)
+    @CollectionTable(name = "team_members", joinColumns = @JoinColumn(name = "registration_id"),
+                     indexes = @Index(name = "idx_team_members_player", columnList = "player_key, registration_id"))
+    @Column(name = "player_key", length = TeamRoster.MAX_KEY_LENGTH)
+    @JsonIgnore
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private Set<String> playerKeys = new HashSet<>();
+    
+    // Players whose names are also listed by another team of the tournament; names are not
+    // unique, so this is reported to the registering team as a warning rather than rejected
+    @Transient
+    private Set<String> sharedPlayers;
+    
     @Column(name = "contact_phone", length = 20)
     private String contactPhone;
     
@@ -50,7 +71,8 @@ public class TournamentRegistration {
     private PaymentStatus paymentStatus = PaymentStatus.PENDING;
     
     public enum PaymentStatus {
-        PENDING, PAID, FAILED
+        // REFUND_DUE: paid entry fee of a cancelled tournament, waiting to be paid back
+        PENDING, PAID, FAILED, REFUND_DUE, REFUNDED
     }
     
     @PrePersist
@@ -69,5 +91,6 @@ public class TournamentRegistration {
         this.teamMembers = teamMembers;
         this.contactPhone = contactPhone;
         this.paymentStatus = PaymentStatus.PENDING;
+        this.playerKeys = TeamRoster.playerKeys(teamMembers);
     }
 }
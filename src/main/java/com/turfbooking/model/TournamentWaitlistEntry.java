@@ -0,0 +1,66 @@
+package com.turfbooking.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import java.time.LocalDateTime;
+
+/**
+ * TournamentWaitlistEntry entity representing a team waiting for a seat in a full tournament
+ * Entries are promoted in join order (ascending id) when a registration is cancelled
+ */
+@Entity
+@Table(name = "tournament_waitlist", uniqueConstraints = {
+    @UniqueConstraint(columnNames = {"tournament_id", "user_id"})
+}, indexes = {
+    @Index(name = "idx_tournament_waitlist_order", columnList = "tournament_id, id")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
+public class TournamentWaitlistEntry {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "tournament_id", nullable = false)
+    private Tournament tournament;
+    
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", nullable = false)
+    private User user;
+    
+    @Column(name = "team_name", nullable = false, length = 100)
+    private String teamName;
+    
+    @Column(name = "team_members", nullable = false, length = 1000)
+    private String teamMembers;
+    
+    @Column(name = "contact_phone", length = 20)
+    private String contactPhone;
+    
+    @Column(name = "joined_at")
+    private LocalDateTime joinedAt = LocalDateTime.now();
+    
+    @PrePersist
+    protected void onCreate() {
+        joinedAt = LocalDateTime.now();
+    }
+    
+    /**
+     * Constructor for creating a new waitlist entry
+     */
+    public TournamentWaitlistEntry(Tournament tournament, User user, String teamName,
+                                   String teamMembers, String contactPhone) {
+        this.tournament = tournament;
+        this.user = user;
+        this.teamName = teamName;
+        this.teamMembers = teamMembers;
+        this.contactPhone = contactPhone;
+    }
+}
@@ -5,6 +5,7 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.turfbooking.util.TransactionIdGenerator;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
@@ -13,7 +14,10 @@ import java.time.LocalDateTime;
  * Stores payment details and gateway responses
  */
 @Entity
-@Table(name = "transactions")
+@Table(name = "transactions", indexes = {
+    @Index(name = "idx_transactions_booking", columnList = "booking_id, payment_status"),
+    @Index(name = "idx_transactions_date", columnList = "transaction_date")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -65,11 +69,10 @@ public class Transaction {
     }
     
     /**
-     * Generates a unique transaction ID
+     * Generates a unique, time-ordered transaction ID
      */
     private String generateTransactionId() {
-        return "TXN_" + System.currentTimeMillis() + "_" + 
-               (int) (Math.random() * 10000);
+        return TransactionIdGenerator.next();
     }
     
     /**
@@ -0,0 +1,54 @@
+package com.turfbooking.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * TransactionDailyRollup entity holding the transactions of one turf, payment method and
+ * status on one transaction date. Refunds are negative SUCCESS rows, so summing SUCCESS
+ * and REFUNDED amounts gives net revenue.
+ */
+@Entity
+@Table(name = "transaction_daily_rollups", uniqueConstraints = {
+    @UniqueConstraint(columnNames = {"stat_date", "turf_id", "payment_method", "payment_status"})
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TransactionDailyRollup {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(name = "stat_date", nullable = false)
+    private LocalDate statDate;
+    
+    @Column(name = "turf_id", nullable = false)
+    private Long turfId;
+    
+    @Column(nullable = false, length = 50)
+    private String city;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(name = "turf_type", nullable = false, length = 20)
+    private Turf.TurfType turfType;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(name = "payment_method", nullable = false, length = 20)
+    private Transaction.PaymentMethod paymentMethod;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(name = "payment_status", nullable = false, length = 20)
+    private Transaction.PaymentStatus paymentStatus;
+    
+    @Column(name = "transaction_count", nullable = false)
+    private Long transactionCount;
+    
+    @Column(nullable = false, precision = 14, scale = 2)
+    private BigDecimal amount;
+}
@@ -0,0 +1,49 @@
+package com.turfbooking.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import java.time.LocalDateTime;
+
+/**
+ * UserOfferUsage entity recording each redemption of an offer by a user
+ * Used to enforce the per-user usage limit of an offer; a booking takes at most one offer
+ */
+@Entity
+@Table(name = "user_offer_usage", uniqueConstraints = {
+    @UniqueConstraint(columnNames = {"booking_id"})
+}, indexes = {
+    @Index(name = "idx_user_offer_usage_user_offer", columnList = "user_id, offer_id")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
+public class UserOfferUsage {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", nullable = false)
+    private User user;
+    
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "offer_id", nullable = false)
+    private Offer offer;
+    
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "booking_id", nullable = false)
+    private Booking booking;
+    
+    @Column(name = "usage_date")
+    private LocalDateTime usageDate = LocalDateTime.now();
+    
+    @PrePersist
+    protected void onCreate() {
+        usageDate = LocalDateTime.now();
+    }
+}
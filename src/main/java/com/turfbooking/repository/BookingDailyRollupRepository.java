@@ -0,0 +1,33 @@
+package com.turfbooking.repository;
+
+import com.turfbooking.model.BookingDailyRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Repository interface for BookingDailyRollup entity operations
+ * Answers booking analytics for a date range by summing daily rollup rows
+ */
+@Repository
+public interface BookingDailyRollupRepository extends JpaRepository<BookingDailyRollup, Long> {
+    
+    // Bookings and booked amount by status
+    @Query("SELECT r.status, SUM(r.bookingCount), SUM(r.bookedAmount) FROM BookingDailyRollup r " +
+           "WHERE r.statDate BETWEEN :startDate AND :endDate GROUP BY r.status")
+    List<Object[]> sumByStatus(@Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
+    
+    // Bookings and booked amount by city
+    @Query("SELECT r.city, SUM(r.bookingCount), SUM(r.bookedAmount) FROM BookingDailyRollup r " +
+           "WHERE r.statDate BETWEEN :startDate AND :endDate GROUP BY r.city ORDER BY r.city")
+    List<Object[]> sumByCity(@Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
+    
+    // Bookings and booked amount by turf type
+    @Query("SELECT r.turfType, SUM(r.bookingCount), SUM(r.bookedAmount) FROM BookingDailyRollup r " +
+           "WHERE r.statDate BETWEEN :startDate AND :endDate GROUP BY r.turfType")
+    List<Object[]> sumByTurfType(@Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
+}
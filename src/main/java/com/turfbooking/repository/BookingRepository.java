@@ -2,17 +2,26 @@ package com.turfbooking.repository;
 
 import com.turfbooking.model.Booking;
 import com.turfbooking.model.User;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
 import java.time.LocalTime;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Repository interface for Booking entity operations
@@ -21,6 +30,36 @@ import java.util.List;
 @Repository
 public interface BookingRepository extends JpaRepository<Booking, Long> {
     
+    // Flat booking rows, optionally within a booking date range, for streaming export
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT b.id, b.user.id, b.turf.id, b.bookingDate, b.startTime, b.endTime, b.numberOfPlayers, " +
+           "b.totalAmount, b.status, b.createdAt FROM Booking b " +
+           "WHERE (:startDate IS NULL OR b.bookingDate >= :startDate) " +
+           "AND (:endDate IS NULL OR b.bookingDate <= :endDate) ORDER BY b.id")
+    Stream<Object[]> streamForExport(@Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
+    
+    // Every booking's status in id order for reconciliation, flagging tournament match reservations
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT b.id, b.status, CASE WHEN EXISTS (SELECT m.id FROM TournamentMatch m WHERE m.booking = b) " +
+           "THEN true ELSE false END FROM Booking b ORDER BY b.id")
+    Stream<Object[]> streamForReconciliation();
+    
+    // Confirm pending bookings that still hold a successful payment
+    @Modifying
+    @Query("UPDATE Booking b SET b.status = 'CONFIRMED', b.updatedAt = CURRENT_TIMESTAMP " +
+           "WHERE b.id IN :bookingIds AND b.status = 'PENDING' AND EXISTS (SELECT t.id FROM Transaction t " +
+           "WHERE t.booking = b AND t.paymentStatus = 'SUCCESS' AND t.amount > 0)")
+    int confirmPaidBookings(@Param("bookingIds") Collection<Long> bookingIds);
+    
+    // Those of a set of bookings currently in a status
+    @Query("SELECT b.id FROM Booking b WHERE b.id IN :bookingIds AND b.status = :status")
+    List<Long> findIdsByStatus(@Param("bookingIds") Collection<Long> bookingIds,
+                               @Param("status") Booking.BookingStatus status);
+    
+    // Users owning a set of bookings
+    @Query("SELECT DISTINCT b.user.id FROM Booking b WHERE b.id IN :bookingIds")
+    List<Long> findUserIdsByIds(@Param("bookingIds") Collection<Long> bookingIds);
+    
     // Find bookings by user
     List<Booking> findByUserOrderByCreatedAtDesc(User user);
     
@@ -29,6 +68,11 @@ public interface BookingRepository extends JpaRepository<Booking, Long> {
     // Find bookings by turf
     List<Booking> findByTurfId(Long turfId);
     
+    // Find a booking holding a write lock on its row
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b FROM Booking b WHERE b.id = :id")
+    Optional<Booking> findByIdForUpdate(@Param("id") Long id);
+    
     // Find bookings by status
     List<Booking> findByStatus(Booking.BookingStatus status);
     
@@ -45,6 +89,14 @@ public interface BookingRepository extends JpaRepository<Booking, Long> {
                                         @Param("startTime") LocalTime startTime,
                                         @Param("endTime") LocalTime endTime);
     
+    // Find active bookings of several turfs over a date range (fixture slot packing)
+    @Query("SELECT b FROM Booking b WHERE b.turf.id IN :turfIds AND " +
+           "b.bookingDate BETWEEN :startDate AND :endDate AND " +
+           "b.status IN ('PENDING', 'CONFIRMED')")
+    List<Booking> findActiveBookingsForTurfs(@Param("turfIds") java.util.Collection<Long> turfIds,
+                                            @Param("startDate") LocalDate startDate,
+                                            @Param("endDate") LocalDate endDate);
+    
     // Find user's bookings with pagination
     Page<Booking> findByUserIdOrderByCreatedAtDesc(Long userId, Pageable pageable);
     
@@ -72,23 +124,41 @@ public interface BookingRepository extends JpaRepository<Booking, Long> {
                                                   @Param("endDate") LocalDate endDate,
                                                   @Param("status") Booking.BookingStatus status);
     
-    // Count bookings by status
-    @Query("SELECT b.status, COUNT(b) FROM Booking b GROUP BY b.status")
-    List<Object[]> countBookingsByStatus();
-    
     // Find popular turfs by booking count
     @Query("SELECT b.turf, COUNT(b) as bookingCount FROM Booking b " +
            "WHERE b.status = 'COMPLETED' " +
            "GROUP BY b.turf ORDER BY bookingCount DESC")
     List<Object[]> findPopularTurfs(Pageable pageable);
     
-    // Calculate total revenue
-    @Query("SELECT SUM(b.totalAmount) FROM Booking b WHERE b.status = 'COMPLETED'")
-    Double calculateTotalRevenue();
+    // Next chunk of live bookings on a turf not yet over at a point in time, in id order after a cursor
+    @Query("SELECT b.id FROM Booking b WHERE b.turf.id = :turfId " +
+           "AND (b.bookingDate > :fromDate OR (b.bookingDate = :fromDate AND b.endTime > :fromTime)) " +
+           "AND b.status IN ('PENDING', 'CONFIRMED') AND b.id > :afterId ORDER BY b.id")
+    List<Long> findLiveBookingIdsForTurf(@Param("turfId") Long turfId, @Param("fromDate") LocalDate fromDate,
+                                         @Param("fromTime") LocalTime fromTime, @Param("afterId") Long afterId,
+                                         Pageable pageable);
+    
+    // Count live bookings on a turf not yet over at a point in time
+    @Query("SELECT COUNT(b) FROM Booking b WHERE b.turf.id = :turfId " +
+           "AND (b.bookingDate > :fromDate OR (b.bookingDate = :fromDate AND b.endTime > :fromTime)) " +
+           "AND b.status IN ('PENDING', 'CONFIRMED')")
+    long countLiveBookingsForTurf(@Param("turfId") Long turfId, @Param("fromDate") LocalDate fromDate,
+                                  @Param("fromTime") LocalTime fromTime);
+    
+    // Next chunk of live bookings reserved for a tournament's matches, in id order after a cursor
+    @Query("SELECT m.booking.id FROM TournamentMatch m WHERE m.tournament.id = :tournamentId " +
+           "AND m.booking.status IN ('PENDING', 'CONFIRMED') AND m.booking.id > :afterId ORDER BY m.booking.id")
+    List<Long> findLiveBookingIdsForTournament(@Param("tournamentId") Long tournamentId,
+                                               @Param("afterId") Long afterId, Pageable pageable);
+    
+    // Count live bookings reserved for a tournament's matches
+    @Query("SELECT COUNT(m) FROM TournamentMatch m WHERE m.tournament.id = :tournamentId " +
+           "AND m.booking.status IN ('PENDING', 'CONFIRMED')")
+    long countLiveBookingsForTournament(@Param("tournamentId") Long tournamentId);
     
-    // Calculate revenue for date range
-    @Query("SELECT SUM(b.totalAmount) FROM Booking b WHERE b.status = 'COMPLETED' " +
-           "AND b.bookingDate BETWEEN :startDate AND :endDate")
-    Double calculateRevenueForPeriod(@Param("startDate") LocalDate startDate, 
-                                    @Param("endDate") LocalDate endDate);
+    // Cancel a set of bookings in one statement
+    @Modifying
+    @Query("UPDATE Booking b SET b.status = 'CANCELLED', b.updatedAt = CURRENT_TIMESTAMP " +
+           "WHERE b.id IN :bookingIds AND b.status IN ('PENDING', 'CONFIRMED')")
+    int cancelBookings(@Param("bookingIds") Collection<Long> bookingIds);
 }
\ No newline at end of file
@@ -0,0 +1,52 @@
+package com.turfbooking.repository;
+
+import com.turfbooking.model.IdempotencyRecord;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+/**
+ * Repository interface for IdempotencyRecord entity operations
+ * Handles key claims, stored response lookups and expiry of old keys
+ */
+@Repository
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, String> {
+    
+    // Claim a key for a request about to run; the primary key rejects a key that is already there
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO idempotency_keys (idempotency_key, request_hash, status_code, response_body, created_at, expires_at) " +
+           "VALUES (:key, :requestHash, NULL, NULL, CURRENT_TIMESTAMP, :expiresAt)", nativeQuery = true)
+    int claim(@Param("key") String key, @Param("requestHash") String requestHash, @Param("expiresAt") LocalDateTime expiresAt);
+    
+    // Store the response of a claimed key
+    @Modifying
+    @Transactional
+    @Query("UPDATE IdempotencyRecord r SET r.statusCode = :statusCode, r.responseBody = :responseBody, r.expiresAt = :expiresAt " +
+           "WHERE r.idempotencyKey = :key AND r.statusCode IS NULL")
+    int complete(@Param("key") String key, @Param("statusCode") int statusCode, @Param("responseBody") String responseBody,
+                 @Param("expiresAt") LocalDateTime expiresAt);
+    
+    // Drop a claim whose response is not kept, so a retry runs the request again
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.idempotencyKey = :key AND r.statusCode IS NULL")
+    int releaseClaim(@Param("key") String key);
+    
+    // Remove one key past its TTL so it can be claimed again
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.idempotencyKey = :key AND r.expiresAt < :now")
+    int deleteIfExpired(@Param("key") String key, @Param("now") LocalDateTime now);
+    
+    // Remove records past their TTL (a range delete on the expires_at index)
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.expiresAt < :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
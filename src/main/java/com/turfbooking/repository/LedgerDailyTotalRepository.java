@@ -0,0 +1,45 @@
+package com.turfbooking.repository;
+
+import com.turfbooking.model.LedgerDailyTotal;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Repository interface for LedgerDailyTotal entity operations
+ * Handles incremental maintenance of daily and running revenue totals
+ * The updates lock the day's row (and for back-dated postings every later row) until the
+ * posting transaction commits, serializing concurrent postings; see LedgerService.
+ */
+@Repository
+public interface LedgerDailyTotalRepository extends JpaRepository<LedgerDailyTotal, LocalDate> {
+    
+    // Create a day's row carrying the running total of the latest earlier day, if it does not exist yet
+    @Modifying
+    @Query(value = "INSERT INTO ledger_daily_totals (entry_date, revenue, cumulative_revenue) " +
+                   "SELECT :day, 0, COALESCE((SELECT d.cumulative_revenue FROM ledger_daily_totals d " +
+                   "WHERE d.entry_date < :day ORDER BY d.entry_date DESC LIMIT 1), 0) " +
+                   "WHERE NOT EXISTS (SELECT 1 FROM ledger_daily_totals d WHERE d.entry_date = :day)",
+           nativeQuery = true)
+    int insertDayIfMissing(@Param("day") LocalDate day);
+    
+    // Add a delta to one day's revenue
+    @Modifying
+    @Query("UPDATE LedgerDailyTotal d SET d.revenue = d.revenue + :delta WHERE d.entryDate = :day")
+    int addToDay(@Param("day") LocalDate day, @Param("delta") BigDecimal delta);
+    
+    // Add a delta to the running totals from a day on; only the latest row when posting today
+    @Modifying
+    @Query("UPDATE LedgerDailyTotal d SET d.cumulativeRevenue = d.cumulativeRevenue + :delta WHERE d.entryDate >= :day")
+    int addToRunningTotals(@Param("day") LocalDate day, @Param("delta") BigDecimal delta);
+    
+    // Running total up to and including a day (one seek on the primary key)
+    @Query(value = "SELECT d.cumulative_revenue FROM ledger_daily_totals d WHERE d.entry_date <= :day " +
+                   "ORDER BY d.entry_date DESC LIMIT 1", nativeQuery = true)
+    BigDecimal findRunningTotal(@Param("day") LocalDate day);
+}
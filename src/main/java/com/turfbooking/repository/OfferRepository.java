@@ -2,9 +2,12 @@ package com.turfbooking.repository;
 
 import com.turfbooking.model.Offer;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
 import java.util.List;
@@ -20,10 +23,12 @@ public interface OfferRepository extends JpaRepository<Offer, Long> {
     // Find offer by code
     Optional<Offer> findByOfferCode(String offerCode);
     
-    // Find active offers
-    @Query("SELECT o FROM Offer o WHERE o.isActive = true AND " +
-           "o.validFrom <= :currentDate AND o.validUntil >= :currentDate " +
-           "AND (o.totalUsageLimit IS NULL OR o.currentUsage < o.totalUsageLimit)")
+    // Find offers flagged active, regardless of dates or usage
+    List<Offer> findByIsActiveTrue();
+    
+    // Find active offers; the sweeper deactivates expired offers only every few minutes, so the end date is checked too
+    @Query("SELECT o FROM Offer o WHERE o.isActive = true AND o.validFrom <= :currentDate " +
+           "AND o.validUntil >= :currentDate")
     List<Offer> findActiveOffers(@Param("currentDate") LocalDate currentDate);
     
     // Find offers by validity period
@@ -31,10 +36,14 @@ public interface OfferRepository extends JpaRepository<Offer, Long> {
     List<Offer> findOffersByDate(@Param("date") LocalDate date);
     
     // Find offers valid for specific turf types
-    @Query("SELECT o FROM Offer o WHERE o.isActive = true AND " +
-           "o.validFrom <= :currentDate AND o.validUntil >= :currentDate AND " +
-           "(o.totalUsageLimit IS NULL OR o.currentUsage < o.totalUsageLimit) AND " +
-           "(o.applicableTurfTypes IS NULL OR o.applicableTurfTypes LIKE CONCAT('%\"', :turfType, '\"%'))")
+    // Restricted offers are found through the (turf_type, offer_id) index, unrestricted ones by is_active
+    @Query(value = "SELECT o.* FROM offer_turf_types ot JOIN offers o ON o.id = ot.offer_id " +
+           "WHERE ot.turf_type = :turfType AND o.is_active = TRUE AND o.valid_from <= :currentDate " +
+           "AND o.valid_until >= :currentDate " +
+           "UNION ALL " +
+           "SELECT o.* FROM offers o WHERE o.applicable_turf_types IS NULL " +
+           "AND o.is_active = TRUE AND o.valid_from <= :currentDate AND o.valid_until >= :currentDate",
+           nativeQuery = true)
     List<Offer> findOffersForTurfType(@Param("turfType") String turfType, 
                                      @Param("currentDate") LocalDate currentDate);
     
@@ -73,4 +82,32 @@ public interface OfferRepository extends JpaRepository<Offer, Long> {
     @Query("SELECT o FROM Offer o WHERE o.totalUsageLimit IS NOT NULL AND " +
            "o.currentUsage >= o.totalUsageLimit")
     List<Offer> findFullyUsedOffers();
+    
+    // Uses left before an offer reaches its total usage limit; empty when it has none
+    @Query("SELECT o.totalUsageLimit - o.currentUsage FROM Offer o WHERE o.id = :offerId AND o.totalUsageLimit IS NOT NULL")
+    Optional<Integer> findRemainingUsage(@Param("offerId") Long offerId);
+    
+    // Find offers whose turf type JSON has not been copied into offer_turf_types yet
+    @Query("SELECT o FROM Offer o WHERE o.applicableTurfTypes IS NOT NULL AND o.turfTypes IS EMPTY")
+    List<Offer> findOffersWithoutNormalizedTurfTypes();
+    
+    // Deactivate offers that have expired or reached their total usage limit
+    @Modifying
+    @Transactional
+    @Query("UPDATE Offer o SET o.isActive = false WHERE o.isActive = true AND " +
+           "(o.validUntil < :currentDate OR " +
+           "(o.totalUsageLimit IS NOT NULL AND o.currentUsage >= o.totalUsageLimit))")
+    int deactivateExpiredOffers(@Param("currentDate") LocalDate currentDate);
+    
+    // Take one use of an offer if its total limit allows it; returns 0 when exhausted
+    @Modifying
+    @Query("UPDATE Offer o SET o.currentUsage = o.currentUsage + 1 WHERE o.id = :offerId " +
+           "AND (o.totalUsageLimit IS NULL OR o.currentUsage < o.totalUsageLimit)")
+    int incrementUsageIfAvailable(@Param("offerId") Long offerId);
+    
+    // Add a batch of reconciled redemptions, committed independently of any caller transaction
+    @Modifying
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    @Query("UPDATE Offer o SET o.currentUsage = o.currentUsage + :delta WHERE o.id = :offerId")
+    int incrementUsage(@Param("offerId") Long offerId, @Param("delta") int delta);
 }
@@ -0,0 +1,18 @@
+package com.turfbooking.repository;
+
+import com.turfbooking.model.ReconciliationDiscrepancy;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Repository interface for ReconciliationDiscrepancy entity operations
+ * Handles paging through the report of a reconciliation run
+ */
+@Repository
+public interface ReconciliationDiscrepancyRepository extends JpaRepository<ReconciliationDiscrepancy, Long> {
+    
+    // Find a page of a run's discrepancies in the order they were found
+    Page<ReconciliationDiscrepancy> findByRunIdOrderById(Long runId, Pageable pageable);
+}
@@ -0,0 +1,25 @@
+package com.turfbooking.repository;
+
+import com.turfbooking.model.ReconciliationRun;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Repository interface for ReconciliationRun entity operations
+ * Handles run lookups for progress reporting
+ */
+@Repository
+public interface ReconciliationRunRepository extends JpaRepository<ReconciliationRun, Long> {
+    
+    // Find runs in a status, e.g. RUNNING runs left behind by a restart
+    List<ReconciliationRun> findByStatus(ReconciliationRun.Status status);
+    
+    // Find the run in progress, if any
+    Optional<ReconciliationRun> findFirstByStatus(ReconciliationRun.Status status);
+    
+    // Find most recent runs first
+    List<ReconciliationRun> findTop50ByOrderByIdDesc();
+}
@@ -0,0 +1,26 @@
+package com.turfbooking.repository;
+
+import com.turfbooking.model.RefundJob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Repository interface for RefundJob entity operations
+ * Handles job lookups for progress reporting and resumption
+ */
+@Repository
+public interface RefundJobRepository extends JpaRepository<RefundJob, Long> {
+    
+    // Find jobs in a status, e.g. RUNNING jobs to resume on startup
+    List<RefundJob> findByStatus(RefundJob.Status status);
+    
+    // Find the running job for a tournament or turf
+    Optional<RefundJob> findFirstByScopeAndTargetIdAndStatus(RefundJob.Scope scope, Long targetId,
+                                                             RefundJob.Status status);
+    
+    // Find most recent jobs first
+    List<RefundJob> findTop50ByOrderByIdDesc();
+}
@@ -77,4 +77,8 @@ public interface ReviewRepository extends JpaRepository<Review, Long> {
     // Check if user has reviewed a turf
     @Query("SELECT COUNT(r) > 0 FROM Review r WHERE r.user.id = :userId AND r.turf.id = :turfId")
     boolean hasUserReviewedTurf(@Param("userId") Long userId, @Param("turfId") Long turfId);
+    
+    // All (user, turf) review pairs, used to warm the in-memory membership index
+    @Query("SELECT r.user.id, r.turf.id FROM Review r")
+    List<Object[]> findAllUserTurfPairs();
 }
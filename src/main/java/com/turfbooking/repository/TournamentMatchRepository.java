@@ -0,0 +1,21 @@
+package com.turfbooking.repository;
+
+import com.turfbooking.model.TournamentMatch;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * Repository interface for TournamentMatch entity operations
+ * Handles generated fixtures and their schedule
+ */
+@Repository
+public interface TournamentMatchRepository extends JpaRepository<TournamentMatch, Long> {
+    
+    // Find a tournament's fixtures in playing order
+    List<TournamentMatch> findByTournamentIdOrderByMatchNumberAsc(Long tournamentId);
+    
+    // Check if fixtures were already generated for a tournament
+    boolean existsByTournamentId(Long tournamentId);
+}
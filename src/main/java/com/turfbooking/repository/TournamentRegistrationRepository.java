@@ -2,10 +2,12 @@ package com.turfbooking.repository;
 
 import com.turfbooking.model.TournamentRegistration;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -25,6 +27,33 @@ public interface TournamentRegistrationRepository extends JpaRepository<Tourname
     // Find registration by user and tournament
     Optional<TournamentRegistration> findByUserIdAndTournamentId(Long userId, Long tournamentId);
     
+    // Find which of the given users are already registered for a tournament
+    @Query("SELECT tr.user.id FROM TournamentRegistration tr WHERE tr.tournament.id = :tournamentId " +
+           "AND tr.user.id IN :userIds")
+    List<Long> findRegisteredUserIds(@Param("tournamentId") Long tournamentId,
+                                     @Param("userIds") List<Long> userIds);
+    
+    // Find which of the given players are already in a team of a tournament
+    @Query("SELECT DISTINCT p FROM TournamentRegistration tr JOIN tr.playerKeys p " +
+           "WHERE tr.tournament.id = :tournamentId AND p IN :playerKeys")
+    List<String> findRegisteredPlayerKeys(@Param("tournamentId") Long tournamentId,
+                                          @Param("playerKeys") Collection<String> playerKeys);
+    
+    // Find registrations a player is part of (an index lookup on team_members)
+    @Query("SELECT tr FROM TournamentRegistration tr JOIN FETCH tr.tournament JOIN tr.playerKeys p " +
+           "WHERE p = :playerKey ORDER BY tr.tournament.tournamentDate DESC")
+    List<TournamentRegistration> findByPlayerKey(@Param("playerKey") String playerKey);
+    
+    // Find registrations whose team members have not been copied into team_members yet
+    @Query("SELECT tr FROM TournamentRegistration tr WHERE tr.playerKeys IS EMPTY")
+    List<TournamentRegistration> findRegistrationsWithoutPlayerKeys();
+    
+    // Mark the paid entry fees of a tournament as owed back
+    @Modifying
+    @Query("UPDATE TournamentRegistration tr SET tr.paymentStatus = 'REFUND_DUE' " +
+           "WHERE tr.tournament.id = :tournamentId AND tr.paymentStatus = 'PAID'")
+    int markPaidRegistrationsRefundDue(@Param("tournamentId") Long tournamentId);
+    
     // Find registrations by payment status
     List<TournamentRegistration> findByPaymentStatus(TournamentRegistration.PaymentStatus paymentStatus);
     
@@ -5,11 +5,14 @@ import com.turfbooking.model.Turf;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
+import java.time.LocalTime;
 import java.util.List;
 
 /**
@@ -86,4 +89,27 @@ public interface TournamentRepository extends JpaRepository<Tournament, Long> {
            "ORDER BY t.registrationDeadline ASC")
     List<Tournament> findTournamentsWithRegistrationEndingSoon(@Param("currentDate") LocalDate currentDate,
                                                               @Param("endDate") LocalDate endDate);
+    
+    // Complete upcoming or ongoing tournaments whose day or end time has passed
+    @Modifying
+    @Transactional
+    @Query("UPDATE Tournament t SET t.status = 'COMPLETED', t.updatedAt = CURRENT_TIMESTAMP " +
+           "WHERE t.status IN ('UPCOMING', 'ONGOING') AND " +
+           "(t.tournamentDate < :today OR (t.tournamentDate = :today AND t.endTime <= :now))")
+    int completeFinishedTournaments(@Param("today") LocalDate today, @Param("now") LocalTime now);
+    
+    // Start upcoming tournaments that are under way today
+    @Modifying
+    @Transactional
+    @Query("UPDATE Tournament t SET t.status = 'ONGOING', t.updatedAt = CURRENT_TIMESTAMP " +
+           "WHERE t.status = 'UPCOMING' AND t.tournamentDate = :today AND t.startTime <= :now")
+    int startDueTournaments(@Param("today") LocalDate today, @Param("now") LocalTime now);
+    
+    // Atomically add to (or subtract from) the registered teams count; returns 0 when adding
+    // would exceed the maximum number of teams
+    @Modifying
+    @Query("UPDATE Tournament t SET t.registeredTeams = t.registeredTeams + :delta " +
+           "WHERE t.id = :tournamentId AND t.registeredTeams + :delta >= 0 " +
+           "AND (:delta <= 0 OR t.registeredTeams + :delta <= t.maxTeams)")
+    int adjustRegisteredTeams(@Param("tournamentId") Long tournamentId, @Param("delta") int delta);
 }
@@ -0,0 +1,43 @@
+package com.turfbooking.repository;
+
+import com.turfbooking.model.TournamentWaitlistEntry;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.Optional;
+
+/**
+ * Repository interface for TournamentWaitlistEntry entity operations
+ * Handles waitlist ordering, promotion and position lookups
+ */
+@Repository
+public interface TournamentWaitlistRepository extends JpaRepository<TournamentWaitlistEntry, Long> {
+    
+    // Find and lock the head of a tournament's waitlist (first entry of the tournament/id index)
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    Optional<TournamentWaitlistEntry> findFirstByTournamentIdOrderByIdAsc(Long tournamentId);
+    
+    // Remove one entry; returns 0 when another transaction already removed it
+    @Modifying
+    @Query("DELETE FROM TournamentWaitlistEntry w WHERE w.id = :id")
+    int deleteEntry(@Param("id") Long id);
+    
+    // Find a user's waitlist entry for a tournament
+    Optional<TournamentWaitlistEntry> findByTournamentIdAndUserId(Long tournamentId, Long userId);
+    
+    // Count entries that joined before the given entry (an index range count)
+    @Query("SELECT COUNT(w) FROM TournamentWaitlistEntry w WHERE w.tournament.id = :tournamentId AND w.id < :entryId")
+    long countAhead(@Param("tournamentId") Long tournamentId, @Param("entryId") Long entryId);
+    
+    // Remove waitlist entries of users who got a seat another way
+    @Modifying
+    @Query("DELETE FROM TournamentWaitlistEntry w WHERE w.tournament.id = :tournamentId AND w.user.id IN :userIds")
+    int deleteByTournamentIdAndUserIds(@Param("tournamentId") Long tournamentId,
+                                       @Param("userIds") Collection<Long> userIds);
+}
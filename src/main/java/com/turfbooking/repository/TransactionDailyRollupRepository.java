@@ -0,0 +1,41 @@
+package com.turfbooking.repository;
+
+import com.turfbooking.model.TransactionDailyRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Repository interface for TransactionDailyRollup entity operations
+ * Answers payment and revenue analytics for a date range by summing daily rollup rows
+ */
+@Repository
+public interface TransactionDailyRollupRepository extends JpaRepository<TransactionDailyRollup, Long> {
+    
+    // Transactions and amount by payment status
+    @Query("SELECT r.paymentStatus, SUM(r.transactionCount), SUM(r.amount) FROM TransactionDailyRollup r " +
+           "WHERE r.statDate BETWEEN :startDate AND :endDate GROUP BY r.paymentStatus")
+    List<Object[]> sumByStatus(@Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
+    
+    // Transactions and amount by payment method and status
+    @Query("SELECT r.paymentMethod, r.paymentStatus, SUM(r.transactionCount), SUM(r.amount) " +
+           "FROM TransactionDailyRollup r WHERE r.statDate BETWEEN :startDate AND :endDate " +
+           "GROUP BY r.paymentMethod, r.paymentStatus")
+    List<Object[]> sumByPaymentMethod(@Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
+    
+    // Net revenue by city; refunds are negative SUCCESS rows
+    @Query("SELECT r.city, SUM(r.amount) FROM TransactionDailyRollup r " +
+           "WHERE r.statDate BETWEEN :startDate AND :endDate AND r.paymentStatus IN ('SUCCESS', 'REFUNDED') " +
+           "GROUP BY r.city ORDER BY r.city")
+    List<Object[]> sumRevenueByCity(@Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
+    
+    // Net revenue per day
+    @Query("SELECT r.statDate, SUM(r.amount) FROM TransactionDailyRollup r " +
+           "WHERE r.statDate BETWEEN :startDate AND :endDate AND r.paymentStatus IN ('SUCCESS', 'REFUNDED') " +
+           "GROUP BY r.statDate ORDER BY r.statDate")
+    List<Object[]> sumRevenueByDay(@Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
+}
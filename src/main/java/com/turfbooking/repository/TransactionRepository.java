@@ -1,14 +1,23 @@
 package com.turfbooking.repository;
 
 import com.turfbooking.model.Transaction;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Repository interface for Transaction entity operations
@@ -20,9 +29,16 @@ public interface TransactionRepository extends JpaRepository<Transaction, Long>
     // Find transaction by transaction ID
     Optional<Transaction> findByTransactionId(String transactionId);
     
+    // Find a transaction with its booking, user and turf loaded for use outside the session
+    @Query("SELECT t FROM Transaction t JOIN FETCH t.booking b JOIN FETCH b.user JOIN FETCH b.turf WHERE t.id = :id")
+    Optional<Transaction> findWithBookingById(@Param("id") Long id);
+    
     // Find transactions by booking
     List<Transaction> findByBookingId(Long bookingId);
     
+    // Check whether a booking has a payment in one of the given states
+    boolean existsByBookingIdAndPaymentStatusIn(Long bookingId, Collection<Transaction.PaymentStatus> paymentStatuses);
+    
     // Find transactions by payment status
     List<Transaction> findByPaymentStatus(Transaction.PaymentStatus paymentStatus);
     
@@ -30,8 +46,24 @@ public interface TransactionRepository extends JpaRepository<Transaction, Long>
     List<Transaction> findByPaymentMethod(Transaction.PaymentMethod paymentMethod);
     
     // Find transactions by user (through booking)
-    @Query("SELECT t FROM Transaction t WHERE t.booking.user.id = :userId ORDER BY t.transactionDate DESC")
-    List<Transaction> findByUserId(@Param("userId") Long userId);
+    @Query(value = "SELECT t FROM Transaction t WHERE t.booking.user.id = :userId " +
+                   "ORDER BY t.transactionDate DESC, t.id DESC",
+           countQuery = "SELECT COUNT(t) FROM Transaction t WHERE t.booking.user.id = :userId")
+    Page<Transaction> findByUserId(@Param("userId") Long userId, Pageable pageable);
+    
+    // A user's transactions grouped by month, turf and status, with payments and refunds summed apart
+    // Walks idx_bookings_user and then idx_transactions_booking
+    @Query("SELECT YEAR(t.transactionDate), MONTH(t.transactionDate), f.id, f.name, t.paymentStatus, " +
+           "SUM(CASE WHEN t.amount > 0 THEN 1 ELSE 0 END), SUM(CASE WHEN t.amount < 0 THEN 1 ELSE 0 END), " +
+           "SUM(CASE WHEN t.amount > 0 THEN t.amount ELSE 0 END), " +
+           "SUM(CASE WHEN t.amount < 0 THEN -t.amount ELSE 0 END) " +
+           "FROM Transaction t JOIN t.booking b JOIN b.turf f WHERE b.user.id = :userId " +
+           "GROUP BY YEAR(t.transactionDate), MONTH(t.transactionDate), f.id, f.name, t.paymentStatus")
+    List<Object[]> summarizeByUser(@Param("userId") Long userId);
+    
+    // Users owning a set of transactions
+    @Query("SELECT DISTINCT t.booking.user.id FROM Transaction t WHERE t.transactionId IN :transactionIds")
+    List<Long> findUserIdsByTransactionIds(@Param("transactionIds") Collection<String> transactionIds);
     
     // Find transactions in date range
     @Query("SELECT t FROM Transaction t WHERE t.transactionDate BETWEEN :startDate AND :endDate " +
@@ -39,31 +71,73 @@ public interface TransactionRepository extends JpaRepository<Transaction, Long>
     List<Transaction> findByDateRange(@Param("startDate") LocalDateTime startDate, 
                                      @Param("endDate") LocalDateTime endDate);
     
+    // Booking id, status and amount of every transaction in booking order, for reconciliation
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT t.booking.id, t.paymentStatus, t.amount FROM Transaction t ORDER BY t.booking.id")
+    Stream<Object[]> streamForReconciliation();
+    
+    // Flat transaction rows in a date range for streaming export; no entities are kept in the session
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT t.id, t.transactionId, b.id, b.user.id, b.turf.id, t.amount, t.paymentMethod, " +
+           "t.paymentStatus, t.transactionDate FROM Transaction t JOIN t.booking b " +
+           "WHERE t.transactionDate BETWEEN :startDate AND :endDate ORDER BY t.transactionDate, t.id")
+    Stream<Object[]> streamForExport(@Param("startDate") LocalDateTime startDate,
+                                     @Param("endDate") LocalDateTime endDate);
+    
     // Find successful transactions
     @Query("SELECT t FROM Transaction t WHERE t.paymentStatus = 'SUCCESS' " +
            "ORDER BY t.transactionDate DESC")
     List<Transaction> findSuccessfulTransactions();
     
-    // Calculate total revenue from successful transactions
-    @Query("SELECT SUM(t.amount) FROM Transaction t WHERE t.paymentStatus = 'SUCCESS'")
-    Double calculateTotalRevenue();
+    // Find recent transactions
+    @Query("SELECT t FROM Transaction t ORDER BY t.transactionDate DESC")
+    List<Transaction> findRecentTransactions(org.springframework.data.domain.Pageable pageable);
+    
+    // Settled transactions among the given ids that have not been posted to the ledger
+    @Query("SELECT t FROM Transaction t WHERE t.transactionId IN :transactionIds " +
+           "AND t.paymentStatus IN ('SUCCESS', 'REFUNDED') " +
+           "AND NOT EXISTS (SELECT e FROM LedgerEntry e WHERE e.transactionId = t.transactionId)")
+    List<Transaction> findUnpostedByTransactionIds(@Param("transactionIds") Collection<String> transactionIds);
     
-    // Calculate revenue for date range
-    @Query("SELECT SUM(t.amount) FROM Transaction t WHERE t.paymentStatus = 'SUCCESS' " +
-           "AND t.transactionDate BETWEEN :startDate AND :endDate")
-    Double calculateRevenueForPeriod(@Param("startDate") LocalDateTime startDate, 
-                                    @Param("endDate") LocalDateTime endDate);
+    // Refund rows on a set of bookings that have not been posted to the ledger
+    @Query("SELECT t FROM Transaction t WHERE t.booking.id IN :bookingIds AND t.amount < 0 " +
+           "AND t.paymentStatus = 'SUCCESS' " +
+           "AND NOT EXISTS (SELECT e FROM LedgerEntry e WHERE e.transactionId = t.transactionId)")
+    List<Transaction> findUnpostedRefunds(@Param("bookingIds") Collection<Long> bookingIds);
     
-    // Count transactions by status
-    @Query("SELECT t.paymentStatus, COUNT(t) FROM Transaction t GROUP BY t.paymentStatus")
-    List<Object[]> countTransactionsByStatus();
+    // Next page of settled transactions after an id that have not been posted to the ledger
+    @Query("SELECT t FROM Transaction t WHERE t.paymentStatus IN ('SUCCESS', 'REFUNDED') AND t.id > :afterId " +
+           "AND NOT EXISTS (SELECT e FROM LedgerEntry e WHERE e.transactionId = t.transactionId) ORDER BY t.id")
+    List<Transaction> findUnpostedAfter(@Param("afterId") Long afterId, Pageable pageable);
     
-    // Count transactions by payment method
-    @Query("SELECT t.paymentMethod, COUNT(t) FROM Transaction t WHERE t.paymentStatus = 'SUCCESS' " +
-           "GROUP BY t.paymentMethod")
-    List<Object[]> countTransactionsByPaymentMethod();
+    // Total of successful payments on a set of bookings, i.e. what refunding them returns
+    @Query("SELECT COALESCE(SUM(t.amount), 0) FROM Transaction t WHERE t.booking.id IN :bookingIds " +
+           "AND t.paymentStatus = 'SUCCESS' AND t.amount > 0")
+    BigDecimal sumRefundableAmount(@Param("bookingIds") Collection<Long> bookingIds);
     
-    // Find recent transactions
-    @Query("SELECT t FROM Transaction t ORDER BY t.transactionDate DESC")
-    List<Transaction> findRecentTransactions(org.springframework.data.domain.Pageable pageable);
+    // Insert a negative refund row for every successful payment on a set of bookings;
+    // refund ids derive from the original, so a repeated run cannot refund twice
+    @Modifying
+    @Query(value = "INSERT INTO transactions (booking_id, transaction_id, amount, payment_method, payment_status, " +
+                   "gateway_response, transaction_date) " +
+                   "SELECT booking_id, CONCAT('RFD_', transaction_id), -amount, payment_method, 'SUCCESS', " +
+                   "CONCAT('{\"status\":\"refunded\",\"original_transaction\":\"', transaction_id, '\"}'), " +
+                   "CURRENT_TIMESTAMP FROM transactions " +
+                   "WHERE booking_id IN :bookingIds AND payment_status = 'SUCCESS' AND amount > 0",
+           nativeQuery = true)
+    int insertRefunds(@Param("bookingIds") Collection<Long> bookingIds);
+    
+    // Record a gateway outcome on a transaction only while it is still pending, so it cannot
+    // overwrite a callback that settled the transaction first
+    @Modifying
+    @Query("UPDATE Transaction t SET t.paymentStatus = :status, t.gatewayResponse = :response " +
+           "WHERE t.id = :id AND t.paymentStatus = 'PENDING'")
+    int settlePending(@Param("id") Long id, @Param("status") Transaction.PaymentStatus status,
+                      @Param("response") String response);
+    
+    // Mark successful payments on a set of bookings as refunded
+    @Modifying
+    @Query("UPDATE Transaction t SET t.paymentStatus = 'REFUNDED' WHERE t.booking.id IN :bookingIds " +
+           "AND t.paymentStatus = 'SUCCESS' AND t.amount > 0")
+    int markRefunded(@Param("bookingIds") Collection<Long> bookingIds);
 }
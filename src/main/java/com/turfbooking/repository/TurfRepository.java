@@ -1,16 +1,20 @@
 package com.turfbooking.repository;
 
 import com.turfbooking.model.Turf;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 /**
  * Repository interface for Turf entity operations
@@ -19,6 +23,16 @@ import java.util.List;
 @Repository
 public interface TurfRepository extends JpaRepository<Turf, Long> {
     
+    // Find and lock a turf; bookings check and reserve its slots while holding this lock
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT t FROM Turf t WHERE t.id = :id")
+    Optional<Turf> findByIdForUpdate(@Param("id") Long id);
+    
+    // Find and lock several turfs in id order, so concurrent callers never lock them crosswise
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT t FROM Turf t WHERE t.id IN :ids ORDER BY t.id")
+    List<Turf> findAllByIdForUpdate(@Param("ids") Collection<Long> ids);
+    
     // Basic filters
     List<Turf> findByIsActiveTrue();
     
@@ -84,4 +98,12 @@ public interface TurfRepository extends JpaRepository<Turf, Long> {
     void updateTurfRating(@Param("turfId") Long turfId, 
                          @Param("rating") BigDecimal rating, 
                          @Param("totalReviews") Integer totalReviews);
+    
+    // Recompute rating and review count for a batch of turfs in a single statement
+    @Modifying
+    @Query(value = "UPDATE turfs t SET " +
+           "rating = COALESCE((SELECT ROUND(AVG(r.rating), 2) FROM reviews r WHERE r.turf_id = t.id), 0), " +
+           "total_reviews = (SELECT COUNT(*) FROM reviews r WHERE r.turf_id = t.id) " +
+           "WHERE t.id IN (:turfIds)", nativeQuery = true)
+    int refreshTurfRatings(@Param("turfIds") Collection<Long> turfIds);
 }
\ No newline at end of file
@@ -0,0 +1,40 @@
+package com.turfbooking.repository;
+
+import com.turfbooking.model.UserOfferUsage;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * Repository interface for UserOfferUsage entity operations
+ * Handles per-user offer redemption tracking and limit enforcement
+ */
+@Repository
+public interface UserOfferUsageRepository extends JpaRepository<UserOfferUsage, Long> {
+    
+    // Count how many times a user has used an offer (served by the user/offer index)
+    @Query("SELECT COUNT(u) FROM UserOfferUsage u WHERE u.user.id = :userId AND u.offer.id = :offerId")
+    long countByUserIdAndOfferId(@Param("userId") Long userId, @Param("offerId") Long offerId);
+    
+    // Check whether an offer was already redeemed on a booking
+    boolean existsByBookingId(Long bookingId);
+    
+    // Find a user's redemptions
+    List<UserOfferUsage> findByUserIdOrderByUsageDateDesc(Long userId);
+    
+    // Record a redemption only while the user is still under the offer's per-user limit;
+    // callers hold the user's row lock so concurrent redemptions cannot both pass the count
+    @Modifying
+    @Query(value = "INSERT INTO user_offer_usage (user_id, offer_id, booking_id, usage_date) " +
+                   "SELECT :userId, o.id, :bookingId, CURRENT_TIMESTAMP FROM offers o " +
+                   "WHERE o.id = :offerId AND (o.max_usage_per_user IS NULL OR " +
+                   "(SELECT COUNT(*) FROM user_offer_usage u WHERE u.user_id = :userId AND u.offer_id = :offerId) " +
+                   "< o.max_usage_per_user)", nativeQuery = true)
+    int insertIfUnderLimit(@Param("userId") Long userId,
+                           @Param("offerId") Long offerId,
+                           @Param("bookingId") Long bookingId);
+}
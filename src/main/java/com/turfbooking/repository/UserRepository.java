@@ -22,6 +22,10 @@ public interface UserRepository extends JpaRepository<User, Long> {
     // Find user by Google ID
     Optional<User> findByGoogleId(String googleId);
     
+    // Lock a user's row to serialize their redemptions; the first statement of the transaction
+    @Query(value = "SELECT id FROM users WHERE id = :id FOR UPDATE", nativeQuery = true)
+    Optional<Long> lockById(@Param("id") Long id);
+    
     // Check if email exists
     boolean existsByEmail(String email);
     
@@ -0,0 +1,327 @@
+package com.turfbooking.service;
+
+import com.turfbooking.repository.BookingDailyRollupRepository;
+import com.turfbooking.repository.TransactionDailyRollupRepository;
+import com.turfbooking.util.TransactionUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Daily rollups of bookings and transactions for admin analytics
+ * Booking and payment changes mark their rows dirty once they commit. A single writer
+ * resolves the dirty rows to the days they fall on and recomputes only those days, so
+ * analytics for any date range sum a handful of rollup rows instead of scanning the
+ * raw tables. On startup only days whose rollups disagree with the raw per-day totals
+ * are recomputed, such as days changed while the application was down.
+ */
+@Service
+public class AnalyticsRollupService {
+
+    private static final Logger log = LoggerFactory.getLogger(AnalyticsRollupService.class);
+
+    private static final int CHUNK_SIZE = 1000;
+
+    // Days recomputed per transaction by the startup repair
+    private static final int REPAIR_DAYS = 100;
+
+    private static final String BOOKING_COLUMNS =
+        "INSERT INTO booking_daily_rollups (stat_date, turf_id, city, turf_type, status, booking_count, booked_amount) ";
+
+    private static final String TRANSACTION_COLUMNS =
+        "INSERT INTO transaction_daily_rollups (stat_date, turf_id, city, turf_type, payment_method, payment_status, " +
+        "transaction_count, amount) ";
+
+    private static final String REBUILD_BOOKINGS = BOOKING_COLUMNS +
+        "SELECT b.booking_date, b.turf_id, t.city, t.turf_type, b.status, COUNT(*), SUM(b.total_amount) " +
+        "FROM bookings b JOIN turfs t ON t.id = b.turf_id " +
+        "GROUP BY b.booking_date, b.turf_id, t.city, t.turf_type, b.status";
+
+    private static final String REBUILD_TRANSACTIONS = TRANSACTION_COLUMNS +
+        "SELECT CAST(x.transaction_date AS DATE), b.turf_id, t.city, t.turf_type, x.payment_method, x.payment_status, " +
+        "COUNT(*), SUM(x.amount) FROM transactions x JOIN bookings b ON b.id = x.booking_id JOIN turfs t ON t.id = b.turf_id " +
+        "GROUP BY CAST(x.transaction_date AS DATE), b.turf_id, t.city, t.turf_type, x.payment_method, x.payment_status";
+
+    private static final String BOOKING_DAY_TOTALS =
+        "SELECT b.booking_date, b.status, COUNT(*), SUM(b.total_amount) FROM bookings b JOIN turfs t ON t.id = b.turf_id " +
+        "GROUP BY b.booking_date, b.status";
+
+    private static final String BOOKING_ROLLUP_TOTALS =
+        "SELECT stat_date, status, SUM(booking_count), SUM(booked_amount) FROM booking_daily_rollups GROUP BY stat_date, status";
+
+    private static final String TRANSACTION_DAY_TOTALS =
+        "SELECT CAST(x.transaction_date AS DATE), x.payment_status, COUNT(*), SUM(x.amount) FROM transactions x " +
+        "JOIN bookings b ON b.id = x.booking_id JOIN turfs t ON t.id = b.turf_id " +
+        "GROUP BY CAST(x.transaction_date AS DATE), x.payment_status";
+
+    private static final String TRANSACTION_ROLLUP_TOTALS =
+        "SELECT stat_date, payment_status, SUM(transaction_count), SUM(amount) FROM transaction_daily_rollups " +
+        "GROUP BY stat_date, payment_status";
+
+    private static final String DELETE_BOOKING_DAY = "DELETE FROM booking_daily_rollups WHERE stat_date = ?";
+
+    private static final String INSERT_BOOKING_DAY = BOOKING_COLUMNS +
+        "SELECT b.booking_date, b.turf_id, t.city, t.turf_type, b.status, COUNT(*), SUM(b.total_amount) " +
+        "FROM bookings b JOIN turfs t ON t.id = b.turf_id WHERE b.booking_date = ? " +
+        "GROUP BY b.booking_date, b.turf_id, t.city, t.turf_type, b.status";
+
+    private static final String DELETE_TRANSACTION_DAY = "DELETE FROM transaction_daily_rollups WHERE stat_date = ?";
+
+    private static final String INSERT_TRANSACTION_DAY = TRANSACTION_COLUMNS +
+        "SELECT CAST(? AS DATE), b.turf_id, t.city, t.turf_type, x.payment_method, x.payment_status, " +
+        "COUNT(*), SUM(x.amount) FROM transactions x JOIN bookings b ON b.id = x.booking_id JOIN turfs t ON t.id = b.turf_id " +
+        "WHERE x.transaction_date >= ? AND x.transaction_date < ? " +
+        "GROUP BY b.turf_id, t.city, t.turf_type, x.payment_method, x.payment_status";
+
+    private static final String BOOKING_DAYS_OF_BOOKINGS =
+        "SELECT DISTINCT booking_date FROM bookings WHERE id IN (:ids)";
+
+    private static final String TRANSACTION_DAYS_OF_BOOKINGS =
+        "SELECT DISTINCT CAST(transaction_date AS DATE) FROM transactions WHERE booking_id IN (:ids)";
+
+    private static final String BOOKING_DAYS_OF_TRANSACTIONS =
+        "SELECT DISTINCT b.booking_date FROM bookings b JOIN transactions x ON x.booking_id = b.id " +
+        "WHERE x.transaction_id IN (:ids)";
+
+    private static final String TRANSACTION_DAYS_OF_TRANSACTIONS =
+        "SELECT DISTINCT CAST(transaction_date AS DATE) FROM transactions WHERE transaction_id IN (:ids)";
+
+    private static final String[] RELABEL_TURF = {
+        "UPDATE booking_daily_rollups SET city = (SELECT city FROM turfs WHERE id = ?), " +
+        "turf_type = (SELECT turf_type FROM turfs WHERE id = ?) WHERE turf_id = ?",
+        "UPDATE transaction_daily_rollups SET city = (SELECT city FROM turfs WHERE id = ?), " +
+        "turf_type = (SELECT turf_type FROM turfs WHERE id = ?) WHERE turf_id = ?"
+    };
+
+    @Autowired
+    private BookingDailyRollupRepository bookingRollupRepository;
+
+    @Autowired
+    private TransactionDailyRollupRepository transactionRollupRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedJdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${app.analytics.rebuild-on-startup:false}")
+    private boolean rebuildOnStartup;
+
+    private final Set<Long> dirtyBookings = ConcurrentHashMap.newKeySet();
+    private final Set<String> dirtyTransactions = ConcurrentHashMap.newKeySet();
+    private final Set<Long> dirtyTurfs = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Recompute the days of these bookings and of their transactions once the change commits
+     */
+    public void bookingsChanged(Collection<Long> bookingIds) {
+        if (!bookingIds.isEmpty()) {
+            List<Long> ids = List.copyOf(bookingIds);
+            TransactionUtil.afterCommit(() -> dirtyBookings.addAll(ids));
+        }
+    }
+
+    /**
+     * Recompute the days of these transactions and of their bookings once the change commits
+     */
+    public void transactionsChanged(Collection<String> transactionIds) {
+        if (!transactionIds.isEmpty()) {
+            List<String> ids = List.copyOf(transactionIds);
+            TransactionUtil.afterCommit(() -> dirtyTransactions.addAll(ids));
+        }
+    }
+
+    /**
+     * Relabel a turf's rollup rows once a change to its city or type commits
+     */
+    public void turfChanged(Long turfId) {
+        TransactionUtil.afterCommit(() -> dirtyTurfs.add(turfId));
+    }
+
+    /**
+     * Recompute the days whose rollups are missing or out of date, a chunk of days per transaction
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void repair() {
+        if (rebuildOnStartup) {
+            rebuild();
+            return;
+        }
+        Set<LocalDate> bookingDays = staleDays(BOOKING_DAY_TOTALS, BOOKING_ROLLUP_TOTALS);
+        Set<LocalDate> transactionDays = staleDays(TRANSACTION_DAY_TOTALS, TRANSACTION_ROLLUP_TOTALS);
+        if (bookingDays.isEmpty() && transactionDays.isEmpty()) {
+            return;
+        }
+        log.info("Recomputing analytics rollups of {} booking days and {} transaction days",
+                 bookingDays.size(), transactionDays.size());
+        List<LocalDate> bookingDayList = new ArrayList<>(bookingDays);
+        List<LocalDate> transactionDayList = new ArrayList<>(transactionDays);
+        for (int from = 0; from < Math.max(bookingDayList.size(), transactionDayList.size()); from += REPAIR_DAYS) {
+            Set<LocalDate> bookingChunk = new TreeSet<>(slice(bookingDayList, from));
+            Set<LocalDate> transactionChunk = new TreeSet<>(slice(transactionDayList, from));
+            transactionTemplate.executeWithoutResult(status -> recompute(bookingChunk, transactionChunk));
+        }
+    }
+
+    /**
+     * Rebuild every rollup row from the raw tables in one transaction
+     */
+    public synchronized void rebuild() {
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.update("DELETE FROM booking_daily_rollups");
+            jdbcTemplate.update("DELETE FROM transaction_daily_rollups");
+            jdbcTemplate.update(REBUILD_BOOKINGS);
+            jdbcTemplate.update(REBUILD_TRANSACTIONS);
+        });
+    }
+
+    /**
+     * Recompute the days touched by changes committed since the last run
+     */
+    @Scheduled(fixedDelayString = "${app.analytics.rollup-interval-ms:1000}")
+    public synchronized void flush() {
+        List<Long> bookingIds = drain(dirtyBookings);
+        List<String> transactionIds = drain(dirtyTransactions);
+        List<Long> turfIds = drain(dirtyTurfs);
+        if (bookingIds.isEmpty() && transactionIds.isEmpty() && turfIds.isEmpty()) {
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                Set<LocalDate> bookingDays = new TreeSet<>();
+                Set<LocalDate> transactionDays = new TreeSet<>();
+                collectDays(bookingIds, BOOKING_DAYS_OF_BOOKINGS, TRANSACTION_DAYS_OF_BOOKINGS, bookingDays, transactionDays);
+                collectDays(transactionIds, BOOKING_DAYS_OF_TRANSACTIONS, TRANSACTION_DAYS_OF_TRANSACTIONS,
+                            bookingDays, transactionDays);
+                recompute(bookingDays, transactionDays);
+                for (String sql : RELABEL_TURF) {
+                    jdbcTemplate.batchUpdate(sql, turfIds, CHUNK_SIZE, (ps, turfId) -> {
+                        ps.setLong(1, turfId);
+                        ps.setLong(2, turfId);
+                        ps.setLong(3, turfId);
+                    });
+                }
+            });
+        } catch (RuntimeException e) {
+            log.warn("Failed to refresh analytics rollups, retrying on the next run", e);
+            dirtyBookings.addAll(bookingIds);
+            dirtyTransactions.addAll(transactionIds);
+            dirtyTurfs.addAll(turfIds);
+        }
+    }
+
+    /**
+     * Bookings and booked amount per status, city and turf type for a date range of booking dates
+     */
+    @Transactional(readOnly = true)
+    public Map<String, List<Object[]>> getBookingAnalytics(LocalDate startDate, LocalDate endDate) {
+        return Map.of("byStatus", bookingRollupRepository.sumByStatus(startDate, endDate),
+                      "byCity", bookingRollupRepository.sumByCity(startDate, endDate),
+                      "byTurfType", bookingRollupRepository.sumByTurfType(startDate, endDate));
+    }
+
+    /**
+     * Transactions and amount per status and payment method for a date range
+     */
+    @Transactional(readOnly = true)
+    public Map<String, List<Object[]>> getPaymentAnalytics(LocalDate startDate, LocalDate endDate) {
+        return Map.of("byStatus", transactionRollupRepository.sumByStatus(startDate, endDate),
+                      "byPaymentMethod", transactionRollupRepository.sumByPaymentMethod(startDate, endDate));
+    }
+
+    /**
+     * Net revenue per day and per city for a date range
+     */
+    @Transactional(readOnly = true)
+    public Map<String, List<Object[]>> getRevenueAnalytics(LocalDate startDate, LocalDate endDate) {
+        return Map.of("byDay", transactionRollupRepository.sumRevenueByDay(startDate, endDate),
+                      "byCity", transactionRollupRepository.sumRevenueByCity(startDate, endDate));
+    }
+
+    private <T> void collectDays(List<T> ids, String bookingDaysSql, String transactionDaysSql,
+                                 Set<LocalDate> bookingDays, Set<LocalDate> transactionDays) {
+        for (int from = 0; from < ids.size(); from += CHUNK_SIZE) {
+            Map<String, Object> params = Map.of("ids", ids.subList(from, Math.min(ids.size(), from + CHUNK_SIZE)));
+            bookingDays.addAll(namedJdbcTemplate.queryForList(bookingDaysSql, params, LocalDate.class));
+            transactionDays.addAll(namedJdbcTemplate.queryForList(transactionDaysSql, params, LocalDate.class));
+        }
+    }
+
+    private void recompute(Set<LocalDate> bookingDays, Set<LocalDate> transactionDays) {
+        List<LocalDate> bookingDayList = new ArrayList<>(bookingDays);
+        jdbcTemplate.batchUpdate(DELETE_BOOKING_DAY, bookingDayList, CHUNK_SIZE,
+                                 (ps, day) -> ps.setDate(1, Date.valueOf(day)));
+        jdbcTemplate.batchUpdate(INSERT_BOOKING_DAY, bookingDayList, CHUNK_SIZE,
+                                 (ps, day) -> ps.setDate(1, Date.valueOf(day)));
+
+        List<LocalDate> transactionDayList = new ArrayList<>(transactionDays);
+        jdbcTemplate.batchUpdate(DELETE_TRANSACTION_DAY, transactionDayList, CHUNK_SIZE,
+                                 (ps, day) -> ps.setDate(1, Date.valueOf(day)));
+        jdbcTemplate.batchUpdate(INSERT_TRANSACTION_DAY, transactionDayList, CHUNK_SIZE, (ps, day) -> {
+            ps.setDate(1, Date.valueOf(day));
+            ps.setTimestamp(2, Timestamp.valueOf(day.atStartOfDay()));
+            ps.setTimestamp(3, Timestamp.valueOf(day.plusDays(1).atStartOfDay()));
+        });
+    }
+
+    // Days on which the raw tables and the rollups disagree on count or amount per status
+    private Set<LocalDate> staleDays(String rawSql, String rollupSql) {
+        Map<String, String> raw = dayTotals(rawSql);
+        Map<String, String> rolledUp = dayTotals(rollupSql);
+        Set<LocalDate> days = new TreeSet<>();
+        for (Map<String, String> side : List.of(raw, rolledUp)) {
+            side.forEach((key, totals) -> {
+                if (!totals.equals(raw.get(key)) || !totals.equals(rolledUp.get(key))) {
+                    days.add(LocalDate.parse(key.substring(0, key.indexOf('|'))));
+                }
+            });
+        }
+        return days;
+    }
+
+    private Map<String, String> dayTotals(String sql) {
+        Map<String, String> totals = new HashMap<>();
+        jdbcTemplate.query(sql, rs -> {
+            BigDecimal amount = rs.getBigDecimal(4);
+            totals.put(rs.getObject(1, LocalDate.class) + "|" + rs.getString(2),
+                       rs.getLong(3) + "|" + (amount == null ? "0" : amount.stripTrailingZeros().toPlainString()));
+        });
+        return totals;
+    }
+
+    private static <T> List<T> slice(List<T> list, int from) {
+        return list.subList(Math.min(from, list.size()), Math.min(list.size(), from + REPAIR_DAYS));
+    }
+
+    private static <T> List<T> drain(Set<T> dirty) {
+        List<T> drained = new ArrayList<>(dirty);
+        drained.forEach(dirty::remove);
+        return drained;
+    }
+}
@@ -41,6 +41,12 @@ public class BookingService {
     @Autowired
     private TransactionService transactionService;
     
+    @Autowired
+    private LedgerService ledgerService;
+    
+    @Autowired
+    private AnalyticsRollupService analyticsRollupService;
+    
     /**
      * Get all bookings
      */
@@ -110,8 +116,8 @@ public class BookingService {
         User user = userRepository.findById(userId)
             .orElseThrow(() -> new RuntimeException("User not found with id: " + userId));
         
-        // Validate turf
-        Turf turf = turfRepository.findById(turfId)
+        // Validate turf; locked so the conflict check below cannot race another booking of it
+        Turf turf = turfRepository.findByIdForUpdate(turfId)
             .orElseThrow(() -> new RuntimeException("Turf not found with id: " + turfId));
         
         if (!turf.getIsActive()) {
@@ -150,13 +156,15 @@ public class BookingService {
         booking.setSpecialRequests(specialRequests);
         booking.setStatus(Booking.BookingStatus.PENDING);
         
-        return bookingRepository.save(booking);
+        Booking saved = bookingRepository.save(booking);
+        analyticsRollupService.bookingsChanged(List.of(saved.getId()));
+        return saved;
     }
     
     /**
      * Calculate booking amount based on duration
      */
-    private BigDecimal calculateBookingAmount(BigDecimal pricePerHour, LocalTime startTime, LocalTime endTime) {
+    public BigDecimal calculateBookingAmount(BigDecimal pricePerHour, LocalTime startTime, LocalTime endTime) {
         long minutes = ChronoUnit.MINUTES.between(startTime, endTime);
         double hours = minutes / 60.0;
         return pricePerHour.multiply(BigDecimal.valueOf(hours));
@@ -170,6 +178,7 @@ public class BookingService {
             .orElseThrow(() -> new RuntimeException("Booking not found with id: " + bookingId));
         
         booking.setStatus(status);
+        analyticsRollupService.bookingsChanged(List.of(bookingId));
         return bookingRepository.save(booking);
     }
     
@@ -203,6 +212,7 @@ public class BookingService {
         
         booking.setStatus(Booking.BookingStatus.CANCELLED);
         bookingRepository.save(booking);
+        analyticsRollupService.bookingsChanged(List.of(bookingId));
         
         // Process refund if payment was made
         transactionService.processRefund(bookingId);
@@ -216,6 +226,7 @@ public class BookingService {
             .orElseThrow(() -> new RuntimeException("Booking not found with id: " + bookingId));
         
         booking.setStatus(Booking.BookingStatus.COMPLETED);
+        analyticsRollupService.bookingsChanged(List.of(bookingId));
         return bookingRepository.save(booking);
     }
     
@@ -244,13 +255,6 @@ public class BookingService {
         return List.of("09:00-10:00", "10:00-11:00", "11:00-12:00"); // Example
     }
     
-    /**
-     * Get booking statistics
-     */
-    public List<Object[]> getBookingStatsByStatus() {
-        return bookingRepository.countBookingsByStatus();
-    }
-    
     /**
      * Get popular turfs by booking count
      */
@@ -260,17 +264,17 @@ public class BookingService {
     }
     
     /**
-     * Calculate total revenue
+     * Calculate total revenue from the ledger
      */
     public Double getTotalRevenue() {
-        return bookingRepository.calculateTotalRevenue();
+        return ledgerService.getTotalRevenue().doubleValue();
     }
     
     /**
-     * Calculate revenue for date range
+     * Calculate revenue for date range from the ledger
      */
     public Double getRevenueForPeriod(LocalDate startDate, LocalDate endDate) {
-        return bookingRepository.calculateRevenueForPeriod(startDate, endDate);
+        return ledgerService.getRevenueForPeriod(startDate, endDate).doubleValue();
     }
     
     /**
@@ -0,0 +1,215 @@
+package com.turfbooking.service;
+
+import com.turfbooking.model.RefundJob;
+import com.turfbooking.repository.BookingRepository;
+import com.turfbooking.repository.RefundJobRepository;
+import com.turfbooking.repository.TournamentRegistrationRepository;
+import com.turfbooking.repository.TransactionRepository;
+import com.turfbooking.util.TransactionUtil;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bulk refunds for cancelled tournaments and deactivated turfs
+ * Affected bookings are processed in id-ordered chunks. Each chunk inserts the refund rows,
+ * flips payment and booking statuses with set-based statements and advances the job cursor
+ * in one transaction, so a job interrupted by a crash resumes from its last chunk on startup.
+ */
+@Service
+public class BulkRefundEngine {
+
+    private static final Logger log = LoggerFactory.getLogger(BulkRefundEngine.class);
+
+    @Autowired
+    private RefundJobRepository refundJobRepository;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private TournamentRegistrationRepository registrationRepository;
+
+    @Autowired
+    private LedgerService ledgerService;
+
+    @Autowired
+    private AnalyticsRollupService analyticsRollupService;
+
+    @Autowired
+    private UserFinanceService userFinanceService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${app.refunds.chunk-size:200}")
+    private int chunkSize;
+
+    // Jobs run one at a time so chunks of different jobs never contend for the same rows
+    private ExecutorService runner;
+
+    @PostConstruct
+    public void start() {
+        runner = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "bulk-refund-runner");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        runner.shutdownNow();
+        runner.awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Refund every live match booking of a tournament and mark its paid entry fees as due back
+     * Entry fees are paid outside the payment gateway, so there is no transaction to reverse;
+     * they are settled by hand and then set to REFUNDED.
+     * Joins the caller's transaction; the job starts once it commits
+     */
+    public RefundJob startTournamentRefund(Long tournamentId) {
+        return start(RefundJob.Scope.TOURNAMENT, tournamentId);
+    }
+
+    /**
+     * Refund and cancel every booking on a turf that has not ended by the time the job starts
+     * Joins the caller's transaction; the job starts once it commits
+     */
+    public RefundJob startTurfRefund(Long turfId) {
+        return start(RefundJob.Scope.TURF, turfId);
+    }
+
+    /**
+     * Restart a failed job from its cursor
+     */
+    public RefundJob resume(Long jobId) {
+        RefundJob job = refundJobRepository.findById(jobId)
+            .orElseThrow(() -> new RuntimeException("Refund job not found with id: " + jobId));
+        if (job.getStatus() != RefundJob.Status.FAILED) {
+            throw new RuntimeException("Only failed refund jobs can be resumed");
+        }
+        job.setStatus(RefundJob.Status.RUNNING);
+        job.setErrorMessage(null);
+        job = refundJobRepository.save(job);
+        submit(job.getId());
+        return job;
+    }
+
+    /**
+     * Get a refund job for progress reporting
+     */
+    public RefundJob getJob(Long jobId) {
+        return refundJobRepository.findById(jobId)
+            .orElseThrow(() -> new RuntimeException("Refund job not found with id: " + jobId));
+    }
+
+    /**
+     * Get the most recent refund jobs
+     */
+    public List<RefundJob> getRecentJobs() {
+        return refundJobRepository.findTop50ByOrderByIdDesc();
+    }
+
+    /**
+     * Resume jobs that were running when the application stopped
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeRunningJobs() {
+        for (RefundJob job : refundJobRepository.findByStatus(RefundJob.Status.RUNNING)) {
+            log.info("Resuming refund job {} for {} {} after booking {}",
+                     job.getId(), job.getScope(), job.getTargetId(), job.getLastBookingId());
+            submit(job.getId());
+        }
+    }
+
+    private RefundJob start(RefundJob.Scope scope, Long targetId) {
+        RefundJob running = refundJobRepository
+            .findFirstByScopeAndTargetIdAndStatus(scope, targetId, RefundJob.Status.RUNNING).orElse(null);
+        if (running != null) {
+            return running;
+        }
+        RefundJob job = new RefundJob(scope, targetId);
+        LocalDateTime now = LocalDateTime.now();
+        job.setTotalBookings(scope == RefundJob.Scope.TURF
+            ? bookingRepository.countLiveBookingsForTurf(targetId, now.toLocalDate(), now.toLocalTime())
+            : bookingRepository.countLiveBookingsForTournament(targetId));
+        RefundJob saved = refundJobRepository.save(job);
+        TransactionUtil.afterCommit(() -> submit(saved.getId()));
+        return saved;
+    }
+
+    private void submit(Long jobId) {
+        runner.execute(() -> run(jobId));
+    }
+
+    private void run(Long jobId) {
+        try {
+            while (Boolean.TRUE.equals(transactionTemplate.execute(status -> processChunk(jobId)))) {
+                if (Thread.currentThread().isInterrupted()) {
+                    return;
+                }
+            }
+        } catch (RuntimeException e) {
+            log.error("Refund job {} failed", jobId, e);
+            transactionTemplate.executeWithoutResult(status -> refundJobRepository.findById(jobId).ifPresent(job -> {
+                job.setStatus(RefundJob.Status.FAILED);
+                String message = String.valueOf(e.getMessage());
+                job.setErrorMessage(message.length() > 500 ? message.substring(0, 500) : message);
+            }));
+        }
+    }
+
+    // Refunds one chunk and advances the cursor; returns false once the job is done
+    private boolean processChunk(Long jobId) {
+        RefundJob job = refundJobRepository.findById(jobId).orElse(null);
+        if (job == null || job.getStatus() != RefundJob.Status.RUNNING) {
+            return false;
+        }
+        PageRequest chunk = PageRequest.of(0, chunkSize);
+        // Turf jobs leave bookings that were already played when the job started alone
+        List<Long> bookingIds = job.getScope() == RefundJob.Scope.TURF
+            ? bookingRepository.findLiveBookingIdsForTurf(job.getTargetId(), job.getCreatedAt().toLocalDate(),
+                                                          job.getCreatedAt().toLocalTime(), job.getLastBookingId(), chunk)
+            : bookingRepository.findLiveBookingIdsForTournament(job.getTargetId(), job.getLastBookingId(), chunk);
+
+        if (bookingIds.isEmpty()) {
+            if (job.getScope() == RefundJob.Scope.TOURNAMENT) {
+                job.setRefundDueRegistrations((long) registrationRepository.markPaidRegistrationsRefundDue(job.getTargetId()));
+            }
+            job.setStatus(RefundJob.Status.COMPLETED);
+            log.info("Refund job {} completed: {} bookings, {} refunds totalling {}", job.getId(),
+                     job.getProcessedBookings(), job.getRefundedTransactions(), job.getRefundedAmount());
+            return false;
+        }
+
+        job.setRefundedAmount(job.getRefundedAmount().add(transactionRepository.sumRefundableAmount(bookingIds)));
+        job.setRefundedTransactions(job.getRefundedTransactions() + transactionRepository.insertRefunds(bookingIds));
+        transactionRepository.markRefunded(bookingIds);
+        ledgerService.postRefunds(bookingIds);
+        bookingRepository.cancelBookings(bookingIds);
+        analyticsRollupService.bookingsChanged(bookingIds);
+        userFinanceService.bookingsChanged(bookingIds);
+        job.setLastBookingId(bookingIds.get(bookingIds.size() - 1));
+        job.setProcessedBookings(job.getProcessedBookings() + bookingIds.size());
+        return true;
+    }
+}
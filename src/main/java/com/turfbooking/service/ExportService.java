@@ -0,0 +1,180 @@
+package com.turfbooking.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.turfbooking.repository.BookingRepository;
+import com.turfbooking.repository.TransactionRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Streaming CSV and NDJSON exports of transactions and bookings
+ * Rows are read as flat projections from a database cursor inside a read-only
+ * transaction and written straight to the response, so memory stays constant
+ * however many rows are exported. Output is flushed every few hundred rows; a slow
+ * client blocks the writer, which in turn stops reading from the cursor.
+ */
+@Service
+public class ExportService {
+
+    public enum Format {
+        CSV("text/csv", "csv"),
+        NDJSON("application/x-ndjson", "ndjson");
+
+        private final MediaType mediaType;
+        private final String extension;
+
+        Format(String mediaType, String extension) {
+            this.mediaType = MediaType.parseMediaType(mediaType);
+            this.extension = extension;
+        }
+
+        public MediaType getMediaType() {
+            return mediaType;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+    }
+
+    private static final String[] TRANSACTION_COLUMNS = {
+        "id", "transaction_id", "booking_id", "user_id", "turf_id", "amount",
+        "payment_method", "payment_status", "transaction_date"
+    };
+
+    private static final String[] BOOKING_COLUMNS = {
+        "id", "user_id", "turf_id", "booking_date", "start_time", "end_time",
+        "number_of_players", "total_amount", "status", "created_at"
+    };
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${app.export.flush-rows:500}")
+    private int flushRows;
+
+    private TransactionTemplate readOnlyTemplate;
+
+    @PostConstruct
+    public void init() {
+        readOnlyTemplate = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        readOnlyTemplate.setReadOnly(true);
+    }
+
+    /**
+     * Transactions dated within the range, oldest first
+     */
+    public StreamingResponseBody exportTransactions(LocalDateTime startDate, LocalDateTime endDate, Format format) {
+        return out -> write(new OutputStreamWriter(out, StandardCharsets.UTF_8), format, TRANSACTION_COLUMNS,
+                            () -> transactionRepository.streamForExport(startDate, endDate));
+    }
+
+    /**
+     * Bookings within an optional booking date range, in id order
+     */
+    public StreamingResponseBody exportBookings(LocalDate startDate, LocalDate endDate, Format format) {
+        return out -> write(new OutputStreamWriter(out, StandardCharsets.UTF_8), format, BOOKING_COLUMNS,
+                            () -> bookingRepository.streamForExport(startDate, endDate));
+    }
+
+    private void write(Writer target, Format format, String[] columns, Supplier<Stream<Object[]>> query)
+            throws IOException {
+        Writer writer = new BufferedWriter(target);
+        try {
+            readOnlyTemplate.executeWithoutResult(status -> {
+                try (Stream<Object[]> rows = query.get()) {
+                    if (format == Format.CSV) {
+                        writeCsv(writer, columns, rows.iterator());
+                    } else {
+                        writeNdjson(writer, columns, rows.iterator());
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        writer.flush();
+    }
+
+    private void writeCsv(Writer writer, String[] columns, Iterator<Object[]> rows) throws IOException {
+        writer.write(String.join(",", columns));
+        writer.write("\r\n");
+        for (int count = 1; rows.hasNext(); count++) {
+            Object[] row = rows.next();
+            for (int i = 0; i < row.length; i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                writer.write(csvField(row[i]));
+            }
+            writer.write("\r\n");
+            if (count % flushRows == 0) {
+                writer.flush();
+            }
+        }
+    }
+
+    private void writeNdjson(Writer writer, String[] columns, Iterator<Object[]> rows) throws IOException {
+        // Leave the response open and push bytes to it only every flushRows rows
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(writer)
+            .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+            .disable(JsonGenerator.Feature.FLUSH_PASSED_TO_STREAM)
+            .setRootValueSeparator(null);
+        for (int count = 1; rows.hasNext(); count++) {
+            Object[] row = rows.next();
+            generator.writeStartObject();
+            for (int i = 0; i < row.length; i++) {
+                generator.writeFieldName(columns[i]);
+                objectMapper.writeValue(generator, row[i]);
+            }
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+            if (count % flushRows == 0) {
+                generator.flush();
+                writer.flush();
+            }
+        }
+        generator.close();
+    }
+
+    // Quote fields that contain a separator, quote or line break
+    private static String csvField(Object value) {
+        if (value == null) {
+            return "";
+        }
+        String text = value.toString();
+        if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+            return text;
+        }
+        return '"' + text.replace("\"", "\"\"") + '"';
+    }
+}
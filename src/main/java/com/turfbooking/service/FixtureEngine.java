@@ -0,0 +1,269 @@
+package com.turfbooking.service;
+
+import com.turfbooking.model.Booking;
+import com.turfbooking.model.TournamentMatch;
+import com.turfbooking.model.Turf;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * In-memory fixture generation and slot packing for tournaments
+ * Teams are identified by their seed index (0 = top seed). Generation and packing
+ * are linear in the number of matches and free slots, and do not touch the database.
+ */
+@Service
+public class FixtureEngine {
+
+    public enum Format {
+        KNOCKOUT, ROUND_ROBIN, GROUP_KNOCKOUT
+    }
+
+    /**
+     * A generated match; a side is either a seeded team or a placeholder label
+     */
+    public record Fixture(int round, int matchNumber, TournamentMatch.Stage stage, String groupName,
+                          Integer homeTeam, Integer awayTeam, String homeLabel, String awayLabel) {
+    }
+
+    /**
+     * A free turf slot a match can be played in
+     */
+    public record Slot(Long turfId, LocalDate date, LocalTime startTime, LocalTime endTime) {
+
+        LocalDateTime start() {
+            return date.atTime(startTime);
+        }
+
+        LocalDateTime end() {
+            return date.atTime(endTime);
+        }
+    }
+
+    // One side of a match: a seeded team or the label of whoever qualifies
+    private record Entrant(Integer team, String label) {
+    }
+
+    /**
+     * Generate the fixtures for a number of seeded teams
+     */
+    public List<Fixture> generate(Format format, int teamCount, int groupSize, int advancePerGroup) {
+        if (teamCount < 2) {
+            throw new RuntimeException("At least two paid teams are needed to generate fixtures");
+        }
+        List<Entrant> teams = new ArrayList<>(teamCount);
+        for (int i = 0; i < teamCount; i++) {
+            teams.add(new Entrant(i, null));
+        }
+        List<Fixture> fixtures = new ArrayList<>();
+        switch (format) {
+            case KNOCKOUT -> knockout(teams, 1, fixtures);
+            case ROUND_ROBIN -> roundRobin(teams, null, 1, TournamentMatch.Stage.ROUND_ROBIN, fixtures);
+            case GROUP_KNOCKOUT -> groupKnockout(teams, groupSize, advancePerGroup, fixtures);
+        }
+        return fixtures;
+    }
+
+    /**
+     * Free slots of the given turfs, within the daily window and the turf's opening hours
+     */
+    public List<Slot> freeSlots(List<Turf> turfs, LocalDate firstDay, int days, LocalTime dayStart,
+                                LocalTime dayEnd, int matchMinutes, List<Booking> existing) {
+        Map<Long, Map<LocalDate, List<Booking>>> busy = new HashMap<>();
+        for (Booking booking : existing) {
+            busy.computeIfAbsent(booking.getTurf().getId(), id -> new HashMap<>())
+                .computeIfAbsent(booking.getBookingDate(), date -> new ArrayList<>())
+                .add(booking);
+        }
+
+        List<Slot> slots = new ArrayList<>();
+        for (int day = 0; day < days; day++) {
+            LocalDate date = firstDay.plusDays(day);
+            for (Turf turf : turfs) {
+                LocalTime from = later(dayStart, turf.getOpeningTime());
+                LocalTime to = earlier(dayEnd, turf.getClosingTime());
+                List<Booking> taken = busy.getOrDefault(turf.getId(), Map.of()).getOrDefault(date, List.of());
+                LocalTime start = from;
+                while (true) {
+                    LocalTime end = start.plusMinutes(matchMinutes);
+                    // A wrapped end time means the slot would run past midnight
+                    if (!end.isAfter(start) || end.isAfter(to)) {
+                        break;
+                    }
+                    if (isFree(taken, start, end)) {
+                        slots.add(new Slot(turf.getId(), date, start, end));
+                    }
+                    start = end;
+                }
+            }
+        }
+        slots.sort(Comparator.comparing(Slot::date).thenComparing(Slot::startTime).thenComparing(Slot::turfId));
+        return slots;
+    }
+
+    /**
+     * Assign each fixture the earliest free slot that starts after every match of the previous round ended
+     * Returns one slot per fixture, in fixture order
+     */
+    public List<Slot> pack(List<Fixture> fixtures, List<Slot> freeSlots) {
+        List<Slot> assigned = new ArrayList<>(fixtures.size());
+        int cursor = 0;
+        int round = -1;
+        LocalDateTime barrier = LocalDateTime.MIN;
+        LocalDateTime roundEnd = LocalDateTime.MIN;
+        for (Fixture fixture : fixtures) {
+            if (fixture.round() != round) {
+                round = fixture.round();
+                barrier = roundEnd;
+            }
+            while (cursor < freeSlots.size() && freeSlots.get(cursor).start().isBefore(barrier)) {
+                cursor++;
+            }
+            if (cursor == freeSlots.size()) {
+                throw new RuntimeException("Not enough free turf slots to schedule " + fixtures.size() + " matches");
+            }
+            Slot slot = freeSlots.get(cursor++);
+            assigned.add(slot);
+            if (slot.end().isAfter(roundEnd)) {
+                roundEnd = slot.end();
+            }
+        }
+        return assigned;
+    }
+
+    // Single elimination; top seeds get the byes when the field is not a power of two
+    private void knockout(List<Entrant> entrants, int firstRound, List<Fixture> fixtures) {
+        int size = Integer.highestOneBit(entrants.size() - 1) << 1;
+        List<Entrant> current = new ArrayList<>(size);
+        for (int seed : seedOrder(size)) {
+            current.add(seed <= entrants.size() ? entrants.get(seed - 1) : null);
+        }
+        int round = firstRound;
+        while (current.size() > 1) {
+            List<Entrant> next = new ArrayList<>(current.size() / 2);
+            for (int i = 0; i < current.size(); i += 2) {
+                Entrant home = current.get(i);
+                Entrant away = current.get(i + 1);
+                if (home == null || away == null) {
+                    next.add(home == null ? away : home);
+                    continue;
+                }
+                int matchNumber = fixtures.size() + 1;
+                fixtures.add(fixture(round, matchNumber, TournamentMatch.Stage.KNOCKOUT, null, home, away));
+                next.add(new Entrant(null, "Winner of match " + matchNumber));
+            }
+            current = next;
+            round++;
+        }
+    }
+
+    // Circle method: every team plays every other team once, one match per team per round
+    private int roundRobin(List<Entrant> entrants, String groupName, int firstRound,
+                           TournamentMatch.Stage stage, List<Fixture> fixtures) {
+        List<Entrant> circle = new ArrayList<>(entrants);
+        if (circle.size() % 2 == 1) {
+            circle.add(null);
+        }
+        int n = circle.size();
+        for (int r = 0; r < n - 1; r++) {
+            for (int i = 0; i < n / 2; i++) {
+                Entrant home = circle.get(i);
+                Entrant away = circle.get(n - 1 - i);
+                if (home != null && away != null) {
+                    fixtures.add(fixture(firstRound + r, fixtures.size() + 1, stage, groupName, home, away));
+                }
+            }
+            // Keep the first team fixed and rotate the rest
+            circle.add(1, circle.remove(n - 1));
+        }
+        return firstRound + n - 1;
+    }
+
+    private void groupKnockout(List<Entrant> teams, int groupSize, int advancePerGroup, List<Fixture> fixtures) {
+        int groupCount = Math.max(2, (teams.size() + groupSize - 1) / groupSize);
+        if (advancePerGroup < 1 || teams.size() < groupCount * Math.max(2, advancePerGroup)) {
+            throw new RuntimeException("Not enough teams for " + groupCount + " groups advancing "
+                                       + advancePerGroup + " each");
+        }
+        // Snake seeding spreads the top seeds across groups
+        List<List<Entrant>> groups = new ArrayList<>(groupCount);
+        for (int g = 0; g < groupCount; g++) {
+            groups.add(new ArrayList<>());
+        }
+        for (int i = 0; i < teams.size(); i++) {
+            int pass = i / groupCount;
+            int offset = i % groupCount;
+            groups.get(pass % 2 == 0 ? offset : groupCount - 1 - offset).add(teams.get(i));
+        }
+
+        // Groups play their rounds side by side, interleaved by round
+        List<Fixture> groupFixtures = new ArrayList<>();
+        int knockoutRound = 1;
+        for (int g = 0; g < groupCount; g++) {
+            knockoutRound = Math.max(knockoutRound, roundRobin(groups.get(g), groupName(g), 1,
+                                                               TournamentMatch.Stage.GROUP, groupFixtures));
+        }
+        groupFixtures.sort(Comparator.comparingInt(Fixture::round));
+        for (Fixture fixture : groupFixtures) {
+            fixtures.add(new Fixture(fixture.round(), fixtures.size() + 1, fixture.stage(), fixture.groupName(),
+                                     fixture.homeTeam(), fixture.awayTeam(), null, null));
+        }
+
+        // Group winners are seeded first, then runners-up, so they avoid each other early
+        List<Entrant> qualifiers = new ArrayList<>();
+        for (int place = 1; place <= advancePerGroup; place++) {
+            for (int g = 0; g < groupCount; g++) {
+                qualifiers.add(new Entrant(null, "Group " + groupName(g) + " #" + place));
+            }
+        }
+        knockout(qualifiers, knockoutRound, fixtures);
+    }
+
+    private static Fixture fixture(int round, int matchNumber, TournamentMatch.Stage stage, String groupName,
+                                   Entrant home, Entrant away) {
+        return new Fixture(round, matchNumber, stage, groupName, home.team(), away.team(), home.label(), away.label());
+    }
+
+    // Standard bracket order, e.g. 1, 8, 4, 5, 2, 7, 3, 6 for eight seeds
+    private static int[] seedOrder(int size) {
+        int[] order = {1};
+        while (order.length < size) {
+            int length = order.length * 2;
+            int[] next = new int[length];
+            for (int i = 0; i < order.length; i++) {
+                next[2 * i] = order[i];
+                next[2 * i + 1] = length + 1 - order[i];
+            }
+            order = next;
+        }
+        return order;
+    }
+
+    private static String groupName(int index) {
+        return index < 26 ? String.valueOf((char) ('A' + index)) : "G" + (index + 1);
+    }
+
+    private static boolean isFree(List<Booking> taken, LocalTime start, LocalTime end) {
+        for (Booking booking : taken) {
+            if (booking.getStartTime().isBefore(end) && booking.getEndTime().isAfter(start)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static LocalTime later(LocalTime a, LocalTime b) {
+        return b == null || a.isAfter(b) ? a : b;
+    }
+
+    private static LocalTime earlier(LocalTime a, LocalTime b) {
+        return b == null || a.isBefore(b) ? a : b;
+    }
+}
@@ -0,0 +1,237 @@
+package com.turfbooking.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.turfbooking.model.IdempotencyRecord;
+import com.turfbooking.repository.IdempotencyRecordRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.util.DigestUtils;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Idempotency-Key handling for retried requests
+ * Keys are scoped to the user sending them. A request first claims its key with a row in
+ * idempotency_keys, so a retry reaching another node while it runs gets a 409 instead of
+ * running it twice; concurrent retries on this node wait for the first one to finish.
+ * Only successful responses are kept, with a TTL and an in-memory LRU in front of them;
+ * any other outcome releases the claim so that a retry runs the request again.
+ */
+@Service
+public class IdempotencyService {
+
+    private static final Logger log = LoggerFactory.getLogger(IdempotencyService.class);
+
+    public static final int MAX_KEY_LENGTH = 100;
+
+    @Autowired
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${app.idempotency.ttl-hours:24}")
+    private long ttlHours;
+
+    // Longer than any request takes; a claim left by a node that died is taken over after it
+    @Value("${app.idempotency.claim-timeout-seconds:60}")
+    private long claimTimeoutSeconds;
+
+    private final Map<String, StoredResponse> recent;
+    private final Map<String, CompletableFuture<StoredResponse>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * A response as first returned for a key
+     */
+    public record StoredResponse(String requestHash, int statusCode, String body, LocalDateTime expiresAt,
+                                 boolean replayed) {
+
+        StoredResponse asReplay() {
+            return replayed ? this : new StoredResponse(requestHash, statusCode, body, expiresAt, true);
+        }
+    }
+
+    /**
+     * Thrown, directly or through the returned future, when a key is reused with a different body
+     */
+    public static class KeyReusedException extends RuntimeException {
+        public KeyReusedException() {
+            super("Idempotency-Key was already used for a different request");
+        }
+    }
+
+    public IdempotencyService(@Value("${app.idempotency.cache-size:10000}") int cacheSize) {
+        this.recent = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, StoredResponse> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
+
+    /**
+     * Run a user's request once per key; retries with the same key and body get the first success back
+     */
+    public CompletableFuture<StoredResponse> execute(Long userId, String key, Map<String, Object> request,
+                                                     Supplier<CompletableFuture<StoredResponse>> action) {
+        if (key.length() > MAX_KEY_LENGTH) {
+            throw new RuntimeException("Idempotency-Key must be at most " + MAX_KEY_LENGTH + " characters");
+        }
+        String scopedKey = userId + ":" + key;
+        String requestHash = hash(request);
+        StoredResponse stored = lookup(scopedKey);
+        if (stored != null) {
+            return CompletableFuture.completedFuture(replay(stored, requestHash));
+        }
+        CompletableFuture<StoredResponse> pending = new CompletableFuture<>();
+        CompletableFuture<StoredResponse> running = inFlight.putIfAbsent(scopedKey, pending);
+        if (running != null) {
+            // The first attempt was not stored when it completes with null; try again
+            return running.thenCompose(first -> first == null
+                ? execute(userId, key, request, action)
+                : CompletableFuture.completedFuture(replay(first, requestHash)));
+        }
+        if (!claim(scopedKey, requestHash)) {
+            inFlight.remove(scopedKey, pending);
+            pending.complete(null);
+            // Running on another node, or completed there since the lookup
+            StoredResponse first = lookup(scopedKey);
+            return CompletableFuture.completedFuture(first != null ? replay(first, requestHash)
+                : response(HttpStatus.CONFLICT.value(),
+                           Map.of("error", "A request with this Idempotency-Key is still in progress")));
+        }
+        CompletableFuture<StoredResponse> result;
+        try {
+            result = action.get();
+        } catch (RuntimeException e) {
+            idempotencyRecordRepository.releaseClaim(scopedKey);
+            inFlight.remove(scopedKey, pending);
+            pending.complete(null);
+            throw e;
+        }
+        return result.whenComplete((response, error) -> {
+            StoredResponse saved = null;
+            try {
+                if (error == null && response.statusCode() < 300) {
+                    saved = store(scopedKey, requestHash, response);
+                } else {
+                    idempotencyRecordRepository.releaseClaim(scopedKey);
+                }
+            } finally {
+                inFlight.remove(scopedKey, pending);
+                pending.complete(saved);
+            }
+        });
+    }
+
+    /**
+     * Build a stored response from a status and a body to serialize
+     */
+    public StoredResponse response(int statusCode, Object body) {
+        try {
+            return new StoredResponse(null, statusCode, body == null ? null : objectMapper.writeValueAsString(body),
+                                      null, false);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Failed to serialize response", e);
+        }
+    }
+
+    /**
+     * Remove expired keys
+     */
+    @Scheduled(cron = "${app.idempotency.purge-cron:0 0 * * * *}")
+    public void purgeExpired() {
+        LocalDateTime now = LocalDateTime.now();
+        synchronized (recent) {
+            recent.values().removeIf(response -> response.expiresAt().isBefore(now));
+        }
+        int removed = idempotencyRecordRepository.deleteExpired(now);
+        if (removed > 0) {
+            log.info("Purged {} expired idempotency keys", removed);
+        }
+    }
+
+    private StoredResponse lookup(String key) {
+        LocalDateTime now = LocalDateTime.now();
+        StoredResponse cached;
+        synchronized (recent) {
+            cached = recent.get(key);
+        }
+        if (cached != null && cached.expiresAt().isAfter(now)) {
+            return cached;
+        }
+        IdempotencyRecord record = idempotencyRecordRepository.findById(key).orElse(null);
+        // A claim has no response yet
+        if (record == null || record.getStatusCode() == null || !record.getExpiresAt().isAfter(now)) {
+            return null;
+        }
+        StoredResponse stored = new StoredResponse(record.getRequestHash(), record.getStatusCode(),
+                                                   record.getResponseBody(), record.getExpiresAt(), true);
+        remember(key, stored);
+        return stored;
+    }
+
+    // Insert the key without a response; false while another request holds it or once it completed
+    private boolean claim(String key, String requestHash) {
+        LocalDateTime now = LocalDateTime.now();
+        for (int attempt = 0; attempt < 2; attempt++) {
+            try {
+                idempotencyRecordRepository.claim(key, requestHash, now.plusSeconds(claimTimeoutSeconds));
+                return true;
+            } catch (DataIntegrityViolationException e) {
+                // An expired record, e.g. the claim of a request that never finished, is replaced once
+                if (idempotencyRecordRepository.deleteIfExpired(key, now) == 0) {
+                    return false;
+                }
+            }
+        }
+        return false;
+    }
+
+    // Record the response on the claim
+    private StoredResponse store(String key, String requestHash, StoredResponse response) {
+        LocalDateTime expiresAt = LocalDateTime.now().plus(Duration.ofHours(ttlHours));
+        if (idempotencyRecordRepository.complete(key, response.statusCode(), response.body(), expiresAt) == 0) {
+            log.warn("Idempotency claim on {} expired before its request completed", key);
+        }
+        StoredResponse stored = new StoredResponse(requestHash, response.statusCode(), response.body(),
+                                                   expiresAt, true);
+        remember(key, stored);
+        return stored;
+    }
+
+    private StoredResponse replay(StoredResponse stored, String requestHash) {
+        if (!stored.requestHash().equals(requestHash)) {
+            throw new KeyReusedException();
+        }
+        return stored.asReplay();
+    }
+
+    private void remember(String key, StoredResponse stored) {
+        synchronized (recent) {
+            recent.put(key, stored);
+        }
+    }
+
+    private String hash(Map<String, Object> request) {
+        try {
+            return DigestUtils.md5DigestAsHex(objectMapper.writeValueAsBytes(new TreeMap<>(request)));
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Failed to hash request", e);
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package com.turfbooking.service;
+
+import com.turfbooking.model.LedgerEntry;
+import com.turfbooking.model.Transaction;
+import com.turfbooking.repository.LedgerDailyTotalRepository;
+import com.turfbooking.repository.TransactionRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Append-only double-entry ledger of settled payments and refunds
+ * Postings are written in the caller's transaction, alongside the status change that
+ * settles them, and fold into per-day running totals. Revenue for a period is the
+ * difference of two running totals instead of an aggregate over all transactions.
+ * Every posting updates the row of its day, so concurrent settlements queue on today's
+ * row lock until the settling transaction commits, and settlement throughput is bounded
+ * by that. Keep settling transactions short; the callback queue posts a whole batch under
+ * one lock acquisition, and payments are settled outside the gateway round trip.
+ */
+@Service
+@Transactional
+public class LedgerService {
+
+    private static final String INSERT_POSTING =
+        "INSERT INTO ledger_entries (transaction_id, booking_id, account, amount, entry_date, created_at) " +
+        "VALUES (?, ?, ?, ?, ?, CURRENT_TIMESTAMP)";
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private LedgerDailyTotalRepository dailyTotalRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${app.ledger.backfill-chunk-size:1000}")
+    private int backfillChunkSize;
+
+    /**
+     * Post settled transactions by transaction id; already posted ones are skipped
+     */
+    public void postTransactions(Collection<String> transactionIds) {
+        if (!transactionIds.isEmpty()) {
+            post(transactionRepository.findUnpostedByTransactionIds(transactionIds));
+        }
+    }
+
+    /**
+     * Post the refund rows written for a set of bookings
+     */
+    public void postRefunds(Collection<Long> bookingIds) {
+        if (!bookingIds.isEmpty()) {
+            post(transactionRepository.findUnpostedRefunds(bookingIds));
+        }
+    }
+
+    /**
+     * Post settled transactions that predate the ledger
+     * The backlog is paged by id and each page commits on its own, so a first start against
+     * a large history neither loads it all nor holds one long transaction.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void postUnposted() {
+        long afterId = 0;
+        while (true) {
+            long from = afterId;
+            Long last = transactionTemplate.execute(status -> {
+                List<Transaction> page = transactionRepository.findUnpostedAfter(from, PageRequest.of(0, backfillChunkSize));
+                post(page);
+                return page.isEmpty() ? null : page.get(page.size() - 1).getId();
+            });
+            if (last == null) {
+                break;
+            }
+            afterId = last;
+        }
+        transactionTemplate.executeWithoutResult(status -> openDays());
+    }
+
+    /**
+     * Create today's and tomorrow's rows ahead of time so concurrent postings only update them
+     */
+    @Scheduled(cron = "${app.ledger.open-days-cron:0 0 * * * *}")
+    public void openDays() {
+        LocalDate today = LocalDate.now();
+        dailyTotalRepository.insertDayIfMissing(today);
+        dailyTotalRepository.insertDayIfMissing(today.plusDays(1));
+    }
+
+    /**
+     * Net revenue posted from the first to the last day, inclusive
+     */
+    @Transactional(readOnly = true)
+    public BigDecimal getRevenueForPeriod(LocalDate startDate, LocalDate endDate) {
+        return runningTotal(endDate).subtract(runningTotal(startDate.minusDays(1)));
+    }
+
+    /**
+     * Net revenue posted so far
+     */
+    @Transactional(readOnly = true)
+    public BigDecimal getTotalRevenue() {
+        return runningTotal(LocalDate.now());
+    }
+
+    private BigDecimal runningTotal(LocalDate day) {
+        BigDecimal total = dailyTotalRepository.findRunningTotal(day);
+        return total == null ? BigDecimal.ZERO : total;
+    }
+
+    private void post(List<Transaction> transactions) {
+        if (transactions.isEmpty()) {
+            return;
+        }
+        List<Object[]> postings = new ArrayList<>(transactions.size() * 2);
+        Map<LocalDate, BigDecimal> deltas = new TreeMap<>();
+        for (Transaction transaction : transactions) {
+            LocalDate day = transaction.getTransactionDate().toLocalDate();
+            Long bookingId = transaction.getBooking().getId();
+            BigDecimal amount = transaction.getAmount();
+            postings.add(new Object[]{transaction.getTransactionId(), bookingId,
+                                      LedgerEntry.Account.CASH.name(), amount, Date.valueOf(day)});
+            postings.add(new Object[]{transaction.getTransactionId(), bookingId,
+                                      LedgerEntry.Account.REVENUE.name(), amount.negate(), Date.valueOf(day)});
+            deltas.merge(day, amount, BigDecimal::add);
+        }
+        jdbcTemplate.batchUpdate(INSERT_POSTING, postings);
+        deltas.forEach((day, delta) -> {
+            dailyTotalRepository.insertDayIfMissing(day);
+            dailyTotalRepository.addToDay(day, delta);
+            dailyTotalRepository.addToRunningTotals(day, delta);
+        });
+    }
+}
@@ -0,0 +1,84 @@
+package com.turfbooking.service;
+
+import com.turfbooking.model.Offer;
+import com.turfbooking.repository.OfferRepository;
+import com.turfbooking.util.TransactionUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Scheduled sweeper that deactivates expired and exhausted offers
+ * Keeps is_active authoritative so hot read queries can filter on it alone,
+ * and precomputes the list of offers expiring soon for notifications
+ */
+@Service
+public class OfferExpirySweeper {
+
+    private static final Logger log = LoggerFactory.getLogger(OfferExpirySweeper.class);
+
+    @Autowired
+    private OfferRepository offerRepository;
+
+    @Autowired
+    private OfferRuleEngine offerRuleEngine;
+
+    @Value("${app.offers.expiring-horizon-days:30}")
+    private int horizonDays;
+
+    private volatile List<Offer> expiring = List.of();
+    private volatile LocalDate sweptOn;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onReady() {
+        sweep();
+    }
+
+    /**
+     * Deactivate expired and used-up offers in one statement and refresh the expiring list
+     */
+    @Scheduled(cron = "${app.offers.sweep-cron:0 */5 * * * *}")
+    public void sweep() {
+        LocalDate today = LocalDate.now();
+        int deactivated = offerRepository.deactivateExpiredOffers(today);
+        if (deactivated > 0) {
+            log.info("Deactivated {} expired or exhausted offers", deactivated);
+            offerRuleEngine.reload();
+        }
+        refresh(today);
+    }
+
+    /**
+     * Refresh the expiring list once an offer change commits
+     */
+    public void offersChanged() {
+        TransactionUtil.afterCommit(() -> refresh(LocalDate.now()));
+    }
+
+    /**
+     * Offers expiring within the given days, served from the precomputed list when it covers the range
+     */
+    public List<Offer> getExpiringOffers(int days) {
+        LocalDate today = LocalDate.now();
+        if (days > horizonDays || !today.equals(sweptOn)) {
+            return offerRepository.findExpiringOffers(today, today.plusDays(days));
+        }
+        LocalDate endDate = today.plusDays(days);
+        return expiring.stream()
+            .filter(offer -> !offer.getValidUntil().isAfter(endDate))
+            .toList();
+    }
+
+    private synchronized void refresh(LocalDate today) {
+        expiring = offerRepository.findExpiringOffers(today, today.plusDays(horizonDays));
+        sweptOn = today;
+    }
+}
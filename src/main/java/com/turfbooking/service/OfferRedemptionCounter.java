@@ -0,0 +1,241 @@
+package com.turfbooking.service;
+
+import com.turfbooking.repository.OfferRepository;
+import com.turfbooking.util.TransactionUtil;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Flash-sale redemption counters for offers with a total usage limit
+ * The remaining limit is pre-allocated into striped in-memory token buckets, so
+ * concurrent redemptions do not serialize on the offers row. Consumed tokens are
+ * reconciled into offers.current_usage in batches. A token is only handed out
+ * if one exists, so redemptions never exceed the limit on this node.
+ * Pools are rebuilt from the committed user_offer_usage rows rather than
+ * current_usage, so redemptions whose reconciliation was lost in a crash are
+ * still counted. Every node would get the whole remainder, so the mode is
+ * single-node only and off by default (app.offers.sharded-redemption).
+ */
+@Service
+public class OfferRedemptionCounter {
+
+    private static final Logger log = LoggerFactory.getLogger(OfferRedemptionCounter.class);
+
+    // Stripes are spaced one cache line apart to avoid false sharing
+    private static final int PADDING = 8;
+
+    private static final String SELECT_USAGE =
+        "SELECT o.total_usage_limit, o.current_usage, " +
+        "(SELECT COUNT(*) FROM user_offer_usage u WHERE u.offer_id = o.id) FROM offers o WHERE o.id = ?";
+
+    @Autowired
+    private OfferRepository offerRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final Map<Long, OfferState> states = new ConcurrentHashMap<>();
+
+    /**
+     * Striped token buckets holding the remaining redemptions of one offer
+     */
+    static final class TokenPool {
+        private final AtomicLongArray slots;
+        private final int stripes;
+
+        TokenPool(long remaining) {
+            int wanted = Math.max(1, Runtime.getRuntime().availableProcessors());
+            int count = Integer.highestOneBit(wanted - 1) << 1;
+            this.stripes = (int) Math.max(1, Math.min(count, remaining));
+            this.slots = new AtomicLongArray(stripes * PADDING);
+            for (int i = 0; i < stripes; i++) {
+                slots.set(i * PADDING, remaining / stripes + (i < remaining % stripes ? 1 : 0));
+            }
+        }
+
+        /**
+         * Returns the stripe a token was taken from, or -1 when the pool is empty
+         */
+        int acquire() {
+            int start = (int) (Thread.currentThread().getId() % stripes);
+            for (int n = 0; n < stripes; n++) {
+                int stripe = (start + n) % stripes;
+                int index = stripe * PADDING;
+                long tokens = slots.get(index);
+                while (tokens > 0) {
+                    if (slots.compareAndSet(index, tokens, tokens - 1)) {
+                        return stripe;
+                    }
+                    tokens = slots.get(index);
+                }
+            }
+            return -1;
+        }
+
+        void release(int stripe) {
+            slots.incrementAndGet(stripe * PADDING);
+        }
+
+        long remaining() {
+            long total = 0;
+            for (int i = 0; i < stripes; i++) {
+                total += slots.get(i * PADDING);
+            }
+            return total;
+        }
+    }
+
+    /**
+     * Per-offer bookkeeping that survives pool rebuilds
+     */
+    private static final class OfferState {
+        private volatile TokenPool pool;
+        private final LongAdder inFlight = new LongAdder();
+        private final LongAdder unreconciled = new LongAdder();
+    }
+
+    /**
+     * Take one redemption token for an offer. The token is consumed when the surrounding
+     * transaction commits and handed back if it rolls back.
+     */
+    public boolean tryAcquire(Long offerId) {
+        OfferState state = states.computeIfAbsent(offerId, id -> new OfferState());
+        while (true) {
+            TokenPool pool = pool(offerId, state);
+            int stripe = pool.acquire();
+            if (stripe < 0) {
+                return false;
+            }
+            // Counted before re-checking the pool, so a concurrent rebuild either sees
+            // this token as in flight or this thread sees the new pool and retries
+            state.inFlight.increment();
+            if (pool != state.pool) {
+                state.inFlight.decrement();
+                pool.release(stripe);
+                continue;
+            }
+            TransactionUtil.afterCommit(() -> {
+                state.unreconciled.increment();
+                state.inFlight.decrement();
+            });
+            TransactionUtil.afterRollback(() -> {
+                state.inFlight.decrement();
+                pool.release(stripe);
+            });
+            return true;
+        }
+    }
+
+    /**
+     * Remaining tokens for an offer, or -1 when its pool is not loaded
+     */
+    public long remaining(Long offerId) {
+        OfferState state = states.get(offerId);
+        TokenPool pool = state == null ? null : state.pool;
+        return pool == null ? -1 : pool.remaining();
+    }
+
+    /**
+     * Drop the pool once an offer change commits so it is rebuilt from the database
+     */
+    public void offerChanged(Long offerId) {
+        TransactionUtil.afterCommit(() -> {
+            OfferState state = states.get(offerId);
+            if (state != null) {
+                synchronized (state) {
+                    state.pool = null;
+                }
+            }
+        });
+    }
+
+    /**
+     * Write consumed tokens back to offers.current_usage
+     */
+    @Scheduled(fixedDelayString = "${app.offers.reconcile-interval-ms:1000}")
+    public void reconcileAll() {
+        states.forEach(this::reconcile);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        reconcileAll();
+    }
+
+    // Holds the state lock so a pool rebuild never reads the row between reset and commit
+    private void reconcile(Long offerId, OfferState state) {
+        if (state.unreconciled.sum() == 0) {
+            return;
+        }
+        synchronized (state) {
+            long delta = state.unreconciled.sumThenReset();
+            try {
+                offerRepository.incrementUsage(offerId, (int) delta);
+            } catch (RuntimeException e) {
+                log.warn("Failed to reconcile {} redemptions for offer {}", delta, offerId, e);
+                state.unreconciled.add(delta);
+            }
+        }
+    }
+
+    private TokenPool pool(Long offerId, OfferState state) {
+        TokenPool pool = state.pool;
+        if (pool != null) {
+            return pool;
+        }
+        synchronized (state) {
+            if (state.pool == null) {
+                Usage usage = readUsage(offerId);
+                if (usage == null) {
+                    throw new RuntimeException("Offer not found with id: " + offerId);
+                }
+                if (usage.limit() == null) {
+                    state.pool = new TokenPool(Long.MAX_VALUE);
+                    return state.pool;
+                }
+                // Committed rows not yet in current_usage nor waiting on this node were lost
+                // before reconciling; queue them so the next reconcile repairs the column
+                long reconciled = usage.current() + state.unreconciled.sum();
+                long lost = usage.redeemed() - reconciled - state.inFlight.sum();
+                if (lost > 0) {
+                    log.warn("Recovering {} unreconciled redemptions for offer {}", lost, offerId);
+                    state.unreconciled.add(lost);
+                    reconciled += lost;
+                }
+                // A redemption committing meanwhile may be counted twice, which only undersells
+                long used = Math.max(reconciled, usage.redeemed()) + state.inFlight.sum();
+                state.pool = new TokenPool(Math.max(0, usage.limit() - used));
+            }
+            return state.pool;
+        }
+    }
+
+    // Read in a transaction of its own, so neither the caller's persistence context nor its
+    // snapshot can hand back a usage count older than the last reconciliation
+    private Usage readUsage(Long offerId) {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        transaction.setReadOnly(true);
+        return transaction.execute(status -> jdbcTemplate.query(SELECT_USAGE, rs -> rs.next()
+            ? new Usage(rs.getObject(1, Long.class), rs.getLong(2), rs.getLong(3)) : null, offerId));
+    }
+
+    private record Usage(Long limit, long current, long redeemed) {
+    }
+}
@@ -0,0 +1,325 @@
+package com.turfbooking.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.turfbooking.model.Offer;
+import com.turfbooking.model.Turf;
+import com.turfbooking.repository.OfferRepository;
+import com.turfbooking.util.TransactionUtil;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * In-memory rule table for coupon validation
+ * Active offers are compiled once into immutable rules and swapped in atomically,
+ * so checking a code at checkout never queries the database for the rule itself.
+ * Changes made through this node apply on commit; the whole table is also reloaded
+ * periodically to pick up edits from other nodes. Total usage changes with every
+ * redemption, so it is not compiled in but read through a UsageLookup.
+ */
+@Service
+public class OfferRuleEngine {
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+    private static final TypeReference<List<String>> STRING_LIST = new TypeReference<>() {};
+
+    @Autowired
+    private OfferRepository offerRepository;
+
+    private volatile RuleTable table;
+    private volatile long today = LocalDate.now().toEpochDay();
+
+    /**
+     * Compiled, immutable form of an active offer
+     */
+    public static final class OfferRule {
+        private final Long offerId;
+        private final String code;
+        private final String title;
+        private final EnumSet<Turf.TurfType> turfTypes;
+        private final long validFrom;
+        private final long validUntil;
+        private final BigDecimal minBookingAmount;
+        private final BigDecimal percentageFraction;
+        private final BigDecimal flatAmount;
+        private final Integer maxUsagePerUser;
+        private final Integer totalUsageLimit;
+
+        private OfferRule(Offer offer, EnumSet<Turf.TurfType> turfTypes) {
+            this.offerId = offer.getId();
+            this.code = offer.getOfferCode();
+            this.title = offer.getTitle();
+            this.turfTypes = turfTypes;
+            this.validFrom = offer.getValidFrom().toEpochDay();
+            this.validUntil = offer.getValidUntil().toEpochDay();
+            this.minBookingAmount = offer.getMinBookingAmount();
+            this.percentageFraction = offer.getDiscountPercentage() == null ? null
+                : offer.getDiscountPercentage().movePointLeft(2);
+            this.flatAmount = offer.getDiscountAmount();
+            this.maxUsagePerUser = offer.getMaxUsagePerUser();
+            this.totalUsageLimit = offer.getTotalUsageLimit();
+        }
+
+        public Long getOfferId() {
+            return offerId;
+        }
+
+        public String getCode() {
+            return code;
+        }
+
+        public String getTitle() {
+            return title;
+        }
+
+        public Integer getMaxUsagePerUser() {
+            return maxUsagePerUser;
+        }
+
+        public Integer getTotalUsageLimit() {
+            return totalUsageLimit;
+        }
+
+        public boolean isValidOn(long epochDay) {
+            return epochDay >= validFrom && epochDay <= validUntil;
+        }
+
+        /**
+         * False once an offer with a total usage limit is known to be sold out
+         */
+        public boolean hasRedemptionsLeft(UsageLookup usage) {
+            return totalUsageLimit == null || usage.remainingRedemptions(offerId) != 0;
+        }
+
+        /**
+         * A null turf type set means the offer applies to every turf type
+         */
+        public boolean appliesTo(Turf.TurfType turfType) {
+            return turfTypes == null || (turfType != null && turfTypes.contains(turfType));
+        }
+
+        public boolean meetsMinimum(BigDecimal bookingAmount) {
+            return minBookingAmount == null || bookingAmount.compareTo(minBookingAmount) >= 0;
+        }
+
+        public BigDecimal discountFor(BigDecimal bookingAmount) {
+            if (percentageFraction != null) {
+                return bookingAmount.multiply(percentageFraction);
+            }
+            return flatAmount != null ? flatAmount : BigDecimal.ZERO;
+        }
+    }
+
+    /**
+     * Usage lookup consulted when selecting the best offer
+     */
+    public interface UsageLookup {
+        int usageCount(Long userId, Long offerId);
+
+        /**
+         * Redemptions left for an offer with a total usage limit, or -1 when unknown
+         */
+        default long remainingRedemptions(Long offerId) {
+            return -1;
+        }
+    }
+
+    /**
+     * Immutable snapshot of all compiled rules
+     */
+    private static final class RuleTable {
+        private static final OfferRule[] NONE = new OfferRule[0];
+
+        private final Map<String, OfferRule> byCode;
+        private final Map<Long, OfferRule> byId;
+        private final EnumMap<Turf.TurfType, OfferRule[]> byTurfType;
+
+        private RuleTable(Collection<OfferRule> rules) {
+            Map<String, OfferRule> codes = new HashMap<>();
+            Map<Long, OfferRule> ids = new HashMap<>();
+            EnumMap<Turf.TurfType, List<OfferRule>> partitions = new EnumMap<>(Turf.TurfType.class);
+            for (Turf.TurfType type : Turf.TurfType.values()) {
+                partitions.put(type, new ArrayList<>());
+            }
+            for (OfferRule rule : rules) {
+                ids.put(rule.offerId, rule);
+                if (rule.code != null) {
+                    codes.put(rule.code, rule);
+                }
+                for (Turf.TurfType type : Turf.TurfType.values()) {
+                    if (rule.appliesTo(type)) {
+                        partitions.get(type).add(rule);
+                    }
+                }
+            }
+            this.byCode = Map.copyOf(codes);
+            this.byId = Map.copyOf(ids);
+            this.byTurfType = new EnumMap<>(Turf.TurfType.class);
+            partitions.forEach((type, list) -> byTurfType.put(type, list.toArray(NONE)));
+        }
+    }
+
+    /**
+     * Look up the compiled rule for an offer code, or null if no active offer has it
+     */
+    public OfferRule findByCode(String offerCode) {
+        return offerCode == null ? null : table().byCode.get(offerCode);
+    }
+
+    /**
+     * Pick the offer giving the largest discount for a turf type, amount, user and date
+     */
+    public OfferRule findBestOffer(Turf.TurfType turfType, BigDecimal bookingAmount, Long userId,
+                                   long epochDay, UsageLookup usage) {
+        if (turfType == null || bookingAmount == null) {
+            return null;
+        }
+        OfferRule best = null;
+        BigDecimal bestDiscount = BigDecimal.ZERO;
+        for (OfferRule rule : table().byTurfType.get(turfType)) {
+            if (!rule.isValidOn(epochDay) || !rule.meetsMinimum(bookingAmount)) {
+                continue;
+            }
+            if (userId != null && rule.maxUsagePerUser != null
+                && usage.usageCount(userId, rule.offerId) >= rule.maxUsagePerUser) {
+                continue;
+            }
+            if (!rule.hasRedemptionsLeft(usage)) {
+                continue;
+            }
+            BigDecimal discount = rule.discountFor(bookingAmount).min(bookingAmount);
+            if (discount.compareTo(bestDiscount) > 0) {
+                best = rule;
+                bestDiscount = discount;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Current date as an epoch day, refreshed by the clock tick
+     */
+    public long today() {
+        return today;
+    }
+
+    /**
+     * Parse a turf type name, returning null for unknown names instead of substring-matching
+     */
+    public static Turf.TurfType parseTurfType(String turfType) {
+        if (turfType == null) {
+            return null;
+        }
+        try {
+            return Turf.TurfType.valueOf(turfType);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Recompile a single offer once the surrounding transaction commits
+     */
+    public void offerChanged(Offer offer) {
+        OfferRule rule = Boolean.TRUE.equals(offer.getIsActive()) ? compile(offer) : null;
+        Long offerId = offer.getId();
+        TransactionUtil.afterCommit(() -> replace(offerId, rule));
+    }
+
+    /**
+     * Remove an offer from the table once the surrounding transaction commits
+     */
+    public void offerDeleted(Long offerId) {
+        TransactionUtil.afterCommit(() -> replace(offerId, null));
+    }
+
+    /**
+     * Rebuild the whole table from the database
+     */
+    public synchronized void reload() {
+        List<OfferRule> rules = offerRepository.findByIsActiveTrue().stream()
+            .map(OfferRuleEngine::compile)
+            .toList();
+        table = new RuleTable(rules);
+    }
+
+    /**
+     * Pick up offers changed on other nodes or directly in the database
+     */
+    @Scheduled(fixedDelayString = "${app.offers.rule-reload-interval-ms:60000}",
+               initialDelayString = "${app.offers.rule-reload-interval-ms:60000}")
+    public void refresh() {
+        reload();
+    }
+
+    @Scheduled(fixedRate = 60_000)
+    public void tickClock() {
+        today = LocalDate.now().toEpochDay();
+    }
+
+    private RuleTable table() {
+        RuleTable current = table;
+        if (current == null) {
+            synchronized (this) {
+                if (table == null) {
+                    reload();
+                }
+                current = table;
+            }
+        }
+        return current;
+    }
+
+    private synchronized void replace(Long offerId, OfferRule rule) {
+        Map<Long, OfferRule> rules = new HashMap<>(table().byId);
+        if (rule == null) {
+            rules.remove(offerId);
+        } else {
+            rules.put(offerId, rule);
+        }
+        table = new RuleTable(rules.values());
+    }
+
+    private static OfferRule compile(Offer offer) {
+        return new OfferRule(offer, parseTurfTypes(offer.getApplicableTurfTypes()));
+    }
+
+    /**
+     * Parse an applicable turf types JSON array, returning null when the offer applies to every type
+     */
+    public static EnumSet<Turf.TurfType> parseTurfTypes(String applicableTurfTypes) {
+        if (applicableTurfTypes == null || applicableTurfTypes.isBlank()) {
+            return null;
+        }
+        EnumSet<Turf.TurfType> types = EnumSet.noneOf(Turf.TurfType.class);
+        try {
+            for (String name : JSON.readValue(applicableTurfTypes, STRING_LIST)) {
+                Turf.TurfType type = parseTurfType(name.trim());
+                if (type != null) {
+                    types.add(type);
+                }
+            }
+        } catch (JsonProcessingException e) {
+            // Tolerate legacy comma-separated values
+            for (String name : applicableTurfTypes.split(",")) {
+                Turf.TurfType type = parseTurfType(name.replace("\"", "").trim());
+                if (type != null) {
+                    types.add(type);
+                }
+            }
+        }
+        return types;
+    }
+}
@@ -1,15 +1,28 @@
 package com.turfbooking.service;
 
+import com.turfbooking.model.Booking;
 import com.turfbooking.model.Offer;
+import com.turfbooking.model.Transaction;
+import com.turfbooking.repository.BookingRepository;
 import com.turfbooking.repository.OfferRepository;
+import com.turfbooking.repository.TransactionRepository;
+import com.turfbooking.repository.UserOfferUsageRepository;
+import com.turfbooking.repository.UserRepository;
+import com.turfbooking.util.TransactionUtil;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.time.LocalDate;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.Optional;
 
@@ -24,6 +37,56 @@ public class OfferService {
     @Autowired
     private OfferRepository offerRepository;
     
+    @Autowired
+    private OfferRuleEngine offerRuleEngine;
+    
+    @Autowired
+    private OfferUsageCache offerUsageCache;
+    
+    @Autowired
+    private OfferRedemptionCounter offerRedemptionCounter;
+    
+    @Autowired
+    private OfferExpirySweeper offerExpirySweeper;
+    
+    @Value("${app.offers.sharded-redemption:false}")
+    private boolean shardedRedemption;
+    
+    @Autowired
+    private UserOfferUsageRepository userOfferUsageRepository;
+    
+    @Autowired
+    private BookingRepository bookingRepository;
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    @Autowired
+    private TransactionRepository transactionRepository;
+    
+    @Autowired
+    private AnalyticsRollupService analyticsRollupService;
+    
+    /**
+     * Live usage for the compiled rules: per-user counts from the cache, and the total usage
+     * left from this node's redemption tokens when sharded, otherwise from the offers row
+     */
+    private final OfferRuleEngine.UsageLookup usageLookup = new OfferRuleEngine.UsageLookup() {
+        @Override
+        public int usageCount(Long userId, Long offerId) {
+            return offerUsageCache.usageCount(userId, offerId);
+        }
+        
+        @Override
+        public long remainingRedemptions(Long offerId) {
+            long remaining = shardedRedemption ? offerRedemptionCounter.remaining(offerId) : -1;
+            if (remaining >= 0) {
+                return remaining;
+            }
+            return offerRepository.findRemainingUsage(offerId).map(left -> Math.max(0L, left)).orElse(-1L);
+        }
+    };
+    
     /**
      * Get all offers
      */
@@ -63,9 +126,7 @@ public class OfferService {
      * Get expiring offers
      */
     public List<Offer> getExpiringOffers(int days) {
-        LocalDate currentDate = LocalDate.now();
-        LocalDate endDate = currentDate.plusDays(days);
-        return offerRepository.findExpiringOffers(currentDate, endDate);
+        return offerExpirySweeper.getExpiringOffers(days);
     }
     
     /**
@@ -98,7 +159,25 @@ public class OfferService {
             throw new RuntimeException("Offer code already exists: " + offer.getOfferCode());
         }
         
-        return offerRepository.save(offer);
+        offer.setNormalizedTurfTypes(OfferRuleEngine.parseTurfTypes(offer.getApplicableTurfTypes()));
+        Offer saved = offerRepository.save(offer);
+        offerRuleEngine.offerChanged(saved);
+        offerExpirySweeper.offersChanged();
+        return saved;
+    }
+    
+    /**
+     * Copy applicable turf types JSON of existing offers into offer_turf_types
+     * Blank lists of older rows are cleared to null, matching how new offers are stored
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrateTurfTypes() {
+        for (Offer offer : offerRepository.findOffersWithoutNormalizedTurfTypes()) {
+            if (offer.getApplicableTurfTypes().isBlank()) {
+                offer.setApplicableTurfTypes(null);
+            }
+            offer.setNormalizedTurfTypes(OfferRuleEngine.parseTurfTypes(offer.getApplicableTurfTypes()));
+        }
     }
     
     /**
@@ -120,8 +199,13 @@ public class OfferService {
         offer.setTotalUsageLimit(offerDetails.getTotalUsageLimit());
         offer.setIsActive(offerDetails.getIsActive());
         offer.setApplicableTurfTypes(offerDetails.getApplicableTurfTypes());
+        offer.setNormalizedTurfTypes(OfferRuleEngine.parseTurfTypes(offerDetails.getApplicableTurfTypes()));
         
-        return offerRepository.save(offer);
+        Offer saved = offerRepository.save(offer);
+        offerRuleEngine.offerChanged(saved);
+        offerExpirySweeper.offersChanged();
+        offerRedemptionCounter.offerChanged(id);
+        return saved;
     }
     
     /**
@@ -132,7 +216,10 @@ public class OfferService {
             .orElseThrow(() -> new RuntimeException("Offer not found with id: " + id));
         
         offer.setIsActive(!offer.getIsActive());
-        return offerRepository.save(offer);
+        Offer saved = offerRepository.save(offer);
+        offerRuleEngine.offerChanged(saved);
+        offerExpirySweeper.offersChanged();
+        return saved;
     }
     
     /**
@@ -143,41 +230,41 @@ public class OfferService {
             throw new RuntimeException("Offer not found with id: " + id);
         }
         offerRepository.deleteById(id);
+        offerRuleEngine.offerDeleted(id);
+        offerExpirySweeper.offersChanged();
+        offerRedemptionCounter.offerChanged(id);
     }
     
     /**
      * Apply offer to booking amount
+     * Answered from the cached rules, so no transaction is opened
      */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public BigDecimal applyOffer(String offerCode, BigDecimal bookingAmount, String turfType) {
-        Optional<Offer> offerOpt = offerRepository.findByOfferCode(offerCode);
+        OfferRuleEngine.OfferRule rule = offerRuleEngine.findByCode(offerCode);
         
-        if (!offerOpt.isPresent()) {
+        if (rule == null) {
             throw new RuntimeException("Invalid offer code: " + offerCode);
         }
         
-        Offer offer = offerOpt.get();
-        
-        if (!offer.isValid()) {
+        if (!rule.isValidOn(offerRuleEngine.today()) || !rule.hasRedemptionsLeft(usageLookup)) {
             throw new RuntimeException("Offer is not valid or has expired");
         }
         
         // Check if offer is applicable to turf type
-        if (offer.getApplicableTurfTypes() != null && 
-            !offer.getApplicableTurfTypes().contains(turfType)) {
+        if (!rule.appliesTo(OfferRuleEngine.parseTurfType(turfType))) {
             throw new RuntimeException("Offer is not applicable to this turf type");
         }
         
         // Check minimum booking amount
-        if (offer.getMinBookingAmount() != null && 
-            bookingAmount.compareTo(offer.getMinBookingAmount()) < 0) {
+        if (!rule.meetsMinimum(bookingAmount)) {
             throw new RuntimeException("Minimum booking amount not met for this offer");
         }
         
-        BigDecimal discountAmount = offer.calculateDiscount(bookingAmount);
-        BigDecimal finalAmount = bookingAmount.subtract(discountAmount);
+        BigDecimal finalAmount = bookingAmount.subtract(rule.discountFor(bookingAmount));
         
         // Ensure final amount is not negative
-        if (finalAmount.compareTo(BigDecimal.ZERO) < 0) {
+        if (finalAmount.signum() < 0) {
             finalAmount = BigDecimal.ZERO;
         }
         
@@ -187,15 +274,27 @@ public class OfferService {
     /**
      * Calculate discount amount for offer
      */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public BigDecimal calculateDiscountAmount(String offerCode, BigDecimal bookingAmount) {
-        Optional<Offer> offerOpt = offerRepository.findByOfferCode(offerCode);
+        OfferRuleEngine.OfferRule rule = offerRuleEngine.findByCode(offerCode);
         
-        if (!offerOpt.isPresent()) {
+        if (rule == null || bookingAmount == null || !rule.isValidOn(offerRuleEngine.today())
+            || !rule.meetsMinimum(bookingAmount) || !rule.hasRedemptionsLeft(usageLookup)) {
             return BigDecimal.ZERO;
         }
         
-        Offer offer = offerOpt.get();
-        return offer.calculateDiscount(bookingAmount);
+        return rule.discountFor(bookingAmount);
+    }
+    
+    /**
+     * Find the offer giving the largest discount for a booking
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Optional<OfferRuleEngine.OfferRule> findBestOffer(String turfType, BigDecimal bookingAmount,
+                                                          Long userId, LocalDate bookingDate) {
+        long epochDay = bookingDate == null ? offerRuleEngine.today() : bookingDate.toEpochDay();
+        return Optional.ofNullable(offerRuleEngine.findBestOffer(
+            OfferRuleEngine.parseTurfType(turfType), bookingAmount, userId, epochDay, usageLookup));
     }
     
     /**
@@ -203,11 +302,63 @@ public class OfferService {
      */
     @Transactional
     public void useOffer(Long offerId) {
-        Offer offer = offerRepository.findById(offerId)
-            .orElseThrow(() -> new RuntimeException("Offer not found with id: " + offerId));
+        if (offerRepository.incrementUsageIfAvailable(offerId) == 0) {
+            throw new RuntimeException("Offer usage limit reached");
+        }
+    }
+    
+    /**
+     * Redeem an offer against a booking, enforcing the per-user usage limit
+     * The user's row is locked first, so a user's redemptions run one at a time and the
+     * usage count checked by the insert cannot change underneath it. Only a pending,
+     * unpaid booking without an offer can be discounted.
+     */
+    @Transactional
+    public Booking redeemOffer(String offerCode, Long userId, Long bookingId) {
+        userRepository.lockById(userId)
+            .orElseThrow(() -> new RuntimeException("User not found with id: " + userId));
+        Booking booking = bookingRepository.findByIdForUpdate(bookingId)
+            .orElseThrow(() -> new RuntimeException("Booking not found with id: " + bookingId));
+        
+        if (!booking.getUser().getId().equals(userId)) {
+            throw new RuntimeException("You can only apply offers to your own bookings");
+        }
+        
+        if (booking.getStatus() != Booking.BookingStatus.PENDING
+            || transactionRepository.existsByBookingIdAndPaymentStatusIn(bookingId,
+                   EnumSet.of(Transaction.PaymentStatus.PENDING, Transaction.PaymentStatus.SUCCESS))) {
+            throw new RuntimeException("Offers can only be applied to pending, unpaid bookings");
+        }
+        
+        if (userOfferUsageRepository.existsByBookingId(bookingId)) {
+            throw new RuntimeException("An offer has already been applied to this booking");
+        }
+        
+        BigDecimal finalAmount = applyOffer(offerCode, booking.getTotalAmount(),
+                                            booking.getTurf().getTurfType().name());
+        OfferRuleEngine.OfferRule rule = offerRuleEngine.findByCode(offerCode);
+        Long offerId = rule.getOfferId();
+        
+        // Fast rejection from the cached counter, then the authoritative conditional insert
+        if (!offerUsageCache.tryReserve(userId, offerId, rule.getMaxUsagePerUser())) {
+            throw new RuntimeException("Offer usage limit reached for this user");
+        }
+        TransactionUtil.afterRollback(() -> offerUsageCache.invalidate(userId, offerId));
+        
+        if (userOfferUsageRepository.insertIfUnderLimit(userId, offerId, bookingId) == 0) {
+            throw new RuntimeException("Offer usage limit reached for this user");
+        }
+        
+        // Flash sales take a pre-allocated token instead of locking the offers row
+        if (!shardedRedemption) {
+            useOffer(offerId);
+        } else if (!offerRedemptionCounter.tryAcquire(offerId)) {
+            throw new RuntimeException("Offer usage limit reached");
+        }
         
-        offer.incrementUsage();
-        offerRepository.save(offer);
+        booking.setTotalAmount(finalAmount.setScale(2, RoundingMode.HALF_UP));
+        analyticsRollupService.bookingsChanged(List.of(bookingId));
+        return bookingRepository.save(booking);
     }
     
     /**
@@ -256,6 +407,7 @@ public class OfferService {
     /**
      * Validate offer code
      */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public boolean validateOfferCode(String offerCode, BigDecimal bookingAmount, String turfType) {
         try {
             applyOffer(offerCode, bookingAmount, turfType);
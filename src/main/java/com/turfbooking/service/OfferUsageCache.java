@@ -0,0 +1,75 @@
+package com.turfbooking.service;
+
+import com.turfbooking.repository.UserOfferUsageRepository;
+import com.turfbooking.util.BitMix;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Write-through cache of per-user offer usage counters
+ * Lets checkout enforce maxUsagePerUser without a COUNT query per redemption.
+ * Counters are loaded from user_offer_usage on first access; the database
+ * conditional insert remains the final authority.
+ */
+@Service
+public class OfferUsageCache implements OfferRuleEngine.UsageLookup {
+
+    @Autowired
+    private UserOfferUsageRepository userOfferUsageRepository;
+
+    @Value("${app.offers.usage-cache-size:100000}")
+    private int maxEntries;
+
+    private final ConcurrentHashMap<Long, AtomicInteger> counts = new ConcurrentHashMap<>();
+
+    @Override
+    public int usageCount(Long userId, Long offerId) {
+        return counter(userId, offerId).get();
+    }
+
+    /**
+     * Reserve one use of an offer for a user if the limit allows it
+     */
+    public boolean tryReserve(Long userId, Long offerId, Integer limit) {
+        AtomicInteger count = counter(userId, offerId);
+        while (true) {
+            int current = count.get();
+            if (limit != null && current >= limit) {
+                return false;
+            }
+            if (count.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Forget a counter so it is reloaded from the database
+     */
+    public void invalidate(Long userId, Long offerId) {
+        counts.remove(key(userId, offerId));
+    }
+
+    private AtomicInteger counter(Long userId, Long offerId) {
+        long key = key(userId, offerId);
+        AtomicInteger count = counts.get(key);
+        if (count != null) {
+            return count;
+        }
+        if (counts.size() >= maxEntries) {
+            counts.clear();
+        }
+        AtomicInteger loaded = new AtomicInteger(
+            (int) userOfferUsageRepository.countByUserIdAndOfferId(userId, offerId));
+        AtomicInteger existing = counts.putIfAbsent(key, loaded);
+        return existing != null ? existing : loaded;
+    }
+
+    private static long key(Long userId, Long offerId) {
+        return BitMix.pack(userId, offerId);
+    }
+}
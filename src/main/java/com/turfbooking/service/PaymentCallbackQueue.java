@@ -0,0 +1,247 @@
+package com.turfbooking.service;
+
+import com.turfbooking.model.Transaction;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Ingestion queue for payment gateway callbacks
+ * Callbacks are deduplicated by transaction id while queued and applied by a single
+ * thread in JDBC batches, one transaction per batch. Status updates only move PENDING
+ * transactions, so redelivered callbacks are no-ops. A failed batch is retried one
+ * callback at a time, so only a callback that keeps failing is dead-lettered; the others
+ * are queued again with a growing backoff.
+ */
+@Service
+public class PaymentCallbackQueue {
+
+    private static final Logger log = LoggerFactory.getLogger(PaymentCallbackQueue.class);
+
+    // Size of transactions.gateway_response
+    static final int MAX_RESPONSE_LENGTH = 1000;
+
+    private static final long MAX_BACKOFF_MS = 30_000;
+
+    private static final String UPDATE_TRANSACTION =
+        "UPDATE transactions SET payment_status = ?, gateway_response = ? " +
+        "WHERE transaction_id = ? AND payment_status = 'PENDING'";
+
+    private static final String CONFIRM_BOOKING =
+        "UPDATE bookings SET status = 'CONFIRMED', updated_at = CURRENT_TIMESTAMP " +
+        "WHERE id = (SELECT booking_id FROM transactions WHERE transaction_id = ?) AND status = 'PENDING'";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private LedgerService ledgerService;
+
+    @Autowired
+    private AnalyticsRollupService analyticsRollupService;
+
+    @Autowired
+    private UserFinanceService userFinanceService;
+
+    @Value("${app.payments.callback-batch-size:500}")
+    private int batchSize;
+
+    @Value("${app.payments.callback-queue-capacity:100000}")
+    private int capacity;
+
+    @Value("${app.payments.callback-max-attempts:20}")
+    private int maxAttempts;
+
+    @Value("${app.payments.callback-retry-backoff-ms:100}")
+    private long retryBackoffMs;
+
+    private final Map<String, Callback> pending = new ConcurrentHashMap<>();
+    // Failed attempts per queued callback; only touched by the writer thread
+    private final Map<String, Integer> attempts = new HashMap<>();
+    private final Map<String, Callback> deadLetters = new ConcurrentHashMap<>();
+    private LinkedBlockingQueue<String> queue;
+    private final LongAdder applied = new LongAdder();
+    private volatile boolean running = true;
+    private Thread writer;
+
+    /**
+     * A final payment status reported by the gateway
+     */
+    public record Callback(String transactionId, Transaction.PaymentStatus status, String response) {
+    }
+
+    @PostConstruct
+    public void start() {
+        queue = new LinkedBlockingQueue<>(capacity);
+        writer = new Thread(this::drain, "payment-callback-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        writer.join(TimeUnit.SECONDS.toMillis(5));
+    }
+
+    /**
+     * Queue a callback; returns false when the queue is full and the gateway should retry
+     */
+    public boolean submit(Callback callback) {
+        if (callback.status() != Transaction.PaymentStatus.SUCCESS
+            && callback.status() != Transaction.PaymentStatus.FAILED) {
+            throw new RuntimeException("Callback status must be SUCCESS or FAILED");
+        }
+        if (callback.response() != null && callback.response().length() > MAX_RESPONSE_LENGTH) {
+            throw new RuntimeException("Callback response must not exceed " + MAX_RESPONSE_LENGTH + " characters");
+        }
+        if (pending.putIfAbsent(callback.transactionId(), callback) != null) {
+            // Already queued; the duplicate is dropped
+            return true;
+        }
+        if (!queue.offer(callback.transactionId())) {
+            pending.remove(callback.transactionId(), callback);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Number of callbacks waiting to be applied
+     */
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    /**
+     * Number of transactions moved out of PENDING by callbacks since startup
+     */
+    public long getAppliedCount() {
+        return applied.sum();
+    }
+
+    /**
+     * Callbacks given up on after repeated failures, by transaction id
+     */
+    public Map<String, Callback> getDeadLetters() {
+        return Map.copyOf(deadLetters);
+    }
+
+    private void drain() {
+        List<String> batch = new ArrayList<>(batchSize);
+        int failures = 0;
+        while (running || !queue.isEmpty()) {
+            try {
+                String first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                List<Callback> callbacks = new ArrayList<>(batch.size());
+                for (String transactionId : batch) {
+                    Callback callback = pending.get(transactionId);
+                    if (callback != null) {
+                        callbacks.add(callback);
+                    }
+                }
+                try {
+                    applied.add(apply(callbacks));
+                    callbacks.forEach(this::done);
+                    failures = 0;
+                } catch (RuntimeException e) {
+                    log.warn("Failed to apply {} payment callbacks, retrying them one at a time", callbacks.size(), e);
+                    if (!retryEach(callbacks)) {
+                        failures++;
+                        Thread.sleep(Math.min(MAX_BACKOFF_MS, retryBackoffMs << Math.min(failures - 1, 20)));
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    // Applies each callback in a transaction of its own; returns false if any is queued again
+    private boolean retryEach(List<Callback> callbacks) {
+        boolean allSettled = true;
+        for (Callback callback : callbacks) {
+            try {
+                applied.add(apply(List.of(callback)));
+                done(callback);
+            } catch (RuntimeException e) {
+                int failed = attempts.merge(callback.transactionId(), 1, Integer::sum);
+                // A row the database rejects, such as an oversized value, fails the same way every time
+                boolean retryable = !(e instanceof DataIntegrityViolationException) && failed < maxAttempts;
+                if (retryable && queue.offer(callback.transactionId())) {
+                    allSettled = false;
+                } else {
+                    // Already acknowledged to the gateway, so it is kept for an operator to replay
+                    log.error("Dead-lettering payment callback for {} after {} attempts: {}",
+                              callback.transactionId(), failed, callback, e);
+                    deadLetters.put(callback.transactionId(), callback);
+                    done(callback);
+                }
+            }
+        }
+        return allSettled;
+    }
+
+    private void done(Callback callback) {
+        attempts.remove(callback.transactionId());
+        pending.remove(callback.transactionId(), callback);
+    }
+
+    // Returns the number of transactions moved out of PENDING
+    private int apply(List<Callback> callbacks) {
+        return transactionTemplate.execute(status -> {
+            int[][] updated = jdbcTemplate.batchUpdate(UPDATE_TRANSACTION, callbacks, batchSize, (ps, callback) -> {
+                ps.setString(1, callback.status().name());
+                ps.setString(2, callback.response());
+                ps.setString(3, callback.transactionId());
+            });
+            List<String> confirmed = new ArrayList<>();
+            List<String> changed = new ArrayList<>();
+            int index = 0;
+            for (int[] counts : updated) {
+                for (int count : counts) {
+                    Callback callback = callbacks.get(index++);
+                    if (count > 0) {
+                        changed.add(callback.transactionId());
+                        if (callback.status() == Transaction.PaymentStatus.SUCCESS) {
+                            confirmed.add(callback.transactionId());
+                        }
+                    }
+                }
+            }
+            jdbcTemplate.batchUpdate(CONFIRM_BOOKING, confirmed, batchSize,
+                                     (ps, transactionId) -> ps.setString(1, transactionId));
+            ledgerService.postTransactions(confirmed);
+            analyticsRollupService.transactionsChanged(changed);
+            userFinanceService.transactionsChanged(changed);
+            return changed.size();
+        });
+    }
+}
@@ -0,0 +1,33 @@
+package com.turfbooking.service;
+
+import com.turfbooking.model.Transaction;
+
+import java.math.BigDecimal;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Payment gateway adapter
+ * Implementations must not block the calling thread; the returned future completes
+ * when the gateway answers, and is called outside any database transaction.
+ */
+public interface PaymentGateway {
+
+    /**
+     * A charge for one pending transaction
+     */
+    record PaymentRequest(String transactionId, BigDecimal amount, Transaction.PaymentMethod method,
+                          String details) {
+    }
+
+    /**
+     * The gateway's answer; the response is stored on the transaction as is
+     * PENDING means the gateway accepted the charge and reports the outcome by callback
+     */
+    record PaymentResult(Transaction.PaymentStatus status, String response) {
+    }
+
+    /**
+     * Charge a payment
+     */
+    CompletableFuture<PaymentResult> charge(PaymentRequest request);
+}
@@ -0,0 +1,324 @@
+package com.turfbooking.service;
+
+import com.turfbooking.model.Booking;
+import com.turfbooking.model.ReconciliationDiscrepancy;
+import com.turfbooking.model.ReconciliationRun;
+import com.turfbooking.model.Transaction;
+import com.turfbooking.repository.BookingRepository;
+import com.turfbooking.repository.ReconciliationDiscrepancyRepository;
+import com.turfbooking.repository.ReconciliationRunRepository;
+import com.turfbooking.repository.TransactionRepository;
+import com.turfbooking.util.TransactionUtil;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Reconciliation of booking statuses against their payments
+ * Bookings and transactions are read as two cursors sorted by booking id and merge-joined,
+ * so a pass holds one booking's payments at a time however many rows there are. Findings
+ * are written in batches, together with the run's counters and, when auto-fix is on, the
+ * set-based fixes for the batch. Each batch commits on its own while the cursors stay open.
+ */
+@Service
+public class PaymentReconciler {
+
+    private static final Logger log = LoggerFactory.getLogger(PaymentReconciler.class);
+
+    private static final String INSERT_DISCREPANCY =
+        "INSERT INTO reconciliation_discrepancies (run_id, booking_id, type, booking_status, paid_amount, " +
+        "transaction_count) VALUES (?, ?, ?, ?, ?, ?)";
+
+    @Autowired
+    private ReconciliationRunRepository runRepository;
+
+    @Autowired
+    private ReconciliationDiscrepancyRepository discrepancyRepository;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private AnalyticsRollupService analyticsRollupService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${app.reconciliation.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${app.reconciliation.max-reported:100000}")
+    private long maxReported;
+
+    @Value("${app.reconciliation.auto-fix:false}")
+    private boolean scheduledAutoFix;
+
+    private TransactionTemplate readOnlyTemplate;
+    private TransactionTemplate batchTemplate;
+    private ExecutorService runner;
+
+    @PostConstruct
+    public void start() {
+        readOnlyTemplate = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        readOnlyTemplate.setReadOnly(true);
+        // Batches commit independently of the read-only transaction holding the cursors
+        batchTemplate = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        batchTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        runner = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "payment-reconciler");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        runner.shutdownNow();
+        runner.awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Start a reconciliation pass, or return the one already running
+     * With auto-fix, paid pending bookings are confirmed and paid cancelled bookings refunded
+     */
+    public synchronized ReconciliationRun startRun(boolean autoFix) {
+        ReconciliationRun running = runRepository.findFirstByStatus(ReconciliationRun.Status.RUNNING).orElse(null);
+        if (running != null) {
+            return running;
+        }
+        ReconciliationRun run = runRepository.save(new ReconciliationRun(autoFix));
+        TransactionUtil.afterCommit(() -> runner.execute(() -> run(run.getId(), autoFix)));
+        return run;
+    }
+
+    /**
+     * Nightly pass; auto-fix follows app.reconciliation.auto-fix
+     */
+    @Scheduled(cron = "${app.reconciliation.cron:0 30 3 * * *}")
+    public void scheduledRun() {
+        startRun(scheduledAutoFix);
+    }
+
+    /**
+     * Get a run for progress reporting
+     */
+    public ReconciliationRun getRun(Long runId) {
+        return runRepository.findById(runId)
+            .orElseThrow(() -> new RuntimeException("Reconciliation run not found with id: " + runId));
+    }
+
+    /**
+     * Get the most recent runs
+     */
+    public List<ReconciliationRun> getRecentRuns() {
+        return runRepository.findTop50ByOrderByIdDesc();
+    }
+
+    /**
+     * Get a page of a run's discrepancies
+     */
+    public Page<ReconciliationDiscrepancy> getDiscrepancies(Long runId, int page, int size) {
+        getRun(runId);
+        return discrepancyRepository.findByRunIdOrderById(runId, PageRequest.of(page, size));
+    }
+
+    /**
+     * Fail runs that were in progress when the application stopped; a new pass starts from scratch
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void failInterruptedRuns() {
+        transactionTemplate.executeWithoutResult(status -> {
+            for (ReconciliationRun run : runRepository.findByStatus(ReconciliationRun.Status.RUNNING)) {
+                run.setStatus(ReconciliationRun.Status.FAILED);
+                run.setErrorMessage("Interrupted by shutdown");
+                run.setFinishedAt(LocalDateTime.now());
+            }
+        });
+    }
+
+    private void run(Long runId, boolean autoFix) {
+        long started = System.currentTimeMillis();
+        Scan scan = new Scan(runId, autoFix);
+        try {
+            readOnlyTemplate.executeWithoutResult(status -> {
+                try (Stream<Object[]> bookings = bookingRepository.streamForReconciliation();
+                     Stream<Object[]> payments = transactionRepository.streamForReconciliation()) {
+                    merge(bookings.iterator(), payments.iterator(), scan);
+                }
+            });
+            scan.flush(ReconciliationRun.Status.COMPLETED, null);
+            log.info("Reconciliation run {} checked {} bookings and {} transactions in {} ms: {} discrepancies",
+                     runId, scan.bookings, scan.transactions, System.currentTimeMillis() - started, scan.found());
+        } catch (RuntimeException e) {
+            log.error("Reconciliation run {} failed", runId, e);
+            String message = String.valueOf(e.getMessage());
+            scan.flush(ReconciliationRun.Status.FAILED, message.length() > 500 ? message.substring(0, 500) : message);
+        }
+    }
+
+    // Both cursors are ordered by booking id; payments of a booking are consumed before moving past it
+    private void merge(Iterator<Object[]> bookings, Iterator<Object[]> payments, Scan scan) {
+        Object[] payment = payments.hasNext() ? payments.next() : null;
+        while (bookings.hasNext()) {
+            if (Thread.currentThread().isInterrupted()) {
+                throw new RuntimeException("Reconciliation interrupted");
+            }
+            Object[] booking = bookings.next();
+            long bookingId = (Long) booking[0];
+            int transactionCount = 0;
+            int settled = 0;
+            BigDecimal paid = BigDecimal.ZERO;
+            while (payment != null && (Long) payment[0] <= bookingId) {
+                if ((Long) payment[0] == bookingId) {
+                    BigDecimal amount = (BigDecimal) payment[2];
+                    transactionCount++;
+                    if (payment[1] == Transaction.PaymentStatus.SUCCESS && amount.signum() > 0) {
+                        settled++;
+                        paid = paid.add(amount);
+                    }
+                }
+                scan.transactions++;
+                payment = payments.hasNext() ? payments.next() : null;
+            }
+            scan.bookings++;
+
+            Booking.BookingStatus status = (Booking.BookingStatus) booking[1];
+            ReconciliationDiscrepancy.Type type = classify(status, settled > 0, Boolean.TRUE.equals(booking[2]));
+            if (type != null) {
+                scan.add(bookingId, type, status, paid, transactionCount);
+            }
+            if (scan.bookings % batchSize == 0) {
+                scan.flush(ReconciliationRun.Status.RUNNING, null);
+            }
+        }
+        while (payment != null) {
+            scan.transactions++;
+            payment = payments.hasNext() ? payments.next() : null;
+        }
+    }
+
+    private static ReconciliationDiscrepancy.Type classify(Booking.BookingStatus status, boolean paid,
+                                                           boolean tournamentMatch) {
+        return switch (status) {
+            case PENDING -> paid ? ReconciliationDiscrepancy.Type.PAID_NOT_CONFIRMED : null;
+            // Match reservations are confirmed by the organiser and carry no payment
+            case CONFIRMED, COMPLETED -> paid || tournamentMatch ? null
+                : ReconciliationDiscrepancy.Type.CONFIRMED_WITHOUT_PAYMENT;
+            case CANCELLED -> paid ? ReconciliationDiscrepancy.Type.CANCELLED_NOT_REFUNDED : null;
+        };
+    }
+
+    // Findings since the last flush plus the run totals; only touched by the runner thread
+    private final class Scan {
+        private final Long runId;
+        private final boolean autoFix;
+        private final List<Object[]> rows = new ArrayList<>();
+        private final List<Long> toConfirm = new ArrayList<>();
+        private final List<Long> toRefund = new ArrayList<>();
+        private long bookings;
+        private long transactions;
+        private long paidNotConfirmed;
+        private long confirmedWithoutPayment;
+        private long cancelledNotRefunded;
+        private long confirmed;
+        private long refunded;
+
+        Scan(Long runId, boolean autoFix) {
+            this.runId = runId;
+            this.autoFix = autoFix;
+        }
+
+        long found() {
+            return paidNotConfirmed + confirmedWithoutPayment + cancelledNotRefunded;
+        }
+
+        void add(long bookingId, ReconciliationDiscrepancy.Type type, Booking.BookingStatus status,
+                 BigDecimal paid, int transactionCount) {
+            switch (type) {
+                case PAID_NOT_CONFIRMED -> {
+                    paidNotConfirmed++;
+                    toConfirm.add(bookingId);
+                }
+                case CONFIRMED_WITHOUT_PAYMENT -> confirmedWithoutPayment++;
+                case CANCELLED_NOT_REFUNDED -> {
+                    cancelledNotRefunded++;
+                    toRefund.add(bookingId);
+                }
+            }
+            // Past the report limit only the counters keep growing
+            if (found() <= maxReported) {
+                rows.add(new Object[]{runId, bookingId, type.name(), status.name(), paid, transactionCount});
+            }
+        }
+
+        // Writes pending findings, applies their fixes and saves the counters in one transaction
+        void flush(ReconciliationRun.Status status, String errorMessage) {
+            batchTemplate.executeWithoutResult(tx -> {
+                if (!rows.isEmpty()) {
+                    jdbcTemplate.batchUpdate(INSERT_DISCREPANCY, rows);
+                }
+                if (autoFix && status != ReconciliationRun.Status.FAILED) {
+                    // Both fixes re-check the rows, so bookings that changed since they were scanned are left alone
+                    if (!toConfirm.isEmpty()) {
+                        confirmed += bookingRepository.confirmPaidBookings(toConfirm);
+                        analyticsRollupService.bookingsChanged(List.copyOf(toConfirm));
+                    }
+                    if (!toRefund.isEmpty()) {
+                        List<Long> cancelled = bookingRepository.findIdsByStatus(toRefund, Booking.BookingStatus.CANCELLED);
+                        if (!cancelled.isEmpty()) {
+                            refunded += transactionService.processRefunds(cancelled);
+                        }
+                    }
+                }
+                runRepository.findById(runId).ifPresent(run -> {
+                    run.setStatus(status);
+                    run.setErrorMessage(errorMessage);
+                    run.setScannedBookings(bookings);
+                    run.setScannedTransactions(transactions);
+                    run.setPaidNotConfirmed(paidNotConfirmed);
+                    run.setConfirmedWithoutPayment(confirmedWithoutPayment);
+                    run.setCancelledNotRefunded(cancelledNotRefunded);
+                    run.setConfirmedBookings(confirmed);
+                    run.setRefundedTransactions(refunded);
+                    if (status != ReconciliationRun.Status.RUNNING) {
+                        run.setFinishedAt(LocalDateTime.now());
+                    }
+                });
+            });
+            rows.clear();
+            toConfirm.clear();
+            toRefund.clear();
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.turfbooking.service;
+
+import com.turfbooking.repository.ReviewRepository;
+import com.turfbooking.util.BitMix;
+import com.turfbooking.util.LongBloomFilter;
+import com.turfbooking.util.LongHashSet;
+import com.turfbooking.util.TransactionUtil;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory index of which users have reviewed which turfs
+ * Keys are (userId, turfId) packed into a long; a Bloom filter answers most
+ * "not reviewed" checks before the exact hash set is consulted
+ */
+@Service
+public class ReviewMembershipIndex {
+
+    private static final double FALSE_POSITIVE_RATE = 0.01;
+    private static final int MIN_CAPACITY = 10_000;
+
+    @Autowired
+    private ReviewRepository reviewRepository;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private LongHashSet reviewed = new LongHashSet();
+    private LongBloomFilter bloom = new LongBloomFilter(MIN_CAPACITY, FALSE_POSITIVE_RATE);
+    private long bloomCapacity = MIN_CAPACITY;
+    private volatile boolean ready;
+    // Bumped under the write lock on every add, so a removal can tell whether its query went stale
+    private volatile long additions;
+
+    /**
+     * Load all (user, turf) review pairs at startup
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warm() {
+        lock.writeLock().lock();
+        try {
+            List<Object[]> pairs = reviewRepository.findAllUserTurfPairs();
+            LongHashSet set = new LongHashSet(pairs.size());
+            for (Object[] pair : pairs) {
+                Long userId = (Long) pair[0];
+                Long turfId = (Long) pair[1];
+                if (BitMix.fitsPacked(userId) && BitMix.fitsPacked(turfId)) {
+                    set.add(BitMix.pack(userId, turfId));
+                }
+            }
+            reviewed = set;
+            rebuildBloom();
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Check if user has reviewed turf; falls back to the database until warmed
+     */
+    public boolean hasUserReviewedTurf(Long userId, Long turfId) {
+        if (!ready || !BitMix.fitsPacked(userId) || !BitMix.fitsPacked(turfId)) {
+            return reviewRepository.hasUserReviewedTurf(userId, turfId);
+        }
+        long key = BitMix.pack(userId, turfId);
+        lock.readLock().lock();
+        try {
+            return bloom.mightContain(key) && reviewed.contains(key);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Record a new review once the creating transaction commits
+     */
+    public void reviewCreated(Long userId, Long turfId) {
+        if (!BitMix.fitsPacked(userId) || !BitMix.fitsPacked(turfId)) {
+            return;
+        }
+        long key = BitMix.pack(userId, turfId);
+        TransactionUtil.afterCommit(() -> add(key));
+    }
+
+    /**
+     * Drop a review once the deleting transaction commits, unless another review remains
+     */
+    public void reviewDeleted(Long userId, Long turfId) {
+        if (!BitMix.fitsPacked(userId) || !BitMix.fitsPacked(turfId)) {
+            return;
+        }
+        long key = BitMix.pack(userId, turfId);
+        TransactionUtil.afterCommit(() -> remove(key, userId, turfId));
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return reviewed.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Query without the lock; retry if a review was added meanwhile, since it may be this pair
+    private void remove(long key, Long userId, Long turfId) {
+        while (true) {
+            long seen = additions;
+            boolean remains = reviewRepository.hasUserReviewedTurf(userId, turfId);
+            lock.writeLock().lock();
+            try {
+                if (additions == seen) {
+                    if (!remains) {
+                        reviewed.remove(key);
+                    }
+                    return;
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    private void add(long key) {
+        lock.writeLock().lock();
+        try {
+            additions++;
+            if (reviewed.add(key)) {
+                if (reviewed.size() > bloomCapacity) {
+                    rebuildBloom();
+                } else {
+                    bloom.put(key);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Bloom filters cannot delete, so the filter is rebuilt with headroom whenever it fills up
+     */
+    private void rebuildBloom() {
+        bloomCapacity = Math.max(MIN_CAPACITY, (long) reviewed.size() * 2);
+        LongBloomFilter filter = new LongBloomFilter(bloomCapacity, FALSE_POSITIVE_RATE);
+        reviewed.forEach(filter::put);
+        bloom = filter;
+    }
+}
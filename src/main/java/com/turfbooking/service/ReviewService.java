@@ -15,6 +15,8 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.util.List;
 import java.util.Optional;
 
@@ -39,7 +41,10 @@ public class ReviewService {
     private BookingRepository bookingRepository;
     
     @Autowired
-    private TurfService turfService;
+    private TurfRatingUpdater turfRatingUpdater;
+    
+    @Autowired
+    private ReviewMembershipIndex reviewMembershipIndex;
     
     /**
      * Create new review
@@ -61,7 +66,7 @@ public class ReviewService {
         }
         
         // Check if user has already reviewed this turf
-        if (reviewRepository.hasUserReviewedTurf(userId, turfId)) {
+        if (reviewMembershipIndex.hasUserReviewedTurf(userId, turfId)) {
             throw new RuntimeException("You have already reviewed this turf");
         }
         
@@ -84,9 +89,11 @@ public class ReviewService {
         // Create review
         Review review = new Review(user, turf, booking, rating, reviewText);
         review = reviewRepository.save(review);
+        reviewMembershipIndex.reviewCreated(userId, turfId);
         
         // Update turf rating
-        turfService.updateTurfRating(turfId);
+        turfRatingUpdater.requestUpdate(turfId);
+        showProjectedRating(review, turfId);
         
         return review;
     }
@@ -114,7 +121,9 @@ public class ReviewService {
         review = reviewRepository.save(review);
         
         // Update turf rating
-        turfService.updateTurfRating(review.getTurf().getId());
+        Long turfId = review.getTurf().getId();
+        turfRatingUpdater.requestUpdate(turfId);
+        showProjectedRating(review, turfId);
         
         return review;
     }
@@ -134,9 +143,23 @@ public class ReviewService {
         
         Long turfId = review.getTurf().getId();
         reviewRepository.delete(review);
+        reviewMembershipIndex.reviewDeleted(userId, turfId);
         
         // Update turf rating
-        turfService.updateTurfRating(turfId);
+        turfRatingUpdater.requestUpdate(turfId);
+    }
+    
+    /**
+     * Reflect the reviewer's own change in the returned review without touching the turf;
+     * the persisted rating is refreshed asynchronously by TurfRatingUpdater
+     */
+    private void showProjectedRating(Review review, Long turfId) {
+        Double averageRating = reviewRepository.calculateAverageRating(turfId);
+        Long reviewCount = reviewRepository.countReviewsForTurf(turfId);
+        
+        review.setProjectedTurfRating(averageRating == null ? BigDecimal.ZERO
+            : BigDecimal.valueOf(averageRating).setScale(2, RoundingMode.HALF_UP));
+        review.setProjectedTurfReviews(reviewCount == null ? 0 : reviewCount.intValue());
     }
     
     /**
@@ -245,7 +268,7 @@ public class ReviewService {
      * Check if user has reviewed turf
      */
     public boolean hasUserReviewedTurf(Long userId, Long turfId) {
-        return reviewRepository.hasUserReviewedTurf(userId, turfId);
+        return reviewMembershipIndex.hasUserReviewedTurf(userId, turfId);
     }
     
     /**
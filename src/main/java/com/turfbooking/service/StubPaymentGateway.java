@@ -0,0 +1,58 @@
+package com.turfbooking.service;
+
+import com.turfbooking.model.Transaction;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Local payment gateway for development and load testing
+ * Answers after a configurable delay without holding a thread, and fails a configurable share of charges.
+ * In callback mode it accepts charges right away and delivers the outcome through the callback queue.
+ */
+@Service
+@ConditionalOnProperty(name = "app.payments.gateway", havingValue = "stub", matchIfMissing = true)
+public class StubPaymentGateway implements PaymentGateway {
+
+    @Value("${app.payments.stub.latency-ms:200}")
+    private long latencyMs;
+
+    @Value("${app.payments.stub.failure-rate:0.1}")
+    private double failureRate;
+
+    @Value("${app.payments.stub.callback-mode:false}")
+    private boolean callbackMode;
+
+    @Autowired
+    private PaymentCallbackQueue callbackQueue;
+
+    @Override
+    public CompletableFuture<PaymentResult> charge(PaymentRequest request) {
+        Executor delayed = CompletableFuture.delayedExecutor(latencyMs, TimeUnit.MILLISECONDS);
+        if (callbackMode) {
+            CompletableFuture.runAsync(() -> {
+                PaymentResult outcome = outcome();
+                callbackQueue.submit(new PaymentCallbackQueue.Callback(
+                    request.transactionId(), outcome.status(), outcome.response()));
+            }, delayed);
+            return CompletableFuture.completedFuture(new PaymentResult(
+                Transaction.PaymentStatus.PENDING, "{\"status\":\"accepted\",\"message\":\"Payment accepted\"}"));
+        }
+        return CompletableFuture.supplyAsync(this::outcome, delayed);
+    }
+
+    private PaymentResult outcome() {
+        if (ThreadLocalRandom.current().nextDouble() < failureRate) {
+            return new PaymentResult(Transaction.PaymentStatus.FAILED,
+                                     "{\"status\":\"failed\",\"message\":\"Payment processing failed\"}");
+        }
+        return new PaymentResult(Transaction.PaymentStatus.SUCCESS,
+                                 "{\"status\":\"success\",\"message\":\"Payment processed successfully\"}");
+    }
+}
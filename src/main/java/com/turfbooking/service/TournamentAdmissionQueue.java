@@ -0,0 +1,350 @@
+package com.turfbooking.service;
+
+import com.turfbooking.model.Tournament;
+import com.turfbooking.model.TournamentRegistration;
+import com.turfbooking.model.User;
+import com.turfbooking.repository.TournamentRegistrationRepository;
+import com.turfbooking.repository.TournamentRepository;
+import com.turfbooking.repository.TournamentWaitlistRepository;
+import com.turfbooking.repository.UserRepository;
+import com.turfbooking.util.TeamRoster;
+import com.turfbooking.util.TransactionUtil;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Admission queue for tournament registrations
+ * Seats are handed out from an in-memory counter per tournament, so requests beyond
+ * the free seats are rejected without touching the database. Admitted requests are
+ * queued in arrival order and written by a single thread in batches, one transaction
+ * per tournament per batch.
+ */
+@Service
+public class TournamentAdmissionQueue {
+
+    private static final Logger log = LoggerFactory.getLogger(TournamentAdmissionQueue.class);
+
+    @Autowired
+    private TournamentRepository tournamentRepository;
+
+    @Autowired
+    private TournamentRegistrationRepository registrationRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+    
+    @Autowired
+    private TournamentWaitlistRepository waitlistRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private UpcomingTournamentFeed upcomingFeed;
+
+    @Value("${app.tournaments.admission-batch-size:200}")
+    private int batchSize;
+
+    private final Map<Long, Seats> seats = new ConcurrentHashMap<>();
+    private final LinkedBlockingQueue<Admission> queue = new LinkedBlockingQueue<>();
+    private volatile boolean running = true;
+    private Thread writer;
+
+    /**
+     * Free seats of one tournament and the users currently queued for it
+     * Entries are kept for the life of the process so the queued users survive a resync;
+     * a stale counter is recomputed from the database minus the seats still held in the queue.
+     */
+    private static final class Seats {
+        private final AtomicInteger free = new AtomicInteger();
+        private final AtomicInteger held = new AtomicInteger();
+        private final Set<Long> queuedUsers = ConcurrentHashMap.newKeySet();
+        private volatile boolean stale;
+    }
+
+    /**
+     * A registration request holding a seat while it waits for the writer
+     */
+    private record Admission(Long tournamentId, Long userId, String teamName, String teamMembers,
+                             String contactPhone, CompletableFuture<TournamentRegistration> result,
+                             AtomicBoolean settled) {
+    }
+
+    @PostConstruct
+    public void start() {
+        writer = new Thread(this::drain, "tournament-admission-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        writer.interrupt();
+        writer.join(TimeUnit.SECONDS.toMillis(5));
+        for (Admission admission; (admission = queue.poll()) != null; ) {
+            reject(admission, "Registration service is shutting down");
+        }
+    }
+
+    /**
+     * Take a seat and queue a registration; the future completes once it is written
+     */
+    public CompletableFuture<TournamentRegistration> submit(Long tournamentId, Long userId, String teamName,
+                                                           String teamMembers, String contactPhone) {
+        Seats tournamentSeats = seats(tournamentId);
+        if (!tournamentSeats.queuedUsers.add(userId)) {
+            return CompletableFuture.failedFuture(
+                new RuntimeException("You are already registered for this tournament"));
+        }
+        if (!takeSeat(tournamentSeats)) {
+            tournamentSeats.queuedUsers.remove(userId);
+            return CompletableFuture.failedFuture(new RuntimeException("Tournament is full"));
+        }
+        tournamentSeats.held.incrementAndGet();
+        Admission admission = new Admission(tournamentId, userId, teamName, teamMembers, contactPhone,
+                                            new CompletableFuture<>(), new AtomicBoolean());
+        queue.add(admission);
+        return admission.result();
+    }
+
+    /**
+     * Return a seat once a cancelled registration commits
+     */
+    public void seatFreed(Long tournamentId) {
+        TransactionUtil.afterCommit(() -> {
+            Seats tournamentSeats = seats.get(tournamentId);
+            if (tournamentSeats != null) {
+                tournamentSeats.free.incrementAndGet();
+            }
+        });
+    }
+
+    /**
+     * Mark the seat counter stale once a tournament change commits so it is resynced
+     */
+    public void tournamentChanged(Long tournamentId) {
+        TransactionUtil.afterCommit(() -> markStale(tournamentId));
+    }
+
+    /**
+     * Number of registrations waiting for the writer
+     */
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    // Loads outside the map so the query never runs under a map bin lock
+    private Seats seats(Long tournamentId) {
+        Seats tournamentSeats = seats.get(tournamentId);
+        if (tournamentSeats == null) {
+            Seats loaded = new Seats();
+            loaded.free.set(freeSeats(tournamentId));
+            Seats raced = seats.putIfAbsent(tournamentId, loaded);
+            return raced != null ? raced : loaded;
+        }
+        if (tournamentSeats.stale) {
+            synchronized (tournamentSeats) {
+                if (tournamentSeats.stale) {
+                    // Cleared first so a change during the read marks it again. A seat taken
+                    // meanwhile may be counted free once; the writer's own check rejects it.
+                    tournamentSeats.stale = false;
+                    tournamentSeats.free.set(freeSeats(tournamentId) - tournamentSeats.held.get());
+                }
+            }
+        }
+        return tournamentSeats;
+    }
+
+    private int freeSeats(Long tournamentId) {
+        Tournament tournament = tournamentRepository.findById(tournamentId)
+            .orElseThrow(() -> new RuntimeException("Tournament not found with id: " + tournamentId));
+        return tournament.getMaxTeams() - tournament.getRegisteredTeams();
+    }
+
+    private void markStale(Long tournamentId) {
+        Seats tournamentSeats = seats.get(tournamentId);
+        if (tournamentSeats != null) {
+            tournamentSeats.stale = true;
+        }
+    }
+
+    private static boolean takeSeat(Seats tournamentSeats) {
+        while (true) {
+            int free = tournamentSeats.free.get();
+            if (free <= 0) {
+                return false;
+            }
+            if (tournamentSeats.free.compareAndSet(free, free - 1)) {
+                return true;
+            }
+        }
+    }
+
+    private void drain() {
+        List<Admission> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                Admission first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                // Seats of a batch being written are no longer held by the queue; they are
+                // counted by the database once written or returned when rejected
+                for (Admission admission : batch) {
+                    seats.get(admission.tournamentId()).held.decrementAndGet();
+                }
+                // Group by tournament while keeping arrival order within each group
+                Map<Long, List<Admission>> byTournament = new LinkedHashMap<>();
+                for (Admission admission : batch) {
+                    byTournament.computeIfAbsent(admission.tournamentId(), id -> new ArrayList<>()).add(admission);
+                }
+                byTournament.forEach(this::write);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("Tournament admission batch failed", e);
+                batch.forEach(admission -> reject(admission, "Registration failed, please try again"));
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void write(Long tournamentId, List<Admission> admissions) {
+        Map<Admission, String> rejected = new LinkedHashMap<>();
+        Map<Admission, TournamentRegistration> written;
+        try {
+            written = transactionTemplate.execute(status -> insert(tournamentId, admissions, rejected));
+        } catch (RuntimeException e) {
+            log.warn("Failed to write {} registrations for tournament {}", admissions.size(), tournamentId, e);
+            admissions.forEach(admission -> reject(admission, "Registration failed, please try again"));
+            return;
+        }
+        if (!written.isEmpty()) {
+            upcomingFeed.invalidate();
+        }
+        Seats tournamentSeats = seats.get(tournamentId);
+        written.forEach((admission, registration) -> {
+            if (admission.settled().compareAndSet(false, true)) {
+                tournamentSeats.queuedUsers.remove(admission.userId());
+                admission.result().complete(registration);
+            }
+        });
+        rejected.forEach(this::reject);
+    }
+
+    private Map<Admission, TournamentRegistration> insert(Long tournamentId, List<Admission> admissions,
+                                                          Map<Admission, String> rejected) {
+        Map<Admission, TournamentRegistration> written = new LinkedHashMap<>();
+        Tournament tournament = tournamentRepository.findById(tournamentId).orElse(null);
+        if (tournament == null || !tournament.isRegistrationOpen()) {
+            admissions.forEach(admission -> rejected.put(admission, "Registration is closed for this tournament"));
+            return written;
+        }
+
+        List<Long> userIds = admissions.stream().map(Admission::userId).toList();
+        Map<Long, User> users = userRepository.findAllById(userIds).stream()
+            .collect(Collectors.toMap(User::getId, Function.identity()));
+        Set<Long> registered = new HashSet<>(registrationRepository.findRegisteredUserIds(tournamentId, userIds));
+        Map<Admission, Set<String>> rosters = new LinkedHashMap<>();
+        Set<String> batchPlayers = new HashSet<>();
+        for (Admission admission : admissions) {
+            Set<String> roster = TeamRoster.playerKeys(admission.teamMembers());
+            rosters.put(admission, roster);
+            batchPlayers.addAll(roster);
+        }
+        // One indexed lookup for every player in the batch
+        Set<String> players = batchPlayers.isEmpty() ? new HashSet<>()
+            : new HashSet<>(registrationRepository.findRegisteredPlayerKeys(tournamentId, batchPlayers));
+
+        // The database count stays authoritative if the seat counter drifted
+        int free = tournament.getMaxTeams() - tournament.getRegisteredTeams();
+        List<TournamentRegistration> registrations = new ArrayList<>();
+        for (Admission admission : admissions) {
+            User user = users.get(admission.userId());
+            if (registrations.size() >= free) {
+                rejected.put(admission, "Tournament is full");
+            } else if (user == null) {
+                rejected.put(admission, "User not found with id: " + admission.userId());
+            } else if (registered.contains(admission.userId())) {
+                rejected.put(admission, "You are already registered for this tournament");
+            } else {
+                Set<String> roster = rosters.get(admission);
+                Set<String> shared = new LinkedHashSet<>(roster);
+                shared.retainAll(players);
+                registered.add(admission.userId());
+                players.addAll(roster);
+                TournamentRegistration registration = new TournamentRegistration(
+                    tournament, user, admission.teamName(), admission.teamMembers(), admission.contactPhone());
+                registration.setPlayerKeys(roster);
+                registration.setSharedPlayers(shared);
+                registrations.add(registration);
+                written.put(admission, registration);
+            }
+        }
+
+        // Seats are taken against the row's current count, which also locks it. If another node
+        // took some since the tournament was read, take what is left one at a time.
+        int admitted = registrations.size();
+        if (admitted > 0 && tournamentRepository.adjustRegisteredTeams(tournamentId, admitted) == 0) {
+            admitted = 0;
+            while (admitted < registrations.size() && tournamentRepository.adjustRegisteredTeams(tournamentId, 1) == 1) {
+                admitted++;
+            }
+            List<Admission> inOrder = new ArrayList<>(written.keySet());
+            for (Admission admission : inOrder.subList(admitted, inOrder.size())) {
+                written.remove(admission);
+                rejected.put(admission, "Tournament is full");
+            }
+            registrations = registrations.subList(0, admitted);
+        }
+        registrationRepository.saveAll(registrations);
+        if (!registrations.isEmpty()) {
+            waitlistRepository.deleteByTournamentIdAndUserIds(tournamentId,
+                registrations.stream().map(registration -> registration.getUser().getId()).toList());
+        }
+        // The loaded entity is left alone; writing its count back would overwrite the update above
+        return written;
+    }
+
+    // Settles an admission once, so a batch failing after part of it completed returns no seat twice
+    private void reject(Admission admission, String message) {
+        if (!admission.settled().compareAndSet(false, true)) {
+            return;
+        }
+        Seats tournamentSeats = seats.get(admission.tournamentId());
+        tournamentSeats.queuedUsers.remove(admission.userId());
+        tournamentSeats.free.incrementAndGet();
+        if ("Tournament is full".equals(message)) {
+            // Counter was ahead of the database; resync it on the next request
+            tournamentSeats.stale = true;
+        }
+        admission.result().completeExceptionally(new RuntimeException(message));
+    }
+}
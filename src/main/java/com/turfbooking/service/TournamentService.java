@@ -1,12 +1,23 @@
 package com.turfbooking.service;
 
+import com.turfbooking.model.Booking;
 import com.turfbooking.model.Tournament;
+import com.turfbooking.model.TournamentMatch;
 import com.turfbooking.model.TournamentRegistration;
+import com.turfbooking.model.TournamentWaitlistEntry;
+import com.turfbooking.model.Turf;
 import com.turfbooking.model.User;
+import com.turfbooking.repository.BookingRepository;
+import com.turfbooking.repository.TournamentMatchRepository;
 import com.turfbooking.repository.TournamentRepository;
 import com.turfbooking.repository.TournamentRegistrationRepository;
+import com.turfbooking.repository.TournamentWaitlistRepository;
+import com.turfbooking.repository.TurfRepository;
 import com.turfbooking.repository.UserRepository;
+import com.turfbooking.util.TeamRoster;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -15,8 +26,16 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Service class for Tournament entity operations
@@ -35,6 +54,36 @@ public class TournamentService {
     @Autowired
     private UserRepository userRepository;
     
+    @Autowired
+    private TournamentWaitlistRepository waitlistRepository;
+    
+    @Autowired
+    private TournamentAdmissionQueue admissionQueue;
+    
+    @Autowired
+    private TournamentMatchRepository matchRepository;
+    
+    @Autowired
+    private TurfRepository turfRepository;
+    
+    @Autowired
+    private BookingRepository bookingRepository;
+    
+    @Autowired
+    private BookingService bookingService;
+    
+    @Autowired
+    private FixtureEngine fixtureEngine;
+    
+    @Autowired
+    private UpcomingTournamentFeed upcomingFeed;
+    
+    @Autowired
+    private BulkRefundEngine bulkRefundEngine;
+    
+    @Autowired
+    private AnalyticsRollupService analyticsRollupService;
+    
     /**
      * Get all tournaments
      */
@@ -130,6 +179,7 @@ public class TournamentService {
         tournament.setStatus(Tournament.TournamentStatus.UPCOMING);
         tournament.setRegisteredTeams(0);
         
+        upcomingFeed.invalidate();
         return tournamentRepository.save(tournament);
     }
     
@@ -156,6 +206,8 @@ public class TournamentService {
         tournament.setContactInfo(tournamentDetails.getContactInfo());
         tournament.setImageUrl(tournamentDetails.getImageUrl());
         
+        admissionQueue.tournamentChanged(id);
+        upcomingFeed.invalidate();
         return tournamentRepository.save(tournament);
     }
     
@@ -170,75 +222,248 @@ public class TournamentService {
             throw new RuntimeException("Cannot cancel completed tournament");
         }
         
+        if (tournament.getStatus() != Tournament.TournamentStatus.CANCELLED) {
+            bulkRefundEngine.startTournamentRefund(id);
+        }
+        
         tournament.setStatus(Tournament.TournamentStatus.CANCELLED);
+        upcomingFeed.invalidate();
         return tournamentRepository.save(tournament);
     }
     
     /**
      * Register team for tournament
+     * Requests take a seat from the admission queue and are written in batches;
+     * the future fails if the tournament is full, closed or the user is already registered
+     */
+    public CompletableFuture<TournamentRegistration> registerTeam(Long tournamentId, Long userId, String teamName, 
+                                                                 String teamMembers, String contactPhone) {
+        return admissionQueue.submit(tournamentId, userId, teamName, teamMembers, contactPhone);
+    }
+    
+    /**
+     * Cancel team registration
      */
     @Transactional
-    public TournamentRegistration registerTeam(Long tournamentId, Long userId, String teamName, 
-                                             String teamMembers, String contactPhone) {
+    public void cancelRegistration(Long registrationId, Long userId) {
+        TournamentRegistration registration = registrationRepository.findById(registrationId)
+            .orElseThrow(() -> new RuntimeException("Registration not found with id: " + registrationId));
+        
+        // Check if user owns this registration
+        if (!registration.getUser().getId().equals(userId)) {
+            throw new RuntimeException("You can only cancel your own registrations");
+        }
+        
+        Tournament tournament = registration.getTournament();
+        
+        // Check if tournament has started
+        if (tournament.getTournamentDate().isBefore(LocalDate.now()) || 
+            tournament.getStatus() != Tournament.TournamentStatus.UPCOMING) {
+            throw new RuntimeException("Cannot cancel registration for started or completed tournaments");
+        }
+        
+        registrationRepository.delete(registration);
+        
+        // Hand the freed seat to the head of the waitlist, otherwise release it
+        if (!promoteWaitlistHead(tournament.getId())) {
+            tournamentRepository.adjustRegisteredTeams(tournament.getId(), -1);
+            admissionQueue.seatFreed(tournament.getId());
+            upcomingFeed.invalidate();
+        }
+    }
+    
+    /**
+     * Join the waitlist of a full tournament
+     */
+    public TournamentWaitlistEntry joinWaitlist(Long tournamentId, Long userId, String teamName,
+                                                String teamMembers, String contactPhone) {
         Tournament tournament = tournamentRepository.findById(tournamentId)
             .orElseThrow(() -> new RuntimeException("Tournament not found with id: " + tournamentId));
         
         User user = userRepository.findById(userId)
             .orElseThrow(() -> new RuntimeException("User not found with id: " + userId));
         
-        // Check if registration is open
-        if (!tournament.isRegistrationOpen()) {
+        if (tournament.getStatus() != Tournament.TournamentStatus.UPCOMING ||
+            (tournament.getRegistrationDeadline() != null &&
+             !LocalDate.now().isBefore(tournament.getRegistrationDeadline()))) {
             throw new RuntimeException("Registration is closed for this tournament");
         }
         
-        // Check if tournament is full
-        if (tournament.isFull()) {
-            throw new RuntimeException("Tournament is full");
+        if (!tournament.isFull()) {
+            throw new RuntimeException("Tournament has free seats, register instead");
         }
         
-        // Check if user is already registered
         if (registrationRepository.isUserRegisteredForTournament(userId, tournamentId)) {
             throw new RuntimeException("You are already registered for this tournament");
         }
         
-        // Create registration
-        TournamentRegistration registration = new TournamentRegistration(
-            tournament, user, teamName, teamMembers, contactPhone);
-        registration = registrationRepository.save(registration);
-        
-        // Update tournament registered teams count
-        tournament.incrementRegisteredTeams();
-        tournamentRepository.save(tournament);
+        if (waitlistRepository.findByTournamentIdAndUserId(tournamentId, userId).isPresent()) {
+            throw new RuntimeException("You are already on the waitlist for this tournament");
+        }
         
-        return registration;
+        return waitlistRepository.save(new TournamentWaitlistEntry(
+            tournament, user, teamName, teamMembers, contactPhone));
     }
     
     /**
-     * Cancel team registration
+     * Player keys of a team member list that another team of the tournament already lists
+     * Names are not unique, so callers report these as a warning
      */
-    @Transactional
-    public void cancelRegistration(Long registrationId, Long userId) {
-        TournamentRegistration registration = registrationRepository.findById(registrationId)
-            .orElseThrow(() -> new RuntimeException("Registration not found with id: " + registrationId));
+    public Set<String> getSharedPlayers(Long tournamentId, String teamMembers) {
+        Set<String> roster = TeamRoster.playerKeys(teamMembers);
+        return roster.isEmpty() ? Set.of()
+            : new LinkedHashSet<>(registrationRepository.findRegisteredPlayerKeys(tournamentId, roster));
+    }
+    
+    /**
+     * Get a user's 1-based position on a tournament's waitlist
+     */
+    public long getWaitlistPosition(Long tournamentId, Long userId) {
+        TournamentWaitlistEntry entry = waitlistRepository.findByTournamentIdAndUserId(tournamentId, userId)
+            .orElseThrow(() -> new RuntimeException("You are not on the waitlist for this tournament"));
+        return waitlistRepository.countAhead(tournamentId, entry.getId()) + 1;
+    }
+    
+    /**
+     * Leave a tournament's waitlist
+     */
+    public void leaveWaitlist(Long tournamentId, Long userId) {
+        TournamentWaitlistEntry entry = waitlistRepository.findByTournamentIdAndUserId(tournamentId, userId)
+            .orElseThrow(() -> new RuntimeException("You are not on the waitlist for this tournament"));
+        waitlistRepository.delete(entry);
+    }
+    
+    /**
+     * Turn the head of a waitlist into a registration, keeping the seat count unchanged
+     * The head is locked and removed with a conditional delete before it is promoted, so
+     * concurrent cancellations promote different entries; returns false when the waitlist is empty
+     */
+    private boolean promoteWaitlistHead(Long tournamentId) {
+        while (true) {
+            Optional<TournamentWaitlistEntry> head = waitlistRepository.findFirstByTournamentIdOrderByIdAsc(tournamentId);
+            if (head.isEmpty()) {
+                return false;
+            }
+            TournamentWaitlistEntry entry = head.get();
+            if (waitlistRepository.deleteEntry(entry.getId()) == 1) {
+                TournamentRegistration registration = new TournamentRegistration(
+                    entry.getTournament(), entry.getUser(), entry.getTeamName(),
+                    entry.getTeamMembers(), entry.getContactPhone());
+                registrationRepository.save(registration);
+                return true;
+            }
+        }
+    }
+    
+    /**
+     * Generate fixtures from the paid registrations and reserve a turf slot for every match
+     * Registrations are seeded in payment order; all bookings are created in this transaction.
+     * The turfs stay locked from reading their bookings until commit, as in createBooking.
+     */
+    public List<TournamentMatch> generateFixtures(Long tournamentId, Long organizerId, FixtureEngine.Format format,
+                                                  List<Long> turfIds, int matchMinutes, int days,
+                                                  int groupSize, int advancePerGroup) {
+        Tournament tournament = tournamentRepository.findById(tournamentId)
+            .orElseThrow(() -> new RuntimeException("Tournament not found with id: " + tournamentId));
         
-        // Check if user owns this registration
-        if (!registration.getUser().getId().equals(userId)) {
-            throw new RuntimeException("You can only cancel your own registrations");
+        if (tournament.getStatus() != Tournament.TournamentStatus.UPCOMING) {
+            throw new RuntimeException("Fixtures can only be generated for upcoming tournaments");
         }
         
-        Tournament tournament = registration.getTournament();
+        if (matchRepository.existsByTournamentId(tournamentId)) {
+            throw new RuntimeException("Fixtures have already been generated for this tournament");
+        }
         
-        // Check if tournament has started
-        if (tournament.getTournamentDate().isBefore(LocalDate.now()) || 
-            tournament.getStatus() != Tournament.TournamentStatus.UPCOMING) {
-            throw new RuntimeException("Cannot cancel registration for started or completed tournaments");
+        if (matchMinutes <= 0 || matchMinutes >= 24 * 60 || days <= 0) {
+            throw new RuntimeException("Invalid match duration or number of days");
         }
         
-        registrationRepository.delete(registration);
+        User organizer = userRepository.findById(organizerId)
+            .orElseThrow(() -> new RuntimeException("User not found with id: " + organizerId));
+        
+        List<Turf> turfs = turfIds.isEmpty() ? List.of() : turfRepository.findAllByIdForUpdate(turfIds);
+        if (turfIds.isEmpty() || turfs.size() != new HashSet<>(turfIds).size()) {
+            throw new RuntimeException("One or more turfs were not found");
+        }
+        for (Turf turf : turfs) {
+            if (!turf.getIsActive() || (turf.getTurfType() != tournament.getTurfType() &&
+                                        turf.getTurfType() != Turf.TurfType.MULTI_SPORT)) {
+                throw new RuntimeException("Turf cannot host this tournament: " + turf.getName());
+            }
+        }
+        
+        List<TournamentRegistration> teams = registrationRepository.findPaidRegistrationsByTournament(tournamentId);
+        List<FixtureEngine.Fixture> fixtures = fixtureEngine.generate(format, teams.size(), groupSize, advancePerGroup);
+        
+        LocalDate firstDay = tournament.getTournamentDate();
+        List<Booking> existing = bookingRepository.findActiveBookingsForTurfs(
+            turfIds, firstDay, firstDay.plusDays(days - 1));
+        List<FixtureEngine.Slot> slots = fixtureEngine.pack(fixtures, fixtureEngine.freeSlots(
+            turfs, firstDay, days, tournament.getStartTime(), tournament.getEndTime(), matchMinutes, existing));
         
-        // Update tournament registered teams count
-        tournament.decrementRegisteredTeams();
-        tournamentRepository.save(tournament);
+        Map<Long, Turf> turfById = turfs.stream().collect(Collectors.toMap(Turf::getId, Function.identity()));
+        List<Booking> bookings = new ArrayList<>(fixtures.size());
+        List<TournamentMatch> matches = new ArrayList<>(fixtures.size());
+        for (int i = 0; i < fixtures.size(); i++) {
+            FixtureEngine.Fixture fixture = fixtures.get(i);
+            FixtureEngine.Slot slot = slots.get(i);
+            Turf turf = turfById.get(slot.turfId());
+            
+            Booking booking = new Booking(organizer, turf, slot.date(), slot.startTime(), slot.endTime(), 1,
+                bookingService.calculateBookingAmount(turf.getPricePerHour(), slot.startTime(), slot.endTime()));
+            booking.setStatus(Booking.BookingStatus.CONFIRMED);
+            booking.setSpecialRequests(tournament.getName() + " - match " + fixture.matchNumber());
+            bookings.add(booking);
+            
+            TournamentMatch match = new TournamentMatch();
+            match.setTournament(tournament);
+            match.setRound(fixture.round());
+            match.setMatchNumber(fixture.matchNumber());
+            match.setStage(fixture.stage());
+            match.setGroupName(fixture.groupName());
+            match.setHomeRegistration(fixture.homeTeam() != null ? teams.get(fixture.homeTeam()) : null);
+            match.setAwayRegistration(fixture.awayTeam() != null ? teams.get(fixture.awayTeam()) : null);
+            match.setHomeLabel(fixture.homeLabel());
+            match.setAwayLabel(fixture.awayLabel());
+            match.setBooking(booking);
+            match.setTurfId(turf.getId());
+            match.setMatchDate(slot.date());
+            match.setStartTime(slot.startTime());
+            match.setEndTime(slot.endTime());
+            matches.add(match);
+        }
+        
+        bookingRepository.saveAll(bookings);
+        analyticsRollupService.bookingsChanged(bookings.stream().map(Booking::getId).toList());
+        return matchRepository.saveAll(matches);
+    }
+    
+    /**
+     * Get a tournament's fixtures in playing order
+     */
+    public List<TournamentMatch> getFixtures(Long tournamentId) {
+        return matchRepository.findByTournamentIdOrderByMatchNumberAsc(tournamentId);
+    }
+    
+    /**
+     * Get the registrations a player is part of, newest tournament first
+     */
+    public List<TournamentRegistration> getPlayerRegistrations(String playerName) {
+        String playerKey = TeamRoster.playerKey(playerName);
+        if (playerKey == null) {
+            throw new RuntimeException("Player name is required");
+        }
+        return registrationRepository.findByPlayerKey(playerKey);
+    }
+    
+    /**
+     * Copy team members of existing registrations into team_members
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrateTeamMembers() {
+        for (TournamentRegistration registration : registrationRepository.findRegistrationsWithoutPlayerKeys()) {
+            registration.getPlayerKeys().addAll(TeamRoster.playerKeys(registration.getTeamMembers()));
+        }
     }
     
     /**
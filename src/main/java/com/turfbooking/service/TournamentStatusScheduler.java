@@ -0,0 +1,52 @@
+package com.turfbooking.service;
+
+import com.turfbooking.repository.TournamentRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+
+/**
+ * Scheduled job that moves tournaments UPCOMING -> ONGOING -> COMPLETED
+ * Each transition is one set-based update, so status stays authoritative and
+ * the upcoming and open-registration queries are range scans on (status, tournament_date)
+ */
+@Service
+public class TournamentStatusScheduler {
+
+    private static final Logger log = LoggerFactory.getLogger(TournamentStatusScheduler.class);
+
+    @Autowired
+    private TournamentRepository tournamentRepository;
+
+    @Autowired
+    private UpcomingTournamentFeed upcomingFeed;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onReady() {
+        advance();
+    }
+
+    /**
+     * Complete tournaments whose time is over, then start those whose time has come
+     */
+    @Scheduled(fixedDelayString = "${app.tournaments.status-interval-ms:60000}")
+    public void advance() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDate today = now.toLocalDate();
+        LocalTime time = now.toLocalTime();
+        int completed = tournamentRepository.completeFinishedTournaments(today, time);
+        int started = tournamentRepository.startDueTournaments(today, time);
+        if (completed > 0 || started > 0) {
+            log.info("Tournament status sweep: {} started, {} completed", started, completed);
+            upcomingFeed.invalidate();
+        }
+    }
+}
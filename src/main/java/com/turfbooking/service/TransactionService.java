@@ -4,17 +4,31 @@ import com.turfbooking.model.Transaction;
 import com.turfbooking.model.Booking;
 import com.turfbooking.repository.TransactionRepository;
 import com.turfbooking.repository.BookingRepository;
+import com.turfbooking.util.TransactionIdGenerator;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
-import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 /**
  * Service class for Transaction entity operations
@@ -24,12 +38,68 @@ import java.util.UUID;
 @Transactional
 public class TransactionService {
     
+    private static final Logger log = LoggerFactory.getLogger(TransactionService.class);
+    
     @Autowired
     private TransactionRepository transactionRepository;
     
     @Autowired
     private BookingRepository bookingRepository;
     
+    @Autowired
+    private PaymentGateway paymentGateway;
+    
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    
+    @Autowired
+    private LedgerService ledgerService;
+    
+    @Autowired
+    private AnalyticsRollupService analyticsRollupService;
+    
+    @Autowired
+    private UserFinanceService userFinanceService;
+    
+    @Value("${app.payments.gateway-timeout-ms:10000}")
+    private long gatewayTimeoutMs;
+    
+    @Value("${app.payments.outcome-threads:4}")
+    private int outcomeThreads;
+    
+    @Value("${app.transactions.node-id:-1}")
+    private int nodeId;
+    
+    // Applies gateway outcomes; only runs the short second transaction, never waits on the gateway
+    private ExecutorService outcomeExecutor;
+    
+    @PostConstruct
+    public void configureTransactionIds() {
+        // Without a configured node id the generator keeps one derived from host and process
+        if (nodeId >= 0) {
+            TransactionIdGenerator.setNodeId(nodeId);
+        } else {
+            log.warn("app.transactions.node-id (TRANSACTION_NODE_ID) is not set; using node id {} derived from the host " +
+                     "and process, which can collide with another node's. Set a distinct id on every node that " +
+                     "writes transactions.", TransactionIdGenerator.getNodeId());
+        }
+    }
+    
+    @PostConstruct
+    public void startOutcomeExecutor() {
+        outcomeExecutor = Executors.newFixedThreadPool(outcomeThreads, runnable -> {
+            Thread thread = new Thread(runnable, "payment-outcome");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+    
+    @PreDestroy
+    public void stopOutcomeExecutor() throws InterruptedException {
+        outcomeExecutor.shutdown();
+        outcomeExecutor.awaitTermination(gatewayTimeoutMs, TimeUnit.MILLISECONDS);
+    }
+    
     /**
      * Create new transaction for booking
      */
@@ -38,81 +108,115 @@ public class TransactionService {
             .orElseThrow(() -> new RuntimeException("Booking not found with id: " + bookingId));
         
         Transaction transaction = new Transaction(booking, booking.getTotalAmount(), paymentMethod);
+        analyticsRollupService.bookingsChanged(List.of(bookingId));
+        userFinanceService.userChanged(booking.getUser().getId());
         return transactionRepository.save(transaction);
     }
     
     /**
-     * Process payment (simulation)
+     * Process payment through the payment gateway
+     * The PENDING transaction is committed before the gateway is called, and the outcome is
+     * applied in a second short transaction, so no connection is held during the round trip.
+     * A gateway timeout leaves the transaction PENDING until the gateway reports the outcome.
      */
-    @Transactional
-    public Transaction processPayment(Long bookingId, Transaction.PaymentMethod paymentMethod, 
-                                    String paymentDetails) {
-        Booking booking = bookingRepository.findById(bookingId)
-            .orElseThrow(() -> new RuntimeException("Booking not found with id: " + bookingId));
-        
-        // Create transaction
-        Transaction transaction = new Transaction(booking, booking.getTotalAmount(), paymentMethod);
-        transaction.setPaymentStatus(Transaction.PaymentStatus.PENDING);
-        transaction = transactionRepository.save(transaction);
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public CompletableFuture<Transaction> processPayment(Long bookingId, Transaction.PaymentMethod paymentMethod, 
+                                                        String paymentDetails) {
+        Transaction pending = transactionTemplate.execute(status -> {
+            Booking booking = bookingRepository.findById(bookingId)
+                .orElseThrow(() -> new RuntimeException("Booking not found with id: " + bookingId));
+            
+            Transaction transaction = new Transaction(booking, booking.getTotalAmount(), paymentMethod);
+            transaction.setPaymentStatus(Transaction.PaymentStatus.PENDING);
+            analyticsRollupService.bookingsChanged(List.of(bookingId));
+            userFinanceService.userChanged(booking.getUser().getId());
+            return transactionRepository.save(transaction);
+        });
         
+        PaymentGateway.PaymentRequest request = new PaymentGateway.PaymentRequest(
+            pending.getTransactionId(), pending.getAmount(), paymentMethod, paymentDetails);
+        CompletableFuture<PaymentGateway.PaymentResult> charge;
         try {
-            // Simulate payment processing
-            boolean paymentSuccess = simulatePaymentGateway(transaction.getAmount(), paymentMethod, paymentDetails);
+            charge = paymentGateway.charge(request);
+        } catch (RuntimeException e) {
+            charge = CompletableFuture.failedFuture(e);
+        }
+        return charge
+            .orTimeout(gatewayTimeoutMs, TimeUnit.MILLISECONDS)
+            .handleAsync((result, error) -> applyPaymentOutcome(pending.getId(), result, error), outcomeExecutor);
+    }
+    
+    /**
+     * Record the gateway outcome on a pending transaction and confirm its booking on success
+     * The outcome is written with a conditional update, so a callback that settled the
+     * transaction in the meantime wins and the outcome is dropped.
+     */
+    private Transaction applyPaymentOutcome(Long id, PaymentGateway.PaymentResult result, Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        return transactionTemplate.execute(status -> {
+            Transaction.PaymentStatus outcome;
+            String response;
+            if (cause instanceof TimeoutException) {
+                outcome = null;
+                response = null;
+            } else if (cause != null) {
+                outcome = Transaction.PaymentStatus.FAILED;
+                response = "{\"status\":\"error\",\"message\":\"" + cause.getMessage() + "\"}";
+            } else if (result.status() == Transaction.PaymentStatus.SUCCESS) {
+                outcome = Transaction.PaymentStatus.SUCCESS;
+                response = result.response();
+            } else if (result.status() == Transaction.PaymentStatus.PENDING) {
+                // Accepted; only the response is recorded, the outcome arrives through the callback queue
+                outcome = Transaction.PaymentStatus.PENDING;
+                response = result.response();
+            } else {
+                outcome = Transaction.PaymentStatus.FAILED;
+                response = result.response();
+            }
             
-            if (paymentSuccess) {
-                transaction.setPaymentStatus(Transaction.PaymentStatus.SUCCESS);
-                transaction.setGatewayResponse("{\"status\":\"success\",\"message\":\"Payment processed successfully\"}");
-                
+            boolean settled = outcome != null && transactionRepository.settlePending(id, outcome, response) > 0;
+            // Loaded after the update, so it shows whichever outcome was recorded
+            Transaction transaction = transactionRepository.findWithBookingById(id)
+                .orElseThrow(() -> new RuntimeException("Transaction not found with id: " + id));
+            if (!settled || outcome == Transaction.PaymentStatus.PENDING) {
+                return transaction;
+            }
+            
+            if (outcome == Transaction.PaymentStatus.SUCCESS) {
                 // Update booking status
+                Booking booking = transaction.getBooking();
                 booking.setStatus(Booking.BookingStatus.CONFIRMED);
                 bookingRepository.save(booking);
-            } else {
-                transaction.setPaymentStatus(Transaction.PaymentStatus.FAILED);
-                transaction.setGatewayResponse("{\"status\":\"failed\",\"message\":\"Payment processing failed\"}");
+                
+                ledgerService.postTransactions(List.of(transaction.getTransactionId()));
             }
             
-        } catch (Exception e) {
-            transaction.setPaymentStatus(Transaction.PaymentStatus.FAILED);
-            transaction.setGatewayResponse("{\"status\":\"error\",\"message\":\"" + e.getMessage() + "\"}");
-        }
-        
-        return transactionRepository.save(transaction);
+            analyticsRollupService.bookingsChanged(List.of(transaction.getBooking().getId()));
+            userFinanceService.userChanged(transaction.getBooking().getUser().getId());
+            return transaction;
+        });
     }
     
     /**
-     * Simulate payment gateway processing
+     * Process refund for cancelled booking
      */
-    private boolean simulatePaymentGateway(BigDecimal amount, Transaction.PaymentMethod method, String details) {
-        // Simulate random success/failure for demo purposes
-        // In real implementation, this would integrate with actual payment gateways
-        return Math.random() > 0.1; // 90% success rate
+    @Transactional
+    public void processRefund(Long bookingId) {
+        processRefunds(List.of(bookingId));
     }
     
     /**
-     * Process refund for cancelled booking
+     * Refund the successful payments of several bookings
      */
     @Transactional
-    public void processRefund(Long bookingId) {
-        List<Transaction> transactions = transactionRepository.findByBookingId(bookingId);
-        
-        for (Transaction transaction : transactions) {
-            if (transaction.getPaymentStatus() == Transaction.PaymentStatus.SUCCESS) {
-                // Create refund transaction
-                Transaction refundTransaction = new Transaction();
-                refundTransaction.setBooking(transaction.getBooking());
-                refundTransaction.setAmount(transaction.getAmount().negate()); // Negative amount for refund
-                refundTransaction.setPaymentMethod(transaction.getPaymentMethod());
-                refundTransaction.setPaymentStatus(Transaction.PaymentStatus.SUCCESS);
-                refundTransaction.setGatewayResponse("{\"status\":\"refunded\",\"original_transaction\":\"" + 
-                                                   transaction.getTransactionId() + "\"}");
-                
-                transactionRepository.save(refundTransaction);
-                
-                // Update original transaction status
-                transaction.setPaymentStatus(Transaction.PaymentStatus.REFUNDED);
-                transactionRepository.save(transaction);
-            }
-        }
+    public int processRefunds(Collection<Long> bookingIds) {
+        // Negative refund rows first, then flip the originals they were copied from
+        int refunds = transactionRepository.insertRefunds(bookingIds);
+        transactionRepository.markRefunded(bookingIds);
+        ledgerService.postRefunds(bookingIds);
+        analyticsRollupService.bookingsChanged(bookingIds);
+        userFinanceService.bookingsChanged(bookingIds);
+        return refunds;
     }
     
     /**
@@ -137,10 +241,10 @@ public class TransactionService {
     }
     
     /**
-     * Get user's transactions
+     * Get a page of a user's transactions, newest first
      */
-    public List<Transaction> getUserTransactions(Long userId) {
-        return transactionRepository.findByUserId(userId);
+    public Page<Transaction> getUserTransactions(Long userId, int page, int size) {
+        return transactionRepository.findByUserId(userId, PageRequest.of(page, size));
     }
     
     /**
@@ -180,37 +284,16 @@ public class TransactionService {
     }
     
     /**
-     * Calculate total revenue
+     * Calculate total revenue from the ledger
      */
     public Double getTotalRevenue() {
-        return transactionRepository.calculateTotalRevenue();
+        return ledgerService.getTotalRevenue().doubleValue();
     }
     
     /**
-     * Calculate revenue for period
+     * Calculate revenue for the days of a period from the ledger
      */
     public Double getRevenueForPeriod(LocalDateTime startDate, LocalDateTime endDate) {
-        return transactionRepository.calculateRevenueForPeriod(startDate, endDate);
-    }
-    
-    /**
-     * Get transaction statistics by status
-     */
-    public List<Object[]> getTransactionStatsByStatus() {
-        return transactionRepository.countTransactionsByStatus();
-    }
-    
-    /**
-     * Get transaction statistics by payment method
-     */
-    public List<Object[]> getTransactionStatsByPaymentMethod() {
-        return transactionRepository.countTransactionsByPaymentMethod();
-    }
-    
-    /**
-     * Generate unique transaction ID
-     */
-    private String generateTransactionId() {
-        return "TXN_" + System.currentTimeMillis() + "_" + UUID.randomUUID().toString().substring(0, 8).toUpperCase();
+        return ledgerService.getRevenueForPeriod(startDate.toLocalDate(), endDate.toLocalDate()).doubleValue();
     }
 }
@@ -0,0 +1,122 @@
+package com.turfbooking.service;
+
+import com.turfbooking.util.TransactionUtil;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Background pipeline for turf rating recomputation
+ * Coalesces rating refresh requests per turf and applies them in batched updates
+ */
+@Service
+public class TurfRatingUpdater {
+
+    private static final Logger log = LoggerFactory.getLogger(TurfRatingUpdater.class);
+
+    @Autowired
+    private TurfService turfService;
+
+    @Value("${app.rating.batch-size:500}")
+    private int batchSize;
+
+    // Turf id -> enqueue time (nanos) of the oldest outstanding request
+    private final ConcurrentHashMap<Long, Long> pending = new ConcurrentHashMap<>();
+
+    private final AtomicLong requested = new AtomicLong();
+    private final AtomicLong applied = new AtomicLong();
+    private volatile long lastLagMillis;
+    private volatile long maxLagMillis;
+
+    /**
+     * Queue a rating refresh for a turf once the current transaction commits
+     */
+    public void requestUpdate(Long turfId) {
+        TransactionUtil.afterCommit(() -> enqueue(turfId));
+    }
+
+    private void enqueue(Long turfId) {
+        requested.incrementAndGet();
+        pending.putIfAbsent(turfId, System.nanoTime());
+    }
+
+    /**
+     * Drain coalesced requests and apply them in batches
+     */
+    @Scheduled(fixedDelayString = "${app.rating.coalesce-window-ms:2000}")
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        // Remove before updating: a request arriving after removal is re-queued
+        // for the next window, one arriving before it has already committed
+        Map<Long, Long> drained = new HashMap<>();
+        for (Long turfId : pending.keySet()) {
+            Long enqueuedAt = pending.remove(turfId);
+            if (enqueuedAt != null) {
+                drained.put(turfId, enqueuedAt);
+            }
+        }
+
+        List<Long> turfIds = new ArrayList<>(drained.keySet());
+        for (int from = 0; from < turfIds.size(); from += batchSize) {
+            List<Long> batch = turfIds.subList(from, Math.min(from + batchSize, turfIds.size()));
+            try {
+                turfService.refreshTurfRatings(batch);
+                applied.addAndGet(batch.size());
+            } catch (RuntimeException e) {
+                log.warn("Rating refresh failed for {} turfs, re-queueing", batch.size(), e);
+                for (Long turfId : batch) {
+                    pending.putIfAbsent(turfId, drained.get(turfId));
+                }
+                drained.keySet().removeAll(batch);
+            }
+        }
+
+        long now = System.nanoTime();
+        long oldest = drained.values().stream().mapToLong(Long::longValue).min().orElse(now);
+        lastLagMillis = TimeUnit.NANOSECONDS.toMillis(now - oldest);
+        maxLagMillis = Math.max(maxLagMillis, lastLagMillis);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    /**
+     * Age of the oldest rating refresh still waiting in the queue
+     */
+    public long getQueueLagMillis() {
+        long now = System.nanoTime();
+        long oldest = pending.values().stream().mapToLong(Long::longValue).min().orElse(now);
+        return TimeUnit.NANOSECONDS.toMillis(now - oldest);
+    }
+
+    /**
+     * Snapshot of queue metrics
+     */
+    public Map<String, Object> getMetrics() {
+        return Map.of(
+            "pendingTurfs", pending.size(),
+            "queueLagMillis", getQueueLagMillis(),
+            "lastAppliedLagMillis", lastLagMillis,
+            "maxAppliedLagMillis", maxLagMillis,
+            "requested", requested.get(),
+            "applied", applied.get()
+        );
+    }
+}
@@ -13,6 +13,7 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -30,6 +31,12 @@ public class TurfService {
     @Autowired
     private ReviewRepository reviewRepository;
     
+    @Autowired
+    private BulkRefundEngine bulkRefundEngine;
+    
+    @Autowired
+    private AnalyticsRollupService analyticsRollupService;
+    
     /**
      * Get all active turfs
      */
@@ -139,6 +146,7 @@ public class TurfService {
             turf.setClosingTime(turfDetails.getClosingTime());
             turf.setIsActive(turfDetails.getIsActive());
             
+            analyticsRollupService.turfChanged(id);
             return turfRepository.save(turf);
         }
         throw new RuntimeException("Turf not found with id: " + id);
@@ -151,6 +159,9 @@ public class TurfService {
         Optional<Turf> optionalTurf = turfRepository.findById(id);
         if (optionalTurf.isPresent()) {
             Turf turf = optionalTurf.get();
+            if (Boolean.TRUE.equals(turf.getIsActive())) {
+                bulkRefundEngine.startTurfRefund(id);
+            }
             turf.setIsActive(false);
             turfRepository.save(turf);
         } else {
@@ -172,6 +183,17 @@ public class TurfService {
         }
     }
     
+    /**
+     * Recompute ratings for a batch of turfs in one set-based update
+     */
+    @Transactional
+    public int refreshTurfRatings(Collection<Long> turfIds) {
+        if (turfIds.isEmpty()) {
+            return 0;
+        }
+        return turfRepository.refreshTurfRatings(turfIds);
+    }
+    
     /**
      * Get turf statistics by city
      */
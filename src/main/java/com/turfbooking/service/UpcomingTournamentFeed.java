@@ -0,0 +1,74 @@
+package com.turfbooking.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.turfbooking.repository.TournamentRepository;
+import com.turfbooking.util.TransactionUtil;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.util.DigestUtils;
+
+import java.time.LocalDate;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Materialized feed of upcoming tournaments for the public listing
+ * The serialized body and its ETag are built once and reused until a tournament
+ * or registration change commits, so repeat loads skip both the query and serialization.
+ */
+@Service
+public class UpcomingTournamentFeed {
+
+    @Autowired
+    private TournamentRepository tournamentRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final AtomicLong generation = new AtomicLong();
+    private volatile Snapshot snapshot;
+
+    /**
+     * Serialized feed as of one change generation
+     */
+    public record Snapshot(long generation, LocalDate date, byte[] body, String etag) {
+    }
+
+    /**
+     * Current feed, rebuilt if something changed or the day rolled over
+     */
+    public Snapshot current() {
+        Snapshot current = snapshot;
+        LocalDate today = LocalDate.now();
+        if (isFresh(current, today)) {
+            return current;
+        }
+        synchronized (this) {
+            current = snapshot;
+            if (isFresh(current, today)) {
+                return current;
+            }
+            // Read the generation first, so a change landing mid-build leaves the result stale
+            long built = generation.get();
+            try {
+                byte[] body = objectMapper.writeValueAsBytes(tournamentRepository.findUpcomingTournaments(today));
+                current = new Snapshot(built, today, body, "\"" + DigestUtils.md5DigestAsHex(body) + "\"");
+            } catch (JsonProcessingException e) {
+                throw new RuntimeException("Failed to build upcoming tournaments feed", e);
+            }
+            snapshot = current;
+            return current;
+        }
+    }
+
+    /**
+     * Mark the feed stale once the current transaction commits
+     */
+    public void invalidate() {
+        TransactionUtil.afterCommit(generation::incrementAndGet);
+    }
+
+    private boolean isFresh(Snapshot current, LocalDate today) {
+        return current != null && current.generation() == generation.get() && current.date().equals(today);
+    }
+}
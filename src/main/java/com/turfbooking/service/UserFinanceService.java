@@ -0,0 +1,200 @@
+package com.turfbooking.service;
+
+import com.turfbooking.model.Transaction;
+import com.turfbooking.repository.BookingRepository;
+import com.turfbooking.repository.TransactionRepository;
+import com.turfbooking.util.TransactionUtil;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Per-user spending summaries computed by one grouped query
+ * Summaries are cached per user and dropped once a payment or refund of that user
+ * commits. A per-stripe version guards against caching a summary that was read
+ * before a concurrent change committed.
+ */
+@Service
+public class UserFinanceService {
+
+    private static final int STRIPES = 64;
+
+    /**
+     * Spend in one calendar month, as yyyy-MM
+     */
+    public record MonthlySpend(String month, BigDecimal spent, BigDecimal refunded, BigDecimal net) {
+    }
+
+    /**
+     * Spend on one turf
+     */
+    public record TurfSpend(Long turfId, String turfName, long payments, BigDecimal spent,
+                            BigDecimal refunded, BigDecimal net) {
+    }
+
+    public record FinanceSummary(Long userId, long payments, long refunds, long pending, long failed,
+                                 BigDecimal totalSpent, BigDecimal totalRefunded, BigDecimal netSpent,
+                                 List<MonthlySpend> monthly, List<TurfSpend> byTurf) {
+    }
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    private final Map<Long, FinanceSummary> summaries;
+    private final long[] versions = new long[STRIPES];
+
+    public UserFinanceService(@Value("${app.finance.summary-cache-size:10000}") int cacheSize) {
+        this.summaries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, FinanceSummary> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
+
+    /**
+     * Totals, refunds, per-month and per-turf spend of a user
+     */
+    @Transactional(readOnly = true)
+    public FinanceSummary getSummary(Long userId) {
+        long version;
+        synchronized (summaries) {
+            FinanceSummary cached = summaries.get(userId);
+            if (cached != null) {
+                return cached;
+            }
+            version = versions[stripe(userId)];
+        }
+        FinanceSummary summary = summarize(userId, transactionRepository.summarizeByUser(userId));
+        synchronized (summaries) {
+            if (versions[stripe(userId)] == version) {
+                summaries.put(userId, summary);
+            }
+        }
+        return summary;
+    }
+
+    /**
+     * Drop a user's summary once the current transaction commits
+     */
+    public void userChanged(Long userId) {
+        TransactionUtil.afterCommit(() -> invalidate(List.of(userId)));
+    }
+
+    /**
+     * Drop the summaries of the owners of these bookings once the current transaction commits
+     */
+    public void bookingsChanged(Collection<Long> bookingIds) {
+        if (!bookingIds.isEmpty()) {
+            List<Long> userIds = bookingRepository.findUserIdsByIds(bookingIds);
+            TransactionUtil.afterCommit(() -> invalidate(userIds));
+        }
+    }
+
+    /**
+     * Drop the summaries of the owners of these transactions once the current transaction commits
+     */
+    public void transactionsChanged(Collection<String> transactionIds) {
+        if (!transactionIds.isEmpty()) {
+            List<Long> userIds = transactionRepository.findUserIdsByTransactionIds(transactionIds);
+            TransactionUtil.afterCommit(() -> invalidate(userIds));
+        }
+    }
+
+    private void invalidate(List<Long> userIds) {
+        synchronized (summaries) {
+            for (Long userId : userIds) {
+                versions[stripe(userId)]++;
+                summaries.remove(userId);
+            }
+        }
+    }
+
+    private static FinanceSummary summarize(Long userId, List<Object[]> rows) {
+        long payments = 0;
+        long refunds = 0;
+        long pending = 0;
+        long failed = 0;
+        BigDecimal spent = BigDecimal.ZERO;
+        BigDecimal refunded = BigDecimal.ZERO;
+        Map<String, BigDecimal[]> monthly = new TreeMap<>();
+        Map<Long, TurfTotals> byTurf = new LinkedHashMap<>();
+
+        for (Object[] row : rows) {
+            Transaction.PaymentStatus status = (Transaction.PaymentStatus) row[4];
+            long positiveCount = ((Number) row[5]).longValue();
+            long negativeCount = ((Number) row[6]).longValue();
+            if (status == Transaction.PaymentStatus.PENDING) {
+                pending += positiveCount + negativeCount;
+                continue;
+            }
+            if (status == Transaction.PaymentStatus.FAILED) {
+                failed += positiveCount + negativeCount;
+                continue;
+            }
+            // Settled: REFUNDED payments still count as spend, refunds are negative SUCCESS rows
+            BigDecimal paid = decimal(row[7]);
+            BigDecimal returned = decimal(row[8]);
+            payments += positiveCount;
+            refunds += negativeCount;
+            spent = spent.add(paid);
+            refunded = refunded.add(returned);
+
+            String month = String.format("%04d-%02d", ((Number) row[0]).intValue(), ((Number) row[1]).intValue());
+            BigDecimal[] monthTotals = monthly.computeIfAbsent(month, key -> new BigDecimal[]{BigDecimal.ZERO, BigDecimal.ZERO});
+            monthTotals[0] = monthTotals[0].add(paid);
+            monthTotals[1] = monthTotals[1].add(returned);
+
+            TurfTotals turf = byTurf.computeIfAbsent((Long) row[2], id -> new TurfTotals((String) row[3]));
+            turf.payments += positiveCount;
+            turf.spent = turf.spent.add(paid);
+            turf.refunded = turf.refunded.add(returned);
+        }
+
+        List<MonthlySpend> months = new ArrayList<>(monthly.size());
+        monthly.forEach((month, totals) ->
+            months.add(new MonthlySpend(month, totals[0], totals[1], totals[0].subtract(totals[1]))));
+        List<TurfSpend> turfs = new ArrayList<>(byTurf.size());
+        byTurf.forEach((turfId, totals) -> turfs.add(new TurfSpend(turfId, totals.name, totals.payments,
+            totals.spent, totals.refunded, totals.spent.subtract(totals.refunded))));
+        turfs.sort(Comparator.comparing(TurfSpend::net).reversed());
+
+        return new FinanceSummary(userId, payments, refunds, pending, failed, spent, refunded,
+                                  spent.subtract(refunded), months, turfs);
+    }
+
+    private static BigDecimal decimal(Object value) {
+        if (value == null) {
+            return BigDecimal.ZERO;
+        }
+        return value instanceof BigDecimal decimal ? decimal : new BigDecimal(value.toString());
+    }
+
+    private static int stripe(Long userId) {
+        return (int) (userId & (STRIPES - 1));
+    }
+
+    private static final class TurfTotals {
+        private final String name;
+        private long payments;
+        private BigDecimal spent = BigDecimal.ZERO;
+        private BigDecimal refunded = BigDecimal.ZERO;
+
+        TurfTotals(String name) {
+            this.name = name;
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.turfbooking.util;
+
+/**
+ * Bit mixing helpers shared by the primitive hash structures
+ */
+public final class BitMix {
+
+    private BitMix() {
+    }
+
+    /**
+     * Finalizer from MurmurHash3, spreads every input bit across the result
+     */
+    public static long mix64(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return key;
+    }
+
+    public static int mix(long key) {
+        return (int) mix64(key);
+    }
+
+    /**
+     * Packs two non-negative ids below 2^32 into a single long key
+     */
+    public static long pack(long high, long low) {
+        return (high << 32) | (low & 0xffffffffL);
+    }
+
+    public static boolean fitsPacked(Long id) {
+        return id != null && id >= 0 && id <= 0xffffffffL;
+    }
+}
@@ -0,0 +1,67 @@
+package com.turfbooking.util;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Parsing of free-form team member lists into normalized player keys
+ */
+public final class TeamRoster {
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+    private static final TypeReference<List<String>> STRING_LIST = new TypeReference<>() {
+    };
+
+    // Matches the length of team_members.player_key
+    public static final int MAX_KEY_LENGTH = 100;
+
+    private TeamRoster() {
+    }
+
+    /**
+     * Player keys of a team member list, given as a JSON array or comma separated
+     */
+    public static Set<String> playerKeys(String teamMembers) {
+        Set<String> keys = new LinkedHashSet<>();
+        if (teamMembers == null || teamMembers.isBlank()) {
+            return keys;
+        }
+        try {
+            for (String name : JSON.readValue(teamMembers, STRING_LIST)) {
+                addKey(keys, name);
+            }
+        } catch (JsonProcessingException e) {
+            for (String name : teamMembers.split("[,\\n]")) {
+                addKey(keys, name.replace("\"", ""));
+            }
+        }
+        return keys;
+    }
+
+    /**
+     * Case and whitespace insensitive key of one player name, or null when blank
+     */
+    public static String playerKey(String name) {
+        if (name == null) {
+            return null;
+        }
+        String key = name.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+        if (key.isEmpty()) {
+            return null;
+        }
+        return key.length() > MAX_KEY_LENGTH ? key.substring(0, MAX_KEY_LENGTH) : key;
+    }
+
+    private static void addKey(Set<String> keys, String name) {
+        String key = playerKey(name);
+        if (key != null) {
+            keys.add(key);
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.turfbooking.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Time-ordered transaction ids, unique per node without coordination
+ * An id packs 41 bits of milliseconds since 2024-01-01, a 10-bit node id and a 12-bit
+ * sequence, Snowflake style. The clock and sequence advance together in one CAS, so ids
+ * are strictly increasing on a node even if the wall clock steps back; a burst of more
+ * than 4096 ids in a millisecond borrows from the next one instead of waiting. The
+ * string form is a fixed-width Crockford base32 encoding whose text order matches the
+ * numeric order, so new rows append to the right edge of the transaction_id index.
+ */
+public final class TransactionIdGenerator {
+
+    public static final int MAX_NODE_ID = (1 << 10) - 1;
+
+    private static final long EPOCH_MILLIS = 1704067200000L;
+    private static final int SEQUENCE_BITS = 12;
+    private static final int NODE_BITS = 10;
+    private static final String PREFIX = "TXN_";
+    private static final int ENCODED_LENGTH = 13;
+    private static final char[] ALPHABET = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+
+    // Milliseconds since the epoch shifted left by SEQUENCE_BITS, plus the sequence
+    private static final AtomicLong clock = new AtomicLong();
+    private static volatile long nodeBits = (long) defaultNodeId() << SEQUENCE_BITS;
+
+    private TransactionIdGenerator() {
+    }
+
+    /**
+     * Set this node's id; every node writing transactions needs a distinct one
+     */
+    public static void setNodeId(int nodeId) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("Node id must be between 0 and " + MAX_NODE_ID);
+        }
+        nodeBits = (long) nodeId << SEQUENCE_BITS;
+    }
+
+    /**
+     * This node's id
+     */
+    public static int getNodeId() {
+        return (int) (nodeBits >>> SEQUENCE_BITS);
+    }
+
+    /**
+     * Next id as a string, e.g. TXN_0B5XK3N1Q8W00
+     */
+    public static String next() {
+        long id = nextId();
+        char[] chars = new char[PREFIX.length() + ENCODED_LENGTH];
+        PREFIX.getChars(0, PREFIX.length(), chars, 0);
+        for (int i = chars.length - 1; i >= PREFIX.length(); i--) {
+            chars[i] = ALPHABET[(int) (id & 31)];
+            id >>>= 5;
+        }
+        return new String(chars);
+    }
+
+    /**
+     * Next id as a positive long
+     */
+    public static long nextId() {
+        long now = (System.currentTimeMillis() - EPOCH_MILLIS) << SEQUENCE_BITS;
+        long previous;
+        long next;
+        do {
+            previous = clock.get();
+            next = Math.max(previous + 1, now);
+        } while (!clock.compareAndSet(previous, next));
+        long millis = next >>> SEQUENCE_BITS;
+        long sequence = next & ((1L << SEQUENCE_BITS) - 1);
+        return (millis << (NODE_BITS + SEQUENCE_BITS)) | nodeBits | sequence;
+    }
+
+    // Used until a node id is configured; derived from the host name and process id
+    private static int defaultNodeId() {
+        String host = System.getenv().getOrDefault("HOSTNAME", "");
+        return BitMix.mix(((long) host.hashCode() << 32) ^ ProcessHandle.current().pid()) & MAX_NODE_ID;
+    }
+}
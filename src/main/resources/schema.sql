@@ -70,6 +70,107 @@ CREATE TABLE IF NOT EXISTS transactions (
     FOREIGN KEY (booking_id) REFERENCES bookings(id) ON DELETE CASCADE
 );
 
+-- Stored responses of requests made with an Idempotency-Key
+CREATE TABLE IF NOT EXISTS idempotency_keys (
+    idempotency_key VARCHAR(120) PRIMARY KEY,
+    request_hash VARCHAR(32) NOT NULL,
+    status_code INT,
+    response_body TEXT,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    expires_at TIMESTAMP NOT NULL
+);
+
+-- Bulk refund jobs for cancelled tournaments and deactivated turfs
+CREATE TABLE IF NOT EXISTS refund_jobs (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    scope VARCHAR(20) NOT NULL,
+    target_id BIGINT NOT NULL,
+    status VARCHAR(20) NOT NULL,
+    last_booking_id BIGINT NOT NULL DEFAULT 0,
+    total_bookings BIGINT NOT NULL DEFAULT 0,
+    processed_bookings BIGINT NOT NULL DEFAULT 0,
+    refunded_transactions BIGINT NOT NULL DEFAULT 0,
+    refunded_amount DECIMAL(12, 2) NOT NULL DEFAULT 0,
+    refund_due_registrations BIGINT NOT NULL DEFAULT 0,
+    error_message VARCHAR(500),
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+
+-- Passes comparing booking statuses with their payments, and the discrepancies they found
+CREATE TABLE IF NOT EXISTS reconciliation_runs (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    status VARCHAR(20) NOT NULL,
+    auto_fix BOOLEAN NOT NULL DEFAULT FALSE,
+    scanned_bookings BIGINT NOT NULL DEFAULT 0,
+    scanned_transactions BIGINT NOT NULL DEFAULT 0,
+    paid_not_confirmed BIGINT NOT NULL DEFAULT 0,
+    confirmed_without_payment BIGINT NOT NULL DEFAULT 0,
+    cancelled_not_refunded BIGINT NOT NULL DEFAULT 0,
+    confirmed_bookings BIGINT NOT NULL DEFAULT 0,
+    refunded_transactions BIGINT NOT NULL DEFAULT 0,
+    error_message VARCHAR(500),
+    started_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    finished_at TIMESTAMP
+);
+
+CREATE TABLE IF NOT EXISTS reconciliation_discrepancies (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    run_id BIGINT NOT NULL,
+    booking_id BIGINT NOT NULL,
+    type VARCHAR(30) NOT NULL,
+    booking_status VARCHAR(20) NOT NULL,
+    paid_amount DECIMAL(12, 2) NOT NULL,
+    transaction_count INT NOT NULL,
+    FOREIGN KEY (run_id) REFERENCES reconciliation_runs(id) ON DELETE CASCADE
+);
+
+-- Append-only double-entry ledger postings of settled payments and refunds
+CREATE TABLE IF NOT EXISTS ledger_entries (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    transaction_id VARCHAR(100) NOT NULL,
+    booking_id BIGINT NOT NULL,
+    account VARCHAR(20) NOT NULL,
+    amount DECIMAL(12, 2) NOT NULL,
+    entry_date DATE NOT NULL,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT unique_ledger_posting UNIQUE (transaction_id, account)
+);
+
+-- Net revenue posted per day and the running total up to each day
+CREATE TABLE IF NOT EXISTS ledger_daily_totals (
+    entry_date DATE PRIMARY KEY,
+    revenue DECIMAL(14, 2) NOT NULL DEFAULT 0,
+    cumulative_revenue DECIMAL(14, 2) NOT NULL DEFAULT 0
+);
+
+-- Bookings per booking date, turf and status, recomputed per day for admin analytics
+CREATE TABLE IF NOT EXISTS booking_daily_rollups (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    stat_date DATE NOT NULL,
+    turf_id BIGINT NOT NULL,
+    city VARCHAR(50) NOT NULL,
+    turf_type VARCHAR(20) NOT NULL,
+    status VARCHAR(20) NOT NULL,
+    booking_count BIGINT NOT NULL,
+    booked_amount DECIMAL(14, 2) NOT NULL,
+    CONSTRAINT unique_booking_rollup UNIQUE (stat_date, turf_id, status)
+);
+
+-- Transactions per transaction date, turf, payment method and status
+CREATE TABLE IF NOT EXISTS transaction_daily_rollups (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    stat_date DATE NOT NULL,
+    turf_id BIGINT NOT NULL,
+    city VARCHAR(50) NOT NULL,
+    turf_type VARCHAR(20) NOT NULL,
+    payment_method VARCHAR(20) NOT NULL,
+    payment_status VARCHAR(20) NOT NULL,
+    transaction_count BIGINT NOT NULL,
+    amount DECIMAL(14, 2) NOT NULL,
+    CONSTRAINT unique_transaction_rollup UNIQUE (stat_date, turf_id, payment_method, payment_status)
+);
+
 -- Reviews table for storing user reviews and ratings
 CREATE TABLE IF NOT EXISTS reviews (
     id BIGINT AUTO_INCREMENT PRIMARY KEY,
@@ -124,6 +225,52 @@ CREATE TABLE IF NOT EXISTS tournament_registrations (
     CONSTRAINT unique_user_tournament UNIQUE (user_id, tournament_id)
 );
 
+-- Normalized player keys of each registered team
+CREATE TABLE IF NOT EXISTS team_members (
+    registration_id BIGINT NOT NULL,
+    player_key VARCHAR(100) NOT NULL,
+    FOREIGN KEY (registration_id) REFERENCES tournament_registrations(id) ON DELETE CASCADE
+);
+
+-- Tournament waitlist, promoted in join order when a seat frees up
+CREATE TABLE IF NOT EXISTS tournament_waitlist (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    tournament_id BIGINT NOT NULL,
+    user_id BIGINT NOT NULL,
+    team_name VARCHAR(100) NOT NULL,
+    team_members VARCHAR(1000) NOT NULL,
+    contact_phone VARCHAR(20),
+    joined_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    FOREIGN KEY (tournament_id) REFERENCES tournaments(id) ON DELETE CASCADE,
+    FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE,
+    CONSTRAINT unique_waitlist_user_tournament UNIQUE (tournament_id, user_id)
+);
+
+-- Generated tournament fixtures, each reserving a turf slot through a booking
+CREATE TABLE IF NOT EXISTS tournament_matches (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    tournament_id BIGINT NOT NULL,
+    round_number INT NOT NULL,
+    match_number INT NOT NULL,
+    stage VARCHAR(20) NOT NULL,
+    group_name VARCHAR(10),
+    home_registration_id BIGINT,
+    away_registration_id BIGINT,
+    home_label VARCHAR(100),
+    away_label VARCHAR(100),
+    booking_id BIGINT NOT NULL,
+    turf_id BIGINT NOT NULL,
+    match_date DATE NOT NULL,
+    start_time TIME NOT NULL,
+    end_time TIME NOT NULL,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    FOREIGN KEY (tournament_id) REFERENCES tournaments(id) ON DELETE CASCADE,
+    FOREIGN KEY (home_registration_id) REFERENCES tournament_registrations(id) ON DELETE SET NULL,
+    FOREIGN KEY (away_registration_id) REFERENCES tournament_registrations(id) ON DELETE SET NULL,
+    FOREIGN KEY (booking_id) REFERENCES bookings(id) ON DELETE CASCADE,
+    CONSTRAINT unique_tournament_match UNIQUE (tournament_id, match_number)
+);
+
 -- Offers table for storing promotional offers
 CREATE TABLE IF NOT EXISTS offers (
     id BIGINT AUTO_INCREMENT PRIMARY KEY,
@@ -143,12 +290,19 @@ CREATE TABLE IF NOT EXISTS offers (
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
 );
 
+-- Normalized turf types an offer applies to
+CREATE TABLE IF NOT EXISTS offer_turf_types (
+    offer_id BIGINT NOT NULL,
+    turf_type VARCHAR(20) NOT NULL,
+    FOREIGN KEY (offer_id) REFERENCES offers(id) ON DELETE CASCADE
+);
+
 -- User offer usage tracking
 CREATE TABLE IF NOT EXISTS user_offer_usage (
     id BIGINT AUTO_INCREMENT PRIMARY KEY,
     user_id BIGINT NOT NULL,
     offer_id BIGINT NOT NULL,
-    booking_id BIGINT NOT NULL,
+    booking_id BIGINT NOT NULL UNIQUE,
     usage_date TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE,
     FOREIGN KEY (offer_id) REFERENCES offers(id) ON DELETE CASCADE,
@@ -169,3 +323,15 @@ CREATE INDEX idx_reviews_turf ON reviews(turf_id);
 CREATE INDEX idx_reviews_rating ON reviews(rating DESC);
 CREATE INDEX idx_tournaments_date ON tournaments(tournament_date);
 CREATE INDEX idx_tournaments_type ON tournaments(turf_type);
+CREATE INDEX idx_tournaments_status_date ON tournaments(status, tournament_date);
+CREATE INDEX idx_user_offer_usage_user_offer ON user_offer_usage(user_id, offer_id);
+CREATE INDEX idx_offers_active ON offers(is_active, valid_from);
+CREATE INDEX idx_offer_turf_types_type ON offer_turf_types(turf_type, offer_id);
+CREATE INDEX idx_tournament_waitlist_order ON tournament_waitlist(tournament_id, id);
+CREATE INDEX idx_team_members_player ON team_members(player_key, registration_id);
+CREATE INDEX idx_idempotency_keys_expires ON idempotency_keys(expires_at);
+CREATE INDEX idx_transactions_booking ON transactions(booking_id, payment_status);
+CREATE INDEX idx_transactions_date ON transactions(transaction_date);
+CREATE INDEX idx_refund_jobs_status ON refund_jobs(status);
+CREATE INDEX idx_reconciliation_runs_status ON reconciliation_runs(status);
+CREATE INDEX idx_reconciliation_discrepancies_run ON reconciliation_discrepancies(run_id, id);
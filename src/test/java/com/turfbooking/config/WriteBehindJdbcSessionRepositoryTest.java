@@ -0,0 +1,217 @@
+package com.turfbooking.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.session.Session;
+import org.springframework.session.SessionRepository;
+import org.springframework.session.jdbc.JdbcIndexedSessionRepository;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class WriteBehindJdbcSessionRepositoryTest {
+
+    private static final Duration TIMEOUT = Duration.ofMinutes(30);
+
+    private DriverManagerDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+    private WriteBehindJdbcSessionRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        dataSource = new DriverManagerDataSource(
+            "jdbc:h2:mem:sessions-" + System.nanoTime() + ";DB_CLOSE_DELAY=-1", "sa", "");
+        new ResourceDatabasePopulator(new ClassPathResource("org/springframework/session/jdbc/schema-h2.sql"))
+            .execute(dataSource);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        repository = newRepository();
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.execute("SHUTDOWN");
+    }
+
+    @Test
+    void sessionsAreWrittenOnFlushAndReadBackAfterARestart() {
+        InMemorySessionRepository.LocalSession session = repository.createSession();
+        session.setAttribute("cart", "3 slots");
+        repository.save(session);
+        assertThat(count("SELECT COUNT(*) FROM SPRING_SESSION")).isZero();
+
+        repository.flush();
+        assertThat(count("SELECT COUNT(*) FROM SPRING_SESSION")).isEqualTo(1);
+
+        InMemorySessionRepository.LocalSession next = repository.findById(session.getId());
+        next.setAttribute("step", 2);
+        next.removeAttribute("cart");
+        repository.save(next);
+        repository.flush();
+
+        InMemorySessionRepository.LocalSession reloaded = newRepository().findById(session.getId());
+        assertThat(reloaded).isNotNull();
+        assertThat(reloaded.getAttributeNames()).containsExactly("step");
+        assertThat(reloaded.<Integer>getAttribute("step")).isEqualTo(2);
+        assertThat(reloaded.getCreationTime().toEpochMilli()).isEqualTo(session.getCreationTime().toEpochMilli());
+    }
+
+    @Test
+    void aChangedIdIsWrittenOnFlushAndTheOldIdIsNotLoadedAgainMeanwhile() {
+        InMemorySessionRepository.LocalSession session = repository.createSession();
+        session.setAttribute("user", "john.doe@gmail.com");
+        repository.save(session);
+        repository.flush();
+        String oldId = session.getId();
+
+        InMemorySessionRepository.LocalSession login = repository.findById(oldId);
+        String newId = login.changeSessionId();
+        repository.save(login);
+
+        // A request still carrying the old id arrives before the rename is flushed
+        assertThat(sessionIds()).containsExactly(oldId);
+        assertThat(repository.findById(oldId)).isNull();
+        assertThat(repository.size()).isEqualTo(1);
+
+        repository.flush();
+        assertThat(sessionIds()).containsExactly(newId);
+        assertThat(repository.findById(oldId)).isNull();
+        assertThat(repository.findById(newId).<String>getAttribute("user")).isEqualTo("john.doe@gmail.com");
+
+        WriteBehindJdbcSessionRepository restarted = newRepository();
+        assertThat(restarted.findById(oldId)).isNull();
+        assertThat(restarted.findById(newId).<String>getAttribute("user")).isEqualTo("john.doe@gmail.com");
+    }
+
+    @Test
+    void deletesAreWrittenThroughEvenBeforeARenameIsFlushed() {
+        InMemorySessionRepository.LocalSession session = repository.createSession();
+        session.setAttribute("user", "jane.smith@gmail.com");
+        repository.save(session);
+        repository.flush();
+        String oldId = session.getId();
+
+        InMemorySessionRepository.LocalSession login = repository.findById(oldId);
+        String newId = login.changeSessionId();
+        repository.save(login);
+        repository.deleteById(newId);
+
+        assertThat(count("SELECT COUNT(*) FROM SPRING_SESSION")).isZero();
+        assertThat(count("SELECT COUNT(*) FROM SPRING_SESSION_ATTRIBUTES")).isZero();
+        assertThat(repository.findById(oldId)).isNull();
+        assertThat(repository.findById(newId)).isNull();
+        repository.flush();
+        assertThat(count("SELECT COUNT(*) FROM SPRING_SESSION")).isZero();
+    }
+
+    @Test
+    void oneFlushWritesTheChangesOfManyConcurrentRequests() throws Exception {
+        int threads = 8;
+        int sessionsPerThread = 1_000;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        List<Future<List<String>>> futures = new ArrayList<>();
+        try {
+            for (int thread = 0; thread < threads; thread++) {
+                futures.add(pool.submit(() -> {
+                    List<String> ids = new ArrayList<>(sessionsPerThread);
+                    for (int i = 0; i < sessionsPerThread; i++) {
+                        InMemorySessionRepository.LocalSession session = repository.createSession();
+                        session.setAttribute("visits", 1);
+                        repository.save(session);
+                        ids.add(session.getId());
+                    }
+                    return ids;
+                }));
+            }
+            List<String> ids = new ArrayList<>();
+            for (Future<List<String>> future : futures) {
+                ids.addAll(future.get());
+            }
+
+            long start = System.nanoTime();
+            repository.flush();
+            long firstFlushMillis = (System.nanoTime() - start) / 1_000_000;
+            assertThat(count("SELECT COUNT(*) FROM SPRING_SESSION")).isEqualTo(threads * sessionsPerThread);
+            assertThat(count("SELECT COUNT(*) FROM SPRING_SESSION_ATTRIBUTES")).isEqualTo(threads * sessionsPerThread);
+            // Batched inserts; row-by-row writes of 8000 sessions take far longer
+            assertThat(firstFlushMillis).isLessThan(5_000);
+
+            // Every other session is touched again; only those are written
+            for (int i = 0; i < ids.size(); i += 2) {
+                InMemorySessionRepository.LocalSession session = repository.findById(ids.get(i));
+                session.setAttribute("visits", 2);
+                repository.save(session);
+            }
+            repository.flush();
+            WriteBehindJdbcSessionRepository restarted = newRepository();
+            for (int i = 0; i < ids.size(); i++) {
+                assertThat(restarted.findById(ids.get(i)).<Integer>getAttribute("visits")).isEqualTo(i % 2 == 0 ? 2 : 1);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void requestsPayLessSessionOverheadThanWithTheJdbcStore() {
+        JdbcIndexedSessionRepository jdbc = new JdbcIndexedSessionRepository(
+            new JdbcTemplate(dataSource), new TransactionTemplate(new DataSourceTransactionManager(dataSource)));
+        long jdbcNanos = nanosPerRequest(jdbc);
+        long writeBehindNanos = nanosPerRequest(repository);
+        long memoryNanos = nanosPerRequest(new InMemorySessionRepository(TIMEOUT));
+        System.out.printf("Session overhead per request: jdbc %d us, jdbc-write-behind %d us, memory %d us%n",
+                          jdbcNanos / 1_000, writeBehindNanos / 1_000, memoryNanos / 1_000);
+
+        // Write-behind requests only touch memory; the flush runs in the background
+        assertThat(writeBehindNanos).isLessThan(jdbcNanos);
+    }
+
+    // Best of three runs of requests that load a session, change an attribute and save it
+    private static <S extends Session> long nanosPerRequest(SessionRepository<S> sessions) {
+        int sessionCount = 200;
+        int requests = 5_000;
+        List<String> ids = new ArrayList<>(sessionCount);
+        for (int i = 0; i < sessionCount; i++) {
+            S session = sessions.createSession();
+            session.setAttribute("visits", 0);
+            sessions.save(session);
+            ids.add(session.getId());
+        }
+        long best = Long.MAX_VALUE;
+        for (int run = 0; run < 3; run++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < requests; i++) {
+                S session = sessions.findById(ids.get(i % sessionCount));
+                session.setAttribute("visits", i);
+                sessions.save(session);
+            }
+            best = Math.min(best, (System.nanoTime() - start) / requests);
+        }
+        return best;
+    }
+
+    private WriteBehindJdbcSessionRepository newRepository() {
+        return new WriteBehindJdbcSessionRepository(TIMEOUT, new JdbcTemplate(dataSource),
+                                                    new TransactionTemplate(new DataSourceTransactionManager(dataSource)));
+    }
+
+    private long count(String sql) {
+        return jdbcTemplate.queryForObject(sql, Long.class);
+    }
+
+    private List<String> sessionIds() {
+        return jdbcTemplate.queryForList("SELECT SESSION_ID FROM SPRING_SESSION", String.class);
+    }
+}
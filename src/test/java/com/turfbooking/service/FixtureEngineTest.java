@@ -0,0 +1,130 @@
+package com.turfbooking.service;
+
+import com.turfbooking.model.Booking;
+import com.turfbooking.model.Turf;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FixtureEngineTest {
+
+    private static final LocalDate FIRST_DAY = LocalDate.of(2030, 3, 1);
+
+    private final FixtureEngine engine = new FixtureEngine();
+
+    @Test
+    void knockoutOf128TeamsIsGeneratedAndPackedInMilliseconds() {
+        List<Turf> turfs = turfs(8);
+        Booking taken = booking(turfs.get(0), FIRST_DAY, LocalTime.of(10, 0), LocalTime.of(12, 0));
+
+        // Warm up, then take the best of several runs so JIT compilation does not count
+        long best = Long.MAX_VALUE;
+        List<FixtureEngine.Fixture> fixtures = null;
+        List<FixtureEngine.Slot> slots = null;
+        for (int run = 0; run < 20; run++) {
+            long start = System.nanoTime();
+            fixtures = engine.generate(FixtureEngine.Format.KNOCKOUT, 128, 0, 0);
+            slots = engine.pack(fixtures, engine.freeSlots(turfs, FIRST_DAY, 3, LocalTime.of(8, 0),
+                                                           LocalTime.of(22, 0), 60, List.of(taken)));
+            best = Math.min(best, System.nanoTime() - start);
+        }
+
+        assertThat(fixtures).hasSize(127);
+        assertThat(slots).hasSize(127);
+        assertThat(best / 1_000_000).isLessThan(50);
+        assertPlayable(fixtures, slots, List.of(taken));
+    }
+
+    @Test
+    void roundRobinAndGroupStagesOf128TeamsArePackedWithoutClashes() {
+        List<Turf> turfs = turfs(16);
+
+        List<FixtureEngine.Fixture> roundRobin = engine.generate(FixtureEngine.Format.ROUND_ROBIN, 128, 0, 0);
+        List<FixtureEngine.Slot> roundRobinSlots = engine.pack(roundRobin, engine.freeSlots(
+            turfs, FIRST_DAY, 60, LocalTime.of(6, 0), LocalTime.of(23, 0), 60, List.of()));
+        assertThat(roundRobin).hasSize(128 * 127 / 2);
+        assertPlayable(roundRobin, roundRobinSlots, List.of());
+
+        List<FixtureEngine.Fixture> groups = engine.generate(FixtureEngine.Format.GROUP_KNOCKOUT, 128, 8, 2);
+        List<FixtureEngine.Slot> groupSlots = engine.pack(groups, engine.freeSlots(
+            turfs, FIRST_DAY, 10, LocalTime.of(6, 0), LocalTime.of(23, 0), 60, List.of()));
+        // 16 groups of 8 play 28 matches each, then 32 qualifiers play a 31-match knockout
+        assertThat(groups).hasSize(16 * 28 + 31);
+        assertPlayable(groups, groupSlots, List.of());
+    }
+
+    @Test
+    void knockoutGivesByesToTheTopSeeds() {
+        List<FixtureEngine.Fixture> fixtures = engine.generate(FixtureEngine.Format.KNOCKOUT, 6, 0, 0);
+
+        // Six teams in an eight-team bracket: seeds 0 and 1 skip the first round
+        List<FixtureEngine.Fixture> firstRound = fixtures.stream().filter(fixture -> fixture.round() == 1).toList();
+        assertThat(firstRound).hasSize(2);
+        Set<Integer> playing = new HashSet<>();
+        for (FixtureEngine.Fixture fixture : firstRound) {
+            playing.add(fixture.homeTeam());
+            playing.add(fixture.awayTeam());
+        }
+        assertThat(playing).containsExactlyInAnyOrder(2, 3, 4, 5);
+        assertThat(fixtures).hasSize(5);
+    }
+
+    // Every slot is free, used once, and a round only starts once the previous round has ended
+    private static void assertPlayable(List<FixtureEngine.Fixture> fixtures, List<FixtureEngine.Slot> slots,
+                                       List<Booking> existing) {
+        Set<FixtureEngine.Slot> used = new HashSet<>(slots);
+        assertThat(used).hasSameSizeAs(slots);
+        for (FixtureEngine.Slot slot : slots) {
+            for (Booking booking : existing) {
+                boolean overlaps = booking.getTurf().getId().equals(slot.turfId())
+                    && booking.getBookingDate().equals(slot.date())
+                    && booking.getStartTime().isBefore(slot.endTime())
+                    && booking.getEndTime().isAfter(slot.startTime());
+                assertThat(overlaps).isFalse();
+            }
+        }
+        Map<Integer, LocalDateTime> firstStart = new HashMap<>();
+        Map<Integer, LocalDateTime> lastEnd = new HashMap<>();
+        for (int i = 0; i < fixtures.size(); i++) {
+            int round = fixtures.get(i).round();
+            LocalDateTime start = slots.get(i).date().atTime(slots.get(i).startTime());
+            LocalDateTime end = slots.get(i).date().atTime(slots.get(i).endTime());
+            firstStart.merge(round, start, (a, b) -> a.isBefore(b) ? a : b);
+            lastEnd.merge(round, end, (a, b) -> a.isAfter(b) ? a : b);
+        }
+        for (int round : firstStart.keySet()) {
+            if (lastEnd.containsKey(round - 1)) {
+                assertThat(firstStart.get(round)).isAfterOrEqualTo(lastEnd.get(round - 1));
+            }
+        }
+    }
+
+    private static List<Turf> turfs(int count) {
+        List<Turf> turfs = new ArrayList<>(count);
+        for (long id = 1; id <= count; id++) {
+            Turf turf = new Turf();
+            turf.setId(id);
+            turfs.add(turf);
+        }
+        return turfs;
+    }
+
+    private static Booking booking(Turf turf, LocalDate date, LocalTime start, LocalTime end) {
+        Booking booking = new Booking();
+        booking.setTurf(turf);
+        booking.setBookingDate(date);
+        booking.setStartTime(start);
+        booking.setEndTime(end);
+        return booking;
+    }
+}
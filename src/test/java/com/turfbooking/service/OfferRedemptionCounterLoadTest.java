@@ -0,0 +1,207 @@
+package com.turfbooking.service;
+
+import com.turfbooking.repository.OfferRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class OfferRedemptionCounterLoadTest {
+
+    private static final long OFFER_ID = 1L;
+    private static final int LIMIT = 10_000;
+    private static final int ALREADY_USED = 250;
+
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate transactionTemplate;
+    private OfferRedemptionCounter counter;
+
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+            "jdbc:h2:mem:redemption-" + System.nanoTime() + ";DB_CLOSE_DELAY=-1", "sa", "");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE offers (id BIGINT PRIMARY KEY, total_usage_limit INT, current_usage INT)");
+        jdbcTemplate.execute("CREATE TABLE user_offer_usage (id BIGINT AUTO_INCREMENT PRIMARY KEY, offer_id BIGINT)");
+        jdbcTemplate.update("INSERT INTO offers VALUES (?, ?, ?)", OFFER_ID, LIMIT, ALREADY_USED);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        transactionTemplate = new TransactionTemplate(transactionManager);
+
+        OfferRepository offerRepository = mock(OfferRepository.class);
+        when(offerRepository.incrementUsage(anyLong(), anyInt())).thenAnswer(call -> jdbcTemplate.update(
+            "UPDATE offers SET current_usage = current_usage + ? WHERE id = ?", (Object) call.getArgument(1), call.getArgument(0)));
+
+        counter = new OfferRedemptionCounter();
+        ReflectionTestUtils.setField(counter, "offerRepository", offerRepository);
+        ReflectionTestUtils.setField(counter, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(counter, "transactionManager", transactionManager);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.execute("SHUTDOWN");
+    }
+
+    @Test
+    void neverHandsOutMoreThanTheLimitUnderConcurrentRedemptionsRollbacksAndRebuilds() throws Exception {
+        AtomicInteger committed = new AtomicInteger();
+        AtomicBoolean running = new AtomicBoolean(true);
+        ExecutorService pool = Executors.newFixedThreadPool(17);
+        try {
+            // Reconciles and drops the pool continuously, so rebuilds race with redemptions
+            Future<?> churn = pool.submit(() -> {
+                while (running.get()) {
+                    counter.reconcileAll();
+                    counter.offerChanged(OFFER_ID);
+                    Thread.onSpinWait();
+                }
+            });
+            List<Future<?>> redeemers = new ArrayList<>();
+            for (int thread = 0; thread < 16; thread++) {
+                redeemers.add(pool.submit(() -> {
+                    for (int attempt = 0; attempt < 2_000; attempt++) {
+                        transactionTemplate.executeWithoutResult(status -> {
+                            boolean acquired = counter.tryAcquire(OFFER_ID);
+                            if (acquired && ThreadLocalRandom.current().nextInt(4) == 0) {
+                                status.setRollbackOnly();
+                            } else if (acquired) {
+                                committed.incrementAndGet();
+                            }
+                        });
+                    }
+                }));
+            }
+            for (Future<?> redeemer : redeemers) {
+                redeemer.get();
+            }
+            running.set(false);
+            churn.get();
+        } finally {
+            pool.shutdownNow();
+        }
+        counter.reconcileAll();
+
+        assertThat(committed.get()).isEqualTo(LIMIT - ALREADY_USED);
+        assertThat(jdbcTemplate.queryForObject("SELECT current_usage FROM offers WHERE id = ?", Integer.class, OFFER_ID))
+            .isEqualTo(LIMIT);
+        assertThat(counter.tryAcquire(OFFER_ID)).isFalse();
+    }
+
+    @Test
+    void rebuildsFromTheCommittedRowRatherThanTheCallersTransaction() {
+        transactionTemplate.executeWithoutResult(status -> {
+            // An uncommitted change in the caller's transaction must not be counted
+            jdbcTemplate.update("UPDATE offers SET current_usage = ? WHERE id = ?", LIMIT, OFFER_ID);
+            assertThat(counter.tryAcquire(OFFER_ID)).isTrue();
+            status.setRollbackOnly();
+        });
+
+        assertThat(counter.remaining(OFFER_ID)).isEqualTo(LIMIT - ALREADY_USED);
+    }
+
+    @Test
+    void redemptionsLostBeforeReconcilingAreCountedFromTheirRowsAndRepaired() {
+        // A crash lost the reconciliation of 40 committed redemptions
+        jdbcTemplate.batchUpdate("INSERT INTO user_offer_usage (offer_id) VALUES (?)",
+                                 Collections.nCopies(ALREADY_USED + 40, new Object[]{OFFER_ID}));
+
+        assertThat(counter.tryAcquire(OFFER_ID)).isTrue();
+        assertThat(counter.remaining(OFFER_ID)).isEqualTo(LIMIT - ALREADY_USED - 40 - 1);
+
+        counter.reconcileAll();
+        assertThat(jdbcTemplate.queryForObject("SELECT current_usage FROM offers WHERE id = ?", Integer.class, OFFER_ID))
+            .isEqualTo(ALREADY_USED + 40 + 1);
+    }
+
+    @Test
+    void tokensOutpaceTheRowLockUnderContention() throws Exception {
+        jdbcTemplate.update("UPDATE offers SET total_usage_limit = NULL WHERE id = ?", OFFER_ID);
+        // Both paths record the redemption row; they differ only in how the total is counted
+        long rowLock = redemptionsPerSecond(() -> {
+            if (jdbcTemplate.update("UPDATE offers SET current_usage = current_usage + 1 WHERE id = ? AND " +
+                                    "(total_usage_limit IS NULL OR current_usage < total_usage_limit)", OFFER_ID) == 0) {
+                throw new IllegalStateException("Offer usage limit reached");
+            }
+        });
+        long tokens = redemptionsPerSecond(() -> assertThat(counter.tryAcquire(OFFER_ID)).isTrue());
+        System.out.printf("Offer redemptions per second: row lock %d, tokens %d%n", rowLock, tokens);
+
+        assertThat(tokens).isGreaterThan(rowLock);
+    }
+
+    // Best of three timed runs of 16 threads redeeming one offer
+    private long redemptionsPerSecond(Runnable take) throws Exception {
+        int threads = 16;
+        int perThread = 1_000;
+        long best = 0;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            for (int run = 0; run < 3; run++) {
+                List<Future<?>> futures = new ArrayList<>();
+                long start = System.nanoTime();
+                for (int thread = 0; thread < threads; thread++) {
+                    futures.add(pool.submit(() -> {
+                        for (int i = 0; i < perThread; i++) {
+                            transactionTemplate.executeWithoutResult(status -> {
+                                jdbcTemplate.update("INSERT INTO user_offer_usage (offer_id) VALUES (?)", OFFER_ID);
+                                take.run();
+                            });
+                        }
+                    }));
+                }
+                for (Future<?> future : futures) {
+                    future.get();
+                }
+                best = Math.max(best, threads * perThread * 1_000_000_000L / (System.nanoTime() - start));
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        return best;
+    }
+
+    @Test
+    void tokenPoolSpreadsTheRemainingCountOverItsStripes() throws Exception {
+        OfferRedemptionCounter.TokenPool tokens = new OfferRedemptionCounter.TokenPool(100_003);
+        AtomicInteger taken = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int thread = 0; thread < 8; thread++) {
+                futures.add(pool.submit(() -> {
+                    while (tokens.acquire() >= 0) {
+                        taken.incrementAndGet();
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertThat(taken.get()).isEqualTo(100_003);
+        assertThat(tokens.remaining()).isZero();
+    }
+}
@@ -0,0 +1,179 @@
+package com.turfbooking.service;
+
+import com.turfbooking.model.Transaction;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+
+class PaymentCallbackQueueTest {
+
+    private static final int PAYMENTS = 300;
+
+    private JdbcTemplate jdbcTemplate;
+    private PaymentCallbackQueue queue;
+    private StubPaymentGateway gateway;
+    private LedgerService ledgerService;
+
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+            "jdbc:h2:mem:callbacks-" + System.nanoTime() + ";DB_CLOSE_DELAY=-1", "sa", "");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE bookings (id BIGINT PRIMARY KEY, status VARCHAR(20), updated_at TIMESTAMP)");
+        jdbcTemplate.execute("CREATE TABLE transactions (id BIGINT AUTO_INCREMENT PRIMARY KEY, booking_id BIGINT, " +
+                             "transaction_id VARCHAR(50) UNIQUE, payment_status VARCHAR(20), gateway_response VARCHAR(500))");
+        List<Object[]> bookings = new ArrayList<>();
+        List<Object[]> transactions = new ArrayList<>();
+        for (long id = 1; id <= PAYMENTS; id++) {
+            bookings.add(new Object[]{id});
+            transactions.add(new Object[]{id, "TXN" + id});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO bookings (id, status) VALUES (?, 'PENDING')", bookings);
+        jdbcTemplate.batchUpdate("INSERT INTO transactions (booking_id, transaction_id, payment_status) VALUES (?, ?, 'PENDING')",
+                                 transactions);
+
+        queue = new PaymentCallbackQueue();
+        ReflectionTestUtils.setField(queue, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(queue, "transactionTemplate",
+                                     new TransactionTemplate(new DataSourceTransactionManager(dataSource)));
+        ledgerService = mock(LedgerService.class);
+        ReflectionTestUtils.setField(queue, "ledgerService", ledgerService);
+        ReflectionTestUtils.setField(queue, "analyticsRollupService", mock(AnalyticsRollupService.class));
+        ReflectionTestUtils.setField(queue, "userFinanceService", mock(UserFinanceService.class));
+        ReflectionTestUtils.setField(queue, "batchSize", 50);
+        ReflectionTestUtils.setField(queue, "capacity", 1_000);
+        ReflectionTestUtils.setField(queue, "maxAttempts", 20);
+        ReflectionTestUtils.setField(queue, "retryBackoffMs", 1L);
+        queue.start();
+
+        gateway = new StubPaymentGateway();
+        ReflectionTestUtils.setField(gateway, "latencyMs", 5L);
+        ReflectionTestUtils.setField(gateway, "callbackMode", true);
+        ReflectionTestUtils.setField(gateway, "callbackQueue", queue);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        queue.stop();
+        jdbcTemplate.execute("SHUTDOWN");
+    }
+
+    @Test
+    void stubGatewayCallbacksSettleEveryPaymentAndConfirmTheSuccessfulBookings() throws Exception {
+        ReflectionTestUtils.setField(gateway, "failureRate", 0.2);
+
+        List<CompletableFuture<PaymentGateway.PaymentResult>> charges = new ArrayList<>();
+        for (int id = 1; id <= PAYMENTS; id++) {
+            charges.add(gateway.charge(new PaymentGateway.PaymentRequest(
+                "TXN" + id, BigDecimal.TEN, Transaction.PaymentMethod.UPI, "{}")));
+        }
+        // In callback mode a charge is only accepted; the outcome arrives through the queue
+        for (CompletableFuture<PaymentGateway.PaymentResult> charge : charges) {
+            assertThat(charge.get().status()).isEqualTo(Transaction.PaymentStatus.PENDING);
+        }
+        awaitApplied(PAYMENTS);
+
+        assertThat(count("SELECT COUNT(*) FROM transactions WHERE payment_status = 'PENDING'")).isZero();
+        assertThat(count("SELECT COUNT(*) FROM transactions WHERE payment_status = 'FAILED'")).isBetween(1L, PAYMENTS - 1L);
+        // Exactly the bookings of successful payments are confirmed
+        assertThat(count("SELECT COUNT(*) FROM bookings b JOIN transactions t ON t.booking_id = b.id " +
+                         "WHERE (b.status = 'CONFIRMED') <> (t.payment_status = 'SUCCESS')")).isZero();
+        assertThat(queue.getQueueDepth()).isZero();
+    }
+
+    @Test
+    void redeliveredAndConflictingCallbacksDoNotChangeASettledPayment() throws Exception {
+        queue.submit(new PaymentCallbackQueue.Callback("TXN1", Transaction.PaymentStatus.SUCCESS, "{}"));
+        awaitApplied(1);
+
+        queue.submit(new PaymentCallbackQueue.Callback("TXN1", Transaction.PaymentStatus.FAILED, "{}"));
+        queue.submit(new PaymentCallbackQueue.Callback("TXN1", Transaction.PaymentStatus.SUCCESS, "{}"));
+        // Applied after the redeliveries, so once it lands they have been processed too
+        queue.submit(new PaymentCallbackQueue.Callback("TXN2", Transaction.PaymentStatus.FAILED, "{}"));
+        awaitApplied(2);
+
+        assertThat(status("TXN1")).isEqualTo("SUCCESS");
+        assertThat(status("TXN2")).isEqualTo("FAILED");
+        assertThat(queue.getAppliedCount()).isEqualTo(2);
+        assertThat(jdbcTemplate.queryForObject("SELECT status FROM bookings WHERE id = 2", String.class)).isEqualTo("PENDING");
+    }
+
+    @Test
+    void rejectsCallbacksWithoutAFinalStatus() {
+        assertThatThrownBy(() -> queue.submit(
+            new PaymentCallbackQueue.Callback("TXN1", Transaction.PaymentStatus.PENDING, "{}")))
+            .hasMessageContaining("SUCCESS or FAILED");
+    }
+
+    @Test
+    void aRejectedRowIsDeadLetteredWithoutLosingTheRestOfItsBatch() throws Exception {
+        // Fits the queue's limit but not this table's narrower column
+        String oversized = "{\"detail\":\"" + "x".repeat(600) + "\"}";
+        for (int id = 1; id <= 50; id++) {
+            queue.submit(new PaymentCallbackQueue.Callback("TXN" + id, Transaction.PaymentStatus.SUCCESS,
+                                                           id == 25 ? oversized : "{}"));
+        }
+        awaitApplied(49);
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (queue.getDeadLetters().isEmpty() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+
+        assertThat(queue.getDeadLetters()).containsOnlyKeys("TXN25");
+        assertThat(status("TXN25")).isEqualTo("PENDING");
+        assertThat(count("SELECT COUNT(*) FROM transactions WHERE payment_status = 'SUCCESS'")).isEqualTo(49);
+    }
+
+    @Test
+    void aBatchThatFailsTransientlyIsRetriedUntilItApplies() throws Exception {
+        doThrow(new RuntimeException("ledger unavailable")).doThrow(new RuntimeException("ledger unavailable"))
+            .doThrow(new RuntimeException("ledger unavailable")).doNothing().when(ledgerService).postTransactions(any());
+
+        queue.submit(new PaymentCallbackQueue.Callback("TXN1", Transaction.PaymentStatus.SUCCESS, "{}"));
+        awaitApplied(1);
+
+        assertThat(status("TXN1")).isEqualTo("SUCCESS");
+        assertThat(queue.getDeadLetters()).isEmpty();
+    }
+
+    @Test
+    void rejectsResponsesLongerThanTheColumn() {
+        String response = "x".repeat(PaymentCallbackQueue.MAX_RESPONSE_LENGTH + 1);
+        assertThatThrownBy(() -> queue.submit(
+            new PaymentCallbackQueue.Callback("TXN1", Transaction.PaymentStatus.SUCCESS, response)))
+            .hasMessageContaining("must not exceed");
+    }
+
+    private void awaitApplied(long expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (queue.getAppliedCount() < expected && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertThat(queue.getAppliedCount()).isEqualTo(expected);
+    }
+
+    private long count(String sql) {
+        return jdbcTemplate.queryForObject(sql, Long.class);
+    }
+
+    private String status(String transactionId) {
+        return jdbcTemplate.queryForObject("SELECT payment_status FROM transactions WHERE transaction_id = ?",
+                                           String.class, transactionId);
+    }
+}
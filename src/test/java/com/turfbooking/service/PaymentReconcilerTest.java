@@ -0,0 +1,234 @@
+package com.turfbooking.service;
+
+import com.turfbooking.model.Booking;
+import com.turfbooking.model.ReconciliationRun;
+import com.turfbooking.model.Transaction;
+import com.turfbooking.repository.BookingRepository;
+import com.turfbooking.repository.ReconciliationDiscrepancyRepository;
+import com.turfbooking.repository.ReconciliationRunRepository;
+import com.turfbooking.repository.TransactionRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class PaymentReconcilerTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private NamedParameterJdbcTemplate namedJdbcTemplate;
+    private PaymentReconciler reconciler;
+    private final AtomicReference<ReconciliationRun> current = new AtomicReference<>();
+    // Runs when the scan has read every row, before the last batch and its fixes are written
+    private Runnable afterScan = () -> { };
+
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+            "jdbc:h2:mem:reconciliation-" + System.nanoTime() + ";DB_CLOSE_DELAY=-1", "sa", "");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+        jdbcTemplate.execute("CREATE TABLE bookings (id BIGINT PRIMARY KEY, status VARCHAR(20), tournament_match BOOLEAN)");
+        jdbcTemplate.execute("CREATE TABLE transactions (id BIGINT AUTO_INCREMENT PRIMARY KEY, booking_id BIGINT, " +
+                             "transaction_id VARCHAR(50) UNIQUE, amount DECIMAL(10, 2), payment_status VARCHAR(20))");
+        jdbcTemplate.execute("CREATE TABLE reconciliation_discrepancies (id BIGINT AUTO_INCREMENT PRIMARY KEY, " +
+                             "run_id BIGINT, booking_id BIGINT, type VARCHAR(30), booking_status VARCHAR(20), " +
+                             "paid_amount DECIMAL(12, 2), transaction_count INT)");
+
+        // One booking per case; the comment is what a scan should make of it
+        booking(1, "PENDING", false, payment("T1", 100, "SUCCESS"));          // paid, not confirmed
+        booking(2, "CONFIRMED", false);                                       // confirmed without payment
+        booking(3, "CONFIRMED", true);                                        // match reservation, fine
+        booking(4, "CANCELLED", false, payment("T4", 50, "SUCCESS"));         // cancelled, not refunded
+        booking(5, "CONFIRMED", false, payment("T5a", 80, "FAILED"), payment("T5b", 80, "SUCCESS")); // fine
+        booking(6, "CANCELLED", false, payment("T6", 70, "REFUNDED"), payment("RFD_T6", -70, "SUCCESS")); // fine
+        booking(7, "PENDING", false, payment("T7", 60, "FAILED"));            // fine
+        booking(8, "COMPLETED", false, payment("T8", 90, "FAILED"));          // confirmed without payment
+        // A payment whose booking is gone is counted and skipped
+        jdbcTemplate.update("INSERT INTO transactions (booking_id, transaction_id, amount, payment_status) " +
+                            "VALUES (0, 'T0', 10, 'SUCCESS')");
+
+        BookingRepository bookingRepository = mock(BookingRepository.class);
+        when(bookingRepository.streamForReconciliation()).thenAnswer(call -> jdbcTemplate.query(
+            "SELECT id, status, tournament_match FROM bookings ORDER BY id",
+            (rs, row) -> new Object[]{rs.getLong(1), Booking.BookingStatus.valueOf(rs.getString(2)), rs.getBoolean(3)})
+            .stream().onClose(() -> afterScan.run()));
+        when(bookingRepository.confirmPaidBookings(any())).thenAnswer(call -> namedJdbcTemplate.update(
+            "UPDATE bookings b SET status = 'CONFIRMED' WHERE id IN (:ids) AND status = 'PENDING' AND EXISTS " +
+            "(SELECT 1 FROM transactions t WHERE t.booking_id = b.id AND t.payment_status = 'SUCCESS' AND t.amount > 0)",
+            ids(call.getArgument(0))));
+        when(bookingRepository.findIdsByStatus(any(), any())).thenAnswer(call -> namedJdbcTemplate.queryForList(
+            "SELECT id FROM bookings WHERE id IN (:ids) AND status = :status",
+            ids(call.getArgument(0)).addValue("status", call.getArgument(1, Booking.BookingStatus.class).name()),
+            Long.class));
+
+        TransactionRepository transactionRepository = mock(TransactionRepository.class);
+        when(transactionRepository.streamForReconciliation()).thenAnswer(call -> jdbcTemplate.query(
+            "SELECT booking_id, payment_status, amount FROM transactions ORDER BY booking_id",
+            (rs, row) -> new Object[]{rs.getLong(1), Transaction.PaymentStatus.valueOf(rs.getString(2)),
+                                      rs.getBigDecimal(3)}).stream());
+
+        TransactionService transactionService = mock(TransactionService.class);
+        when(transactionService.processRefunds(any())).thenAnswer(call -> {
+            MapSqlParameterSource ids = ids(call.getArgument(0));
+            int refunds = namedJdbcTemplate.update(
+                "INSERT INTO transactions (booking_id, transaction_id, amount, payment_status) " +
+                "SELECT booking_id, CONCAT('RFD_', transaction_id), -amount, 'SUCCESS' FROM transactions " +
+                "WHERE booking_id IN (:ids) AND payment_status = 'SUCCESS' AND amount > 0", ids);
+            namedJdbcTemplate.update("UPDATE transactions SET payment_status = 'REFUNDED' " +
+                                     "WHERE booking_id IN (:ids) AND payment_status = 'SUCCESS' AND amount > 0", ids);
+            return refunds;
+        });
+
+        ReconciliationRunRepository runRepository = mock(ReconciliationRunRepository.class);
+        when(runRepository.findFirstByStatus(any())).thenReturn(Optional.empty());
+        when(runRepository.save(any())).thenAnswer(call -> {
+            ReconciliationRun run = call.getArgument(0);
+            run.setId(current.get() == null ? 1L : current.get().getId() + 1);
+            current.set(run);
+            return run;
+        });
+        when(runRepository.findById(anyLong())).thenAnswer(call -> Optional.ofNullable(current.get()));
+
+        reconciler = new PaymentReconciler();
+        ReflectionTestUtils.setField(reconciler, "runRepository", runRepository);
+        ReflectionTestUtils.setField(reconciler, "discrepancyRepository", mock(ReconciliationDiscrepancyRepository.class));
+        ReflectionTestUtils.setField(reconciler, "bookingRepository", bookingRepository);
+        ReflectionTestUtils.setField(reconciler, "transactionRepository", transactionRepository);
+        ReflectionTestUtils.setField(reconciler, "transactionService", transactionService);
+        ReflectionTestUtils.setField(reconciler, "analyticsRollupService", mock(AnalyticsRollupService.class));
+        ReflectionTestUtils.setField(reconciler, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(reconciler, "transactionTemplate",
+                                     new TransactionTemplate(new DataSourceTransactionManager(dataSource)));
+        // Small batches, so findings and fixes are spread over several commits
+        ReflectionTestUtils.setField(reconciler, "batchSize", 3);
+        ReflectionTestUtils.setField(reconciler, "maxReported", 100L);
+        reconciler.start();
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        reconciler.stop();
+        jdbcTemplate.execute("SHUTDOWN");
+    }
+
+    @Test
+    void reportsEachKindOfDiscrepancyWithoutChangingAnything() throws Exception {
+        ReconciliationRun run = runToCompletion(false);
+
+        assertThat(run.getScannedBookings()).isEqualTo(8);
+        assertThat(run.getScannedTransactions()).isEqualTo(9);
+        assertThat(run.getPaidNotConfirmed()).isEqualTo(1);
+        assertThat(run.getConfirmedWithoutPayment()).isEqualTo(2);
+        assertThat(run.getCancelledNotRefunded()).isEqualTo(1);
+        assertThat(run.getConfirmedBookings()).isZero();
+        assertThat(run.getRefundedTransactions()).isZero();
+        assertThat(findings(run)).containsExactly(
+            Map.entry(1L, "PAID_NOT_CONFIRMED"), Map.entry(2L, "CONFIRMED_WITHOUT_PAYMENT"),
+            Map.entry(4L, "CANCELLED_NOT_REFUNDED"), Map.entry(8L, "CONFIRMED_WITHOUT_PAYMENT"));
+        assertThat(jdbcTemplate.queryForObject(
+            "SELECT paid_amount FROM reconciliation_discrepancies WHERE booking_id = 4", BigDecimal.class))
+            .isEqualByComparingTo("50");
+        assertThat(bookingStatus(1)).isEqualTo("PENDING");
+        assertThat(paymentStatus("T4")).isEqualTo("SUCCESS");
+    }
+
+    @Test
+    void autoFixConfirmsPaidBookingsAndRefundsCancelledOnes() throws Exception {
+        ReconciliationRun run = runToCompletion(true);
+
+        assertThat(run.getConfirmedBookings()).isEqualTo(1);
+        assertThat(run.getRefundedTransactions()).isEqualTo(1);
+        assertThat(bookingStatus(1)).isEqualTo("CONFIRMED");
+        assertThat(paymentStatus("T4")).isEqualTo("REFUNDED");
+        assertThat(paymentStatus("RFD_T4")).isEqualTo("SUCCESS");
+
+        // A second pass finds only what auto-fix leaves to a person
+        ReconciliationRun again = runToCompletion(true);
+        assertThat(findings(again)).containsExactly(
+            Map.entry(2L, "CONFIRMED_WITHOUT_PAYMENT"), Map.entry(8L, "CONFIRMED_WITHOUT_PAYMENT"));
+        assertThat(again.getConfirmedBookings()).isZero();
+        assertThat(again.getRefundedTransactions()).isZero();
+    }
+
+    @Test
+    void autoFixLeavesBookingsThatChangedAfterTheyWereScanned() throws Exception {
+        ReflectionTestUtils.setField(reconciler, "batchSize", 1_000);
+        afterScan = () -> {
+            // The paid booking is cancelled and the cancelled one re-opened before the fixes run
+            jdbcTemplate.update("UPDATE bookings SET status = 'CANCELLED' WHERE id = 1");
+            jdbcTemplate.update("UPDATE bookings SET status = 'PENDING' WHERE id = 4");
+        };
+
+        ReconciliationRun run = runToCompletion(true);
+
+        assertThat(run.getPaidNotConfirmed()).isEqualTo(1);
+        assertThat(run.getCancelledNotRefunded()).isEqualTo(1);
+        assertThat(run.getConfirmedBookings()).isZero();
+        assertThat(run.getRefundedTransactions()).isZero();
+        assertThat(bookingStatus(1)).isEqualTo("CANCELLED");
+        assertThat(paymentStatus("T4")).isEqualTo("SUCCESS");
+        assertThat(jdbcTemplate.queryForObject(
+            "SELECT COUNT(*) FROM transactions WHERE transaction_id LIKE 'RFD_%'", Integer.class)).isEqualTo(1);
+    }
+
+    private ReconciliationRun runToCompletion(boolean autoFix) throws Exception {
+        ReconciliationRun run = reconciler.startRun(autoFix);
+        // The runner is single-threaded, so a task queued behind the run waits for its last commit
+        ExecutorService runner = (ExecutorService) ReflectionTestUtils.getField(reconciler, "runner");
+        runner.submit(() -> { }).get(10, TimeUnit.SECONDS);
+        assertThat(run.getStatus()).isEqualTo(ReconciliationRun.Status.COMPLETED);
+        return run;
+    }
+
+    private List<Map.Entry<Long, String>> findings(ReconciliationRun run) {
+        return jdbcTemplate.query("SELECT booking_id, type FROM reconciliation_discrepancies WHERE run_id = ? ORDER BY id",
+                                  (rs, row) -> Map.entry(rs.getLong(1), rs.getString(2)), run.getId());
+    }
+
+    private void booking(long id, String status, boolean tournamentMatch, Object[]... payments) {
+        jdbcTemplate.update("INSERT INTO bookings VALUES (?, ?, ?)", id, status, tournamentMatch);
+        for (Object[] payment : payments) {
+            jdbcTemplate.update("INSERT INTO transactions (booking_id, transaction_id, amount, payment_status) " +
+                                "VALUES (?, ?, ?, ?)", id, payment[0], payment[1], payment[2]);
+        }
+    }
+
+    private static Object[] payment(String transactionId, int amount, String status) {
+        return new Object[]{transactionId, amount, status};
+    }
+
+    private static MapSqlParameterSource ids(Collection<Long> bookingIds) {
+        return new MapSqlParameterSource("ids", bookingIds.stream().collect(Collectors.toList()));
+    }
+
+    private String bookingStatus(long bookingId) {
+        return jdbcTemplate.queryForObject("SELECT status FROM bookings WHERE id = ?", String.class, bookingId);
+    }
+
+    private String paymentStatus(String transactionId) {
+        return jdbcTemplate.queryForObject("SELECT payment_status FROM transactions WHERE transaction_id = ?",
+                                           String.class, transactionId);
+    }
+}
@@ -0,0 +1,70 @@
+package com.turfbooking.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LongBloomFilterTest {
+
+    @Test
+    void neverReportsAnAddedKeyAsMissing() {
+        LongBloomFilter filter = new LongBloomFilter(50_000, 0.01);
+        for (long key = 0; key < 50_000; key++) {
+            filter.put(BitMix.pack(key, key % 97));
+        }
+
+        for (long key = 0; key < 50_000; key++) {
+            assertThat(filter.mightContain(BitMix.pack(key, key % 97))).isTrue();
+        }
+    }
+
+    @Test
+    void falsePositiveRateStaysNearTheTarget() {
+        LongBloomFilter filter = new LongBloomFilter(50_000, 0.01);
+        for (long key = 0; key < 50_000; key++) {
+            filter.put(key);
+        }
+
+        int falsePositives = 0;
+        int probes = 200_000;
+        for (long key = 1_000_000; key < 1_000_000 + probes; key++) {
+            if (filter.mightContain(key)) {
+                falsePositives++;
+            }
+        }
+        // Target is 1%; allow generous slack for hash quality
+        assertThat((double) falsePositives / probes).isLessThan(0.02);
+    }
+
+    @Test
+    void concurrentPutsAreNotLost() throws Exception {
+        LongBloomFilter filter = new LongBloomFilter(80_000, 0.01);
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int thread = 0; thread < 8; thread++) {
+                long offset = thread * 10_000L;
+                futures.add(pool.submit(() -> {
+                    for (long key = offset; key < offset + 10_000; key++) {
+                        filter.put(key);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        for (long key = 0; key < 80_000; key++) {
+            assertThat(filter.mightContain(key)).isTrue();
+        }
+    }
+}
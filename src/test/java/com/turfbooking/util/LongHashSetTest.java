@@ -0,0 +1,111 @@
+package com.turfbooking.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LongHashSetTest {
+
+    @Test
+    void addContainsRemove() {
+        LongHashSet set = new LongHashSet();
+
+        assertThat(set.add(42)).isTrue();
+        assertThat(set.add(42)).isFalse();
+        assertThat(set.contains(42)).isTrue();
+        assertThat(set.contains(43)).isFalse();
+        assertThat(set.remove(42)).isTrue();
+        assertThat(set.remove(42)).isFalse();
+        assertThat(set.size()).isZero();
+    }
+
+    @Test
+    void zeroIsAnOrdinaryKey() {
+        LongHashSet set = new LongHashSet();
+
+        assertThat(set.contains(0)).isFalse();
+        assertThat(set.add(0)).isTrue();
+        assertThat(set.add(0)).isFalse();
+        assertThat(set.contains(0)).isTrue();
+        assertThat(set.size()).isEqualTo(1);
+
+        Set<Long> seen = new HashSet<>();
+        set.forEach(seen::add);
+        assertThat(seen).containsExactly(0L);
+
+        assertThat(set.remove(0)).isTrue();
+        assertThat(set.contains(0)).isFalse();
+        assertThat(set.size()).isZero();
+    }
+
+    @Test
+    void growsPastItsInitialCapacity() {
+        LongHashSet set = new LongHashSet(4);
+        for (long key = 1; key <= 10_000; key++) {
+            set.add(key * 7919);
+        }
+
+        assertThat(set.size()).isEqualTo(10_000);
+        for (long key = 1; key <= 10_000; key++) {
+            assertThat(set.contains(key * 7919)).isTrue();
+        }
+    }
+
+    @Test
+    void removalKeepsProbeChainsIntact() {
+        // A small table forces long collision chains that backward-shift deletion must repair
+        LongHashSet set = new LongHashSet(4);
+        for (long key = 1; key <= 64; key++) {
+            set.add(key << 32);
+        }
+        for (long key = 1; key <= 64; key += 2) {
+            assertThat(set.remove(key << 32)).isTrue();
+        }
+
+        for (long key = 1; key <= 64; key++) {
+            assertThat(set.contains(key << 32)).isEqualTo(key % 2 == 0);
+        }
+        assertThat(set.size()).isEqualTo(32);
+    }
+
+    @Test
+    void matchesHashSetUnderRandomOperations() {
+        Random random = new Random(7);
+        LongHashSet set = new LongHashSet();
+        Set<Long> expected = new HashSet<>();
+
+        for (int i = 0; i < 200_000; i++) {
+            // A narrow key range makes adds, removes and re-adds of the same key frequent
+            long key = random.nextInt(5_000) - 100;
+            switch (random.nextInt(3)) {
+                case 0 -> assertThat(set.add(key)).isEqualTo(expected.add(key));
+                case 1 -> assertThat(set.remove(key)).isEqualTo(expected.remove(key));
+                default -> assertThat(set.contains(key)).isEqualTo(expected.contains(key));
+            }
+        }
+
+        assertThat(set.size()).isEqualTo(expected.size());
+        Set<Long> actual = new HashSet<>();
+        set.forEach(actual::add);
+        assertThat(actual).isEqualTo(expected);
+    }
+
+    @Test
+    void clearEmptiesTheSet() {
+        LongHashSet set = new LongHashSet();
+        set.add(0);
+        set.add(1);
+        set.add(-1);
+
+        set.clear();
+
+        assertThat(set.size()).isZero();
+        assertThat(set.contains(0)).isFalse();
+        assertThat(set.contains(1)).isFalse();
+        assertThat(set.contains(-1)).isFalse();
+    }
+}
@@ -0,0 +1,49 @@
+package com.turfbooking.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark of transaction id generation, alone and with 8 threads contending
+ * Not run by the test phase. JMH forks a JVM with the launcher's classpath, so start it
+ * as its own process: mvn test-compile exec:exec -Dexec.classpathScope=test
+ * -Dexec.executable=java "-Dexec.args=-cp %classpath com.turfbooking.util.TransactionIdGeneratorBenchmark"
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TransactionIdGeneratorBenchmark {
+
+    @Benchmark
+    public long nextId() {
+        return TransactionIdGenerator.nextId();
+    }
+
+    @Benchmark
+    public String next() {
+        return TransactionIdGenerator.next();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public String nextContended() {
+        return TransactionIdGenerator.next();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(TransactionIdGeneratorBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,77 @@
+package com.turfbooking.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TransactionIdGeneratorTest {
+
+    private static final int THREADS = 8;
+    private static final int IDS_PER_THREAD = 100_000;
+
+    @Test
+    void idsAreUniqueAcrossThreadsAndIncreasingWithinEach() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        List<Future<long[]>> futures = new ArrayList<>();
+        try {
+            for (int thread = 0; thread < THREADS; thread++) {
+                futures.add(pool.submit(() -> {
+                    long[] ids = new long[IDS_PER_THREAD];
+                    for (int i = 0; i < ids.length; i++) {
+                        ids[i] = TransactionIdGenerator.nextId();
+                    }
+                    return ids;
+                }));
+            }
+            LongHashSet seen = new LongHashSet(THREADS * IDS_PER_THREAD);
+            for (Future<long[]> future : futures) {
+                long[] ids = future.get();
+                for (int i = 0; i < ids.length; i++) {
+                    assertThat(ids[i]).isPositive();
+                    if (i > 0) {
+                        assertThat(ids[i]).isGreaterThan(ids[i - 1]);
+                    }
+                    assertThat(seen.add(ids[i])).isTrue();
+                }
+            }
+            assertThat(seen.size()).isEqualTo(THREADS * IDS_PER_THREAD);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void stringIdsSortInGenerationOrderAndCarryTheNodeId() {
+        int original = TransactionIdGenerator.getNodeId();
+        try {
+            TransactionIdGenerator.setNodeId(TransactionIdGenerator.MAX_NODE_ID);
+            assertThat(TransactionIdGenerator.getNodeId()).isEqualTo(TransactionIdGenerator.MAX_NODE_ID);
+            assertThat((TransactionIdGenerator.nextId() >>> 12) & TransactionIdGenerator.MAX_NODE_ID)
+                .isEqualTo(TransactionIdGenerator.MAX_NODE_ID);
+
+            String previous = TransactionIdGenerator.next();
+            for (int i = 0; i < 10_000; i++) {
+                String next = TransactionIdGenerator.next();
+                assertThat(next).startsWith("TXN_").hasSize(previous.length());
+                assertThat(next).isGreaterThan(previous);
+                previous = next;
+            }
+        } finally {
+            TransactionIdGenerator.setNodeId(original);
+        }
+    }
+
+    @Test
+    void rejectsNodeIdsOutOfRange() {
+        assertThatThrownBy(() -> TransactionIdGenerator.setNodeId(-1)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> TransactionIdGenerator.setNodeId(TransactionIdGenerator.MAX_NODE_ID + 1))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+}